@@ -0,0 +1,71 @@
+package com.codingrodent.jackson.crypto.benchmarks;
+
+import com.codingrodent.jackson.crypto.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many small values encrypted / decrypted one call at a time against the batch methods of {@link EncryptionService}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchBenchmark {
+
+    @Param({"AES_CBC", "AES_GCM"})
+    public CipherSuite suite;
+
+    @Param({"1000"})
+    public int count;
+
+    private EncryptionService service;
+    private List<byte[]> clear;
+    private List<EncryptedJson> encrypted;
+
+    @Setup
+    public void setup() {
+        service = new EncryptionService(new ObjectMapper(), new PasswordCryptoContext("Password1", "Password1", suite));
+        var random = new SecureRandom();
+        clear = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            var value = new byte[32];
+            random.nextBytes(value);
+            clear.add(value);
+        }
+        encrypted = service.encryptAll(clear);
+    }
+
+    @Benchmark
+    public List<EncryptedJson> encryptSingle() {
+        var results = new ArrayList<EncryptedJson>(count);
+        for (var value : clear)
+            results.add(service.encrypt(value));
+        return results;
+    }
+
+    @Benchmark
+    public List<EncryptedJson> encryptBatch() {
+        return service.encryptAll(clear);
+    }
+
+    @Benchmark
+    public List<byte[]> decryptSingle() {
+        var results = new ArrayList<byte[]>(count);
+        for (var value : encrypted)
+            results.add(service.decrypt(value));
+        return results;
+    }
+
+    @Benchmark
+    public List<byte[]> decryptBatch() {
+        return service.decryptAll(encrypted);
+    }
+}
@@ -0,0 +1,48 @@
+package com.codingrodent.jackson.crypto.benchmarks;
+
+import com.codingrodent.jackson.crypto.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw byte encrypt / decrypt through {@link EncryptionService} for each {@link CipherSuite} across payload sizes
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CipherSuiteBenchmark {
+
+    @Param({"AES_CBC", "AES_GCM", "CHACHA20_POLY1305"})
+    public CipherSuite suite;
+
+    @Param({"16", "1024", "65536"})
+    public int size;
+
+    private EncryptionService service;
+    private byte[] clear;
+    private EncryptedJson encrypted;
+
+    @Setup
+    public void setup() {
+        service = new EncryptionService(new ObjectMapper(), new PasswordCryptoContext("Password1", "Password1", suite));
+        clear = new byte[size];
+        new SecureRandom().nextBytes(clear);
+        encrypted = service.encrypt(clear);
+    }
+
+    @Benchmark
+    public EncryptedJson encrypt() {
+        return service.encrypt(clear);
+    }
+
+    @Benchmark
+    public byte[] decrypt() {
+        return service.decrypt(encrypted);
+    }
+}
@@ -0,0 +1,67 @@
+package com.codingrodent.jackson.crypto.benchmarks;
+
+import com.codingrodent.jackson.crypto.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw byte encrypt / decrypt through {@link EncryptionService} across payload sizes, from heap arrays and between direct
+ * buffers
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncryptionServiceBenchmark {
+
+    @Param({"16", "1024", "65536"})
+    public int size;
+
+    private EncryptionService service;
+    private byte[] clear;
+    private EncryptedJson encrypted;
+    private ByteBuffer clearBuffer, encryptedBuffer, targetBuffer;
+
+    @Setup
+    public void setup() {
+        service = new EncryptionService(new ObjectMapper(), new PasswordCryptoContext("Password1"));
+        clear = new byte[size];
+        new SecureRandom().nextBytes(clear);
+        encrypted = service.encrypt(clear);
+        var pool = service.getBufferPool();
+        var length = service.getMaxEncryptedLength(size);
+        clearBuffer = pool.acquire(length).put(clear).flip();
+        encryptedBuffer = pool.acquire(length);
+        service.encrypt(clearBuffer.duplicate(), encryptedBuffer);
+        encryptedBuffer.flip();
+        targetBuffer = pool.acquire(length);
+    }
+
+    @Benchmark
+    public EncryptedJson encrypt() {
+        return service.encrypt(clear);
+    }
+
+    @Benchmark
+    public byte[] decrypt() {
+        return service.decrypt(encrypted);
+    }
+
+    @Benchmark
+    public int encryptBuffer() {
+        targetBuffer.clear();
+        return service.encrypt(clearBuffer.duplicate(), targetBuffer);
+    }
+
+    @Benchmark
+    public int decryptBuffer() {
+        targetBuffer.clear();
+        return service.decrypt(encryptedBuffer.duplicate(), targetBuffer);
+    }
+}
@@ -0,0 +1,86 @@
+package com.codingrodent.jackson.crypto.benchmarks;
+
+import com.codingrodent.jackson.crypto.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of key derivation in {@link PasswordCryptoContext}. Cold decrypts derive the key every time, warm decrypts take
+ * it from the derived key cache. HKDF cold decrypts derive the key from a master key every time.
+ * {@link SecretKeyCryptoContext} is the baseline with no derivation at all
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyDerivationBenchmark {
+
+    private EncryptionService coldService;
+    private EncryptedJson coldEncrypted;
+    private EncryptionService warmService;
+    private EncryptedJson warmEncrypted;
+    private EncryptionService hkdfService;
+    private EncryptedJson hkdfEncrypted;
+    private SecretKey secretKey;
+    private EncryptionService secretKeyService;
+    private EncryptedJson secretKeyEncrypted;
+
+    @Setup
+    public void setup() throws GeneralSecurityException {
+        var coldContext = new PasswordCryptoContext("Password1");
+        coldContext.setKeyCacheSize(0);
+        coldService = new EncryptionService(new ObjectMapper(), coldContext);
+        coldEncrypted = coldService.encrypt(new byte[16]);
+        //
+        warmService = new EncryptionService(new ObjectMapper(), new PasswordCryptoContext("Password1"));
+        warmEncrypted = warmService.encrypt(new byte[16]);
+        //
+        var hkdfContext = new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_CBC, new byte[16]);
+        hkdfContext.setKeyCacheSize(0);
+        hkdfService = new EncryptionService(new ObjectMapper(), hkdfContext);
+        hkdfEncrypted = hkdfService.encrypt(new byte[16]);
+        //
+        var generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        secretKey = generator.generateKey();
+        secretKeyService = new EncryptionService(new ObjectMapper(), new SecretKeyCryptoContext(secretKey));
+        secretKeyEncrypted = secretKeyService.encrypt(new byte[16]);
+    }
+
+    @Benchmark
+    public PasswordCryptoContext newContext() {
+        return new PasswordCryptoContext("Password1");
+    }
+
+    @Benchmark
+    public byte[] coldDecrypt() {
+        return coldService.decrypt(coldEncrypted);
+    }
+
+    @Benchmark
+    public byte[] warmDecrypt() {
+        return warmService.decrypt(warmEncrypted);
+    }
+
+    @Benchmark
+    public byte[] hkdfColdDecrypt() {
+        return hkdfService.decrypt(hkdfEncrypted);
+    }
+
+    @Benchmark
+    public SecretKeyCryptoContext newSecretKeyContext() {
+        return new SecretKeyCryptoContext(secretKey);
+    }
+
+    @Benchmark
+    public byte[] secretKeyDecrypt() {
+        return secretKeyService.decrypt(secretKeyEncrypted);
+    }
+}
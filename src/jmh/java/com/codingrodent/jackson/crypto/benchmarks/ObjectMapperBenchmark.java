@@ -0,0 +1,79 @@
+package com.codingrodent.jackson.crypto.benchmarks;
+
+import com.codingrodent.jackson.crypto.*;
+import com.codingrodent.jackson.crypto.pojos.SecureGetterPoJo;
+import com.codingrodent.jackson.crypto.pojos.SecurePropertyPoJo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full {@link ObjectMapper} round trip for objects with 1, 10 and 50 encrypted fields, in each envelope format
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ObjectMapperBenchmark {
+
+    private static final String VALUE = "The quick brown fox jumps over the lazy dog";
+
+    @Param({"1", "10", "50"})
+    public int fields;
+
+    @Param({"OBJECT", "COMPACT"})
+    public EnvelopeFormat format;
+
+    private ObjectMapper objectMapper;
+    private Object pojo;
+    private String json;
+    private SecureGetterPoJo getterPojo;
+    private String getterJson;
+
+    @Setup
+    public void setup() throws Exception {
+        objectMapper = new ObjectMapper();
+        var encryptionService = new EncryptionService(objectMapper, new PasswordCryptoContext("Password1"));
+        encryptionService.setEnvelopeFormat(format);
+        objectMapper.registerModule(new CryptoModule().addEncryptionService(encryptionService));
+        switch (fields) {
+            case 1:
+                var property = new SecurePropertyPoJo();
+                property.setCritical(VALUE);
+                pojo = property;
+                break;
+            case 10:
+                pojo = SecureWide10PoJo.of(VALUE);
+                break;
+            default:
+                pojo = SecureWide50PoJo.of(VALUE);
+        }
+        json = objectMapper.writeValueAsString(pojo);
+        getterPojo = new SecureGetterPoJo();
+        getterPojo.setCritical(VALUE);
+        getterJson = objectMapper.writeValueAsString(getterPojo);
+    }
+
+    @Benchmark
+    public String serialize() throws Exception {
+        return objectMapper.writeValueAsString(pojo);
+    }
+
+    @Benchmark
+    public Object deserialize() throws Exception {
+        return objectMapper.readValue(json, pojo.getClass());
+    }
+
+    @Benchmark
+    public String serializeGetter() throws Exception {
+        return objectMapper.writeValueAsString(getterPojo);
+    }
+
+    @Benchmark
+    public SecureGetterPoJo deserializeGetter() throws Exception {
+        return objectMapper.readValue(getterJson, SecureGetterPoJo.class);
+    }
+}
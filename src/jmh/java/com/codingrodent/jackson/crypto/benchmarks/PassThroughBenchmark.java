@@ -0,0 +1,49 @@
+package com.codingrodent.jackson.crypto.benchmarks;
+
+import com.codingrodent.jackson.crypto.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read, change one field and write back a bean with 10 encrypted fields, with and without ciphertext pass through
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PassThroughBenchmark {
+
+    @Param({"false", "true"})
+    public boolean passThrough;
+
+    private ObjectMapper objectMapper;
+    private String json;
+    private SecureWide10PoJo read;
+
+    @Setup
+    public void setup() throws Exception {
+        objectMapper = new ObjectMapper();
+        var service = new EncryptionService(objectMapper, new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM, new byte[16]));
+        service.setPassThrough(passThrough);
+        objectMapper.registerModule(new CryptoModule().addEncryptionService(service));
+        json = objectMapper.writeValueAsString(SecureWide10PoJo.of("Something very secure ..."));
+        read = objectMapper.readValue(json, SecureWide10PoJo.class);
+        read.setField01("changed");
+    }
+
+    @Benchmark
+    public String write() throws Exception {
+        return objectMapper.writeValueAsString(read);
+    }
+
+    @Benchmark
+    public String readModifyWrite() throws Exception {
+        var pojo = objectMapper.readValue(json, SecureWide10PoJo.class);
+        pojo.setField01("changed");
+        return objectMapper.writeValueAsString(pojo);
+    }
+}
@@ -0,0 +1,55 @@
+package com.codingrodent.jackson.crypto.benchmarks;
+
+import com.codingrodent.jackson.crypto.EncryptionService;
+import com.codingrodent.jackson.crypto.pojos.SecurePropertyPoJo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared {@link ObjectMapper} round trip under increasing thread counts, to expose contention in shared crypto state
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScalingBenchmark {
+
+    private ObjectMapper objectMapper;
+    private SecurePropertyPoJo pojo;
+    private String json;
+
+    @Setup
+    public void setup() throws Exception {
+        objectMapper = EncryptionService.getInstance("Password1");
+        pojo = new SecurePropertyPoJo();
+        pojo.setCritical("The quick brown fox jumps over the lazy dog");
+        json = objectMapper.writeValueAsString(pojo);
+    }
+
+    private SecurePropertyPoJo roundTrip() throws Exception {
+        objectMapper.writeValueAsString(pojo);
+        return objectMapper.readValue(json, SecurePropertyPoJo.class);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public SecurePropertyPoJo roundTrip1Thread() throws Exception {
+        return roundTrip();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public SecurePropertyPoJo roundTrip4Threads() throws Exception {
+        return roundTrip();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public SecurePropertyPoJo roundTripMaxThreads() throws Exception {
+        return roundTrip();
+    }
+}
@@ -0,0 +1,60 @@
+package com.codingrodent.jackson.crypto.benchmarks;
+
+import com.codingrodent.jackson.crypto.Encrypt;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Benchmark fixture with 10 encrypted fields
+ */
+public class SecureWide10PoJo {
+
+    @JsonProperty
+    @Encrypt
+    private String field01;
+    @JsonProperty
+    @Encrypt
+    private String field02;
+    @JsonProperty
+    @Encrypt
+    private String field03;
+    @JsonProperty
+    @Encrypt
+    private String field04;
+    @JsonProperty
+    @Encrypt
+    private String field05;
+    @JsonProperty
+    @Encrypt
+    private String field06;
+    @JsonProperty
+    @Encrypt
+    private String field07;
+    @JsonProperty
+    @Encrypt
+    private String field08;
+    @JsonProperty
+    @Encrypt
+    private String field09;
+    @JsonProperty
+    @Encrypt
+    private String field10;
+
+    public static SecureWide10PoJo of(final String value) {
+        var pojo = new SecureWide10PoJo();
+        pojo.field01 = value;
+        pojo.field02 = value;
+        pojo.field03 = value;
+        pojo.field04 = value;
+        pojo.field05 = value;
+        pojo.field06 = value;
+        pojo.field07 = value;
+        pojo.field08 = value;
+        pojo.field09 = value;
+        pojo.field10 = value;
+        return pojo;
+    }
+
+    public void setField01(final String field01) {
+        this.field01 = field01;
+    }
+}
@@ -0,0 +1,216 @@
+package com.codingrodent.jackson.crypto.benchmarks;
+
+import com.codingrodent.jackson.crypto.Encrypt;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Benchmark fixture with 50 encrypted fields
+ */
+public class SecureWide50PoJo {
+
+    @JsonProperty
+    @Encrypt
+    private String field01;
+    @JsonProperty
+    @Encrypt
+    private String field02;
+    @JsonProperty
+    @Encrypt
+    private String field03;
+    @JsonProperty
+    @Encrypt
+    private String field04;
+    @JsonProperty
+    @Encrypt
+    private String field05;
+    @JsonProperty
+    @Encrypt
+    private String field06;
+    @JsonProperty
+    @Encrypt
+    private String field07;
+    @JsonProperty
+    @Encrypt
+    private String field08;
+    @JsonProperty
+    @Encrypt
+    private String field09;
+    @JsonProperty
+    @Encrypt
+    private String field10;
+    @JsonProperty
+    @Encrypt
+    private String field11;
+    @JsonProperty
+    @Encrypt
+    private String field12;
+    @JsonProperty
+    @Encrypt
+    private String field13;
+    @JsonProperty
+    @Encrypt
+    private String field14;
+    @JsonProperty
+    @Encrypt
+    private String field15;
+    @JsonProperty
+    @Encrypt
+    private String field16;
+    @JsonProperty
+    @Encrypt
+    private String field17;
+    @JsonProperty
+    @Encrypt
+    private String field18;
+    @JsonProperty
+    @Encrypt
+    private String field19;
+    @JsonProperty
+    @Encrypt
+    private String field20;
+    @JsonProperty
+    @Encrypt
+    private String field21;
+    @JsonProperty
+    @Encrypt
+    private String field22;
+    @JsonProperty
+    @Encrypt
+    private String field23;
+    @JsonProperty
+    @Encrypt
+    private String field24;
+    @JsonProperty
+    @Encrypt
+    private String field25;
+    @JsonProperty
+    @Encrypt
+    private String field26;
+    @JsonProperty
+    @Encrypt
+    private String field27;
+    @JsonProperty
+    @Encrypt
+    private String field28;
+    @JsonProperty
+    @Encrypt
+    private String field29;
+    @JsonProperty
+    @Encrypt
+    private String field30;
+    @JsonProperty
+    @Encrypt
+    private String field31;
+    @JsonProperty
+    @Encrypt
+    private String field32;
+    @JsonProperty
+    @Encrypt
+    private String field33;
+    @JsonProperty
+    @Encrypt
+    private String field34;
+    @JsonProperty
+    @Encrypt
+    private String field35;
+    @JsonProperty
+    @Encrypt
+    private String field36;
+    @JsonProperty
+    @Encrypt
+    private String field37;
+    @JsonProperty
+    @Encrypt
+    private String field38;
+    @JsonProperty
+    @Encrypt
+    private String field39;
+    @JsonProperty
+    @Encrypt
+    private String field40;
+    @JsonProperty
+    @Encrypt
+    private String field41;
+    @JsonProperty
+    @Encrypt
+    private String field42;
+    @JsonProperty
+    @Encrypt
+    private String field43;
+    @JsonProperty
+    @Encrypt
+    private String field44;
+    @JsonProperty
+    @Encrypt
+    private String field45;
+    @JsonProperty
+    @Encrypt
+    private String field46;
+    @JsonProperty
+    @Encrypt
+    private String field47;
+    @JsonProperty
+    @Encrypt
+    private String field48;
+    @JsonProperty
+    @Encrypt
+    private String field49;
+    @JsonProperty
+    @Encrypt
+    private String field50;
+
+    public static SecureWide50PoJo of(final String value) {
+        var pojo = new SecureWide50PoJo();
+        pojo.field01 = value;
+        pojo.field02 = value;
+        pojo.field03 = value;
+        pojo.field04 = value;
+        pojo.field05 = value;
+        pojo.field06 = value;
+        pojo.field07 = value;
+        pojo.field08 = value;
+        pojo.field09 = value;
+        pojo.field10 = value;
+        pojo.field11 = value;
+        pojo.field12 = value;
+        pojo.field13 = value;
+        pojo.field14 = value;
+        pojo.field15 = value;
+        pojo.field16 = value;
+        pojo.field17 = value;
+        pojo.field18 = value;
+        pojo.field19 = value;
+        pojo.field20 = value;
+        pojo.field21 = value;
+        pojo.field22 = value;
+        pojo.field23 = value;
+        pojo.field24 = value;
+        pojo.field25 = value;
+        pojo.field26 = value;
+        pojo.field27 = value;
+        pojo.field28 = value;
+        pojo.field29 = value;
+        pojo.field30 = value;
+        pojo.field31 = value;
+        pojo.field32 = value;
+        pojo.field33 = value;
+        pojo.field34 = value;
+        pojo.field35 = value;
+        pojo.field36 = value;
+        pojo.field37 = value;
+        pojo.field38 = value;
+        pojo.field39 = value;
+        pojo.field40 = value;
+        pojo.field41 = value;
+        pojo.field42 = value;
+        pojo.field43 = value;
+        pojo.field44 = value;
+        pojo.field45 = value;
+        pojo.field46 = value;
+        pojo.field47 = value;
+        pojo.field48 = value;
+        pojo.field49 = value;
+        pojo.field50 = value;
+        return pojo;
+    }
+}
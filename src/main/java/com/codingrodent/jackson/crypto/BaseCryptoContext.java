@@ -24,23 +24,40 @@ THE SOFTWARE.
 
 package com.codingrodent.jackson.crypto;
 
-import javax.crypto.Cipher;
+import com.codingrodent.jackson.crypto.CipherPool.PooledCipher;
+import com.codingrodent.jackson.crypto.CryptoEvents.KeyDerivationEvent;
+
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
-import java.util.Arrays;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static javax.crypto.Cipher.DECRYPT_MODE;
 import static javax.crypto.Cipher.ENCRYPT_MODE;
 
 /**
  * Core crypto functionality. To be extended for specific purposes, e.g. password encryption
+ * <p>
+ * When the cipher is one of the authenticated {@link CipherSuite}s a fresh nonce is used for every message and the suite
+ * is recorded in the encrypted JSON. Messages that record a suite are decrypted with that suite, others with the
+ * context's own cipher. A context using an authenticated suite rejects unauthenticated messages, as removing the suite
+ * from a message would otherwise downgrade it to AES/CBC. Data written before changing suite can be read by enabling
+ * {@link #setLegacyCbcEnabled(boolean)}
+ * <p>
+ * When a master salt is supplied the password is stretched once, into a master key, and keys for each salt are derived
+ * from it with HKDF-SHA256. This is recorded in the encrypted JSON. Other contexts must use the same master salt to read
+ * the data, while data with password derived keys can still be read by any context
  */
 public abstract class BaseCryptoContext implements ICryptoContext {
 
     public static final int DEFAULT_ITERATION_COUNT = 65556;
     public static final int DEFAULT_KEY_LENGTH = 256;
     public static final String DEFAULT_ALGORITHM_TYPE = "AES";
+    public static final int DEFAULT_KEY_CACHE_SIZE = 16;
+    public static final int DEFAULT_CIPHER_POOL_SIZE = 32;
 
     private final int iterationCount;
     private final int keyLength;
@@ -48,8 +65,20 @@ public abstract class BaseCryptoContext implements ICryptoContext {
 
     private final byte[] iv;
     private final byte[] salt;
+    private final int blockSize;
+    private final CipherSuite suite;
+    private final KeyDerivation kdf;
+    private final byte[] readMasterKey;
     private final SecretKeySpec writeSecretKeySpec;
-    private final String readPassword, cipherName, keyAlgorithm;
+    private final String readPassword, keyAlgorithm, legacyAlgorithmType;
+    private final SecretKeyCache keyCache = new SecretKeyCache(DEFAULT_KEY_CACHE_SIZE);
+    private final Map<CipherSuite, CipherPool> suitePools = new EnumMap<>(CipherSuite.class);
+    private final CipherPool legacyPool, writePool;
+    private final byte[] nonceField;
+    private final boolean writesWithReadKey;
+    private volatile CryptoListener listener;
+    private volatile boolean legacyCbcEnabled;
+    private final AtomicLong nonceCounter = new AtomicLong();
 
     /**
      * Initialize crypto environment - Can use different passwords for read and write - e.g. When changing passwords
@@ -64,6 +93,26 @@ public abstract class BaseCryptoContext implements ICryptoContext {
      */
     public BaseCryptoContext(final String readPassword, final String writePassword, final String cipherName,
                              final String keyAlgorithm, int iterationCount, int keyLength, final String algorithmType) {
+        this(readPassword, writePassword, cipherName, keyAlgorithm, iterationCount, keyLength, algorithmType, null);
+    }
+
+    /**
+     * Initialize crypto environment - Can use different passwords for read and write - e.g. When changing passwords.
+     * With a master salt, keys are derived from a master key with HKDF-SHA256 rather than from the password for each salt
+     *
+     * @param readPassword   Password for read operations
+     * @param writePassword  Password for write operations
+     * @param cipherName     Name of cipher to be used for encryption, e.g. AES/CBC/PKCS5Padding
+     * @param keyAlgorithm   Name of kay algorithm to use, e.g. PBKDF2WithHmacSHA512
+     * @param iterationCount the iteration count e.g. 5000
+     * @param keyLength      the to-be-derived key length e.g. 64
+     * @param algorithmType  Name of algorithm type e.g. DES
+     * @param masterSalt     Salt for the master key, shared by all contexts reading the data, null to derive keys from the
+     *                       password for each salt
+     */
+    public BaseCryptoContext(final String readPassword, final String writePassword, final String cipherName,
+                             final String keyAlgorithm, int iterationCount, int keyLength, final String algorithmType,
+                             final byte[] masterSalt) {
 
         if ((null == readPassword) || (null == writePassword))
             throw new EncryptionException("Password cannot be null");
@@ -75,23 +124,58 @@ public abstract class BaseCryptoContext implements ICryptoContext {
             throw new EncryptionException("Algorithm type cannot be null");
         if (iterationCount < 5000)
             throw new EncryptionException("Iteration Count cannot be less than 5000");
+        if ((null != masterSalt) && (masterSalt.length < EnvelopeValidator.MIN_SALT_LENGTH))
+            throw new EncryptionException("Master salt cannot be less than " + EnvelopeValidator.MIN_SALT_LENGTH + " bytes");
 
         this.iterationCount = iterationCount;
         this.keyLength = keyLength;
-        this.algorithmType = algorithmType;
         this.readPassword = readPassword;
-        this.cipherName = cipherName;
         this.keyAlgorithm = keyAlgorithm;
+        this.kdf = null == masterSalt ? KeyDerivation.PBKDF2 : KeyDerivation.HKDF_SHA256;
+        this.writesWithReadKey = readPassword.equals(writePassword);
+        this.readMasterKey = null == masterSalt ? null : createSecretKeySpec(masterSalt, readPassword, Hkdf.ALGORITHM).getEncoded();
+        var writeMasterKey = readMasterKey;
+        if ((null != masterSalt) && !readPassword.equals(writePassword))
+            writeMasterKey = createSecretKeySpec(masterSalt, writePassword, Hkdf.ALGORITHM).getEncoded();
+        this.suite = CipherSuite.forCipherName(cipherName);
+        for (var cipherSuite : CipherSuite.values())
+            suitePools.put(cipherSuite, new CipherPool(cipherSuite, DEFAULT_CIPHER_POOL_SIZE));
         this.salt = generateSalt();
-        this.writeSecretKeySpec = createSecretKeySpec(salt, writePassword);
 
-        try {
-            var cipher = Cipher.getInstance(cipherName);
-            cipher.init(ENCRYPT_MODE, writeSecretKeySpec);
-            var algorithmParameters = cipher.getParameters();
-            iv = algorithmParameters.getParameterSpec(IvParameterSpec.class).getIV();
-        } catch (Exception e) {
-            throw new EncryptionException(e);
+        if (isAead()) {
+            // Key type is fixed by the suite, and messages without a suite are from before suites were recorded
+            this.algorithmType = suite.getKeyAlgorithm();
+            this.legacyAlgorithmType = CipherSuite.AES_CBC.getKeyAlgorithm();
+            this.legacyPool = suitePools.get(CipherSuite.AES_CBC);
+            this.writePool = suitePools.get(suite);
+            this.writeSecretKeySpec = createWriteSecretKeySpec(writePassword, writeMasterKey, this.algorithmType);
+            this.nonceField = new byte[suite.getIvLength() - Long.BYTES];
+            new SecureRandom().nextBytes(nonceField);
+            this.iv = new byte[suite.getIvLength()];
+            this.blockSize = 0;
+            try {
+                writePool.release(writePool.acquire());
+            } catch (Exception e) {
+                throw new EncryptionException(e);
+            }
+        } else {
+            this.algorithmType = algorithmType;
+            this.legacyAlgorithmType = algorithmType;
+            this.legacyPool = null == suite ? new CipherPool(cipherName, DEFAULT_CIPHER_POOL_SIZE) : suitePools.get(suite);
+            this.writePool = legacyPool;
+            this.writeSecretKeySpec = createWriteSecretKeySpec(writePassword, writeMasterKey, algorithmType);
+            this.nonceField = null;
+            try {
+                var pooled = writePool.acquire();
+                var cipher = pooled.uninitialised();
+                cipher.init(ENCRYPT_MODE, writeSecretKeySpec);
+                var algorithmParameters = cipher.getParameters();
+                iv = algorithmParameters.getParameterSpec(IvParameterSpec.class).getIV();
+                blockSize = isBlockAligned(cipherName) ? cipher.getBlockSize() : 0;
+                writePool.release(pooled);
+            } catch (Exception e) {
+                throw new EncryptionException(e);
+            }
         }
     }
 
@@ -116,8 +200,67 @@ public abstract class BaseCryptoContext implements ICryptoContext {
      */
     @Override
     public byte[] decrypt(final EncryptedJson value) throws EncryptionException {
+        return decrypt(Envelope.of(value));
+    }
+
+    /**
+     * Decrypt an envelope
+     *
+     * @param envelope Encrypted message
+     * @return Decrypted byte array
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public byte[] decrypt(final Envelope envelope) throws EncryptionException {
         try {
-            return getDecryptCipher(value.getIv(), value.getSalt()).doFinal(value.getValue());
+            var pool = poolFor(envelope);
+            var cipher = getDecryptCipher(pool, envelope.kdf(), envelope.iv(), envelope.salt(), algorithmTypeFor(envelope));
+            var result = cipher.cipher().doFinal(envelope.value(), envelope.valueOffset(), envelope.valueLength());
+            pool.release(cipher);
+            return result;
+        } catch (EncryptionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new EncryptionException(e);
+        }
+    }
+
+    /**
+     * Decrypt a batch of envelopes. One cipher is used for the whole batch, and a key is only looked up when the salt
+     * changes from one envelope to the next
+     *
+     * @param envelopes Encrypted messages
+     * @return Decrypted byte arrays, in the same order as the envelopes
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public List<byte[]> decryptEnvelopes(final List<Envelope> envelopes) throws EncryptionException {
+        var results = new ArrayList<byte[]>(envelopes.size());
+        CipherPool pool = null;
+        PooledCipher cipher = null;
+        Envelope keyed = null;
+        SecretKeySpec key = null;
+        try {
+            for (var envelope : envelopes) {
+                var next = poolFor(envelope);
+                if (next != pool) {
+                    if (null != cipher)
+                        pool.release(cipher);
+                    pool = next;
+                    cipher = pool.acquire();
+                }
+                if ((null == keyed) || !sameKey(keyed, envelope)) {
+                    key = getReadSecretKeySpec(envelope.kdf(), envelope.salt(), algorithmTypeFor(envelope));
+                    keyed = envelope;
+                }
+                cipher.init(DECRYPT_MODE, key, envelope.iv());
+                results.add(cipher.cipher().doFinal(envelope.value(), envelope.valueOffset(), envelope.valueLength()));
+            }
+            if (null != cipher)
+                pool.release(cipher);
+            return results;
+        } catch (EncryptionException e) {
+            throw e;
         } catch (Exception e) {
             throw new EncryptionException(e);
         }
@@ -132,15 +275,177 @@ public abstract class BaseCryptoContext implements ICryptoContext {
      */
     @Override
     public byte[] encrypt(final byte[] source) throws EncryptionException {
+        return encrypt(source, 0, source.length);
+    }
+
+    /**
+     * Encrypt part of a byte array. Not available for authenticated suites as the nonce is not returned
+     *
+     * @param source Byte array holding data to be encrypted
+     * @param offset Offset of data in source
+     * @param length Length of data in source
+     * @return Encrypted data
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public byte[] encrypt(final byte[] source, final int offset, final int length) throws EncryptionException {
+        if (isAead())
+            throw new EncryptionException("Cipher suite " + suite.getId() + " uses a nonce per message, encrypt to an envelope instead");
+        return encrypt(source, offset, length, iv);
+    }
+
+    /**
+     * Encrypt part of a byte array into an envelope. The envelope shares the context's salt array, and iv array unless a
+     * nonce is generated for the message
+     *
+     * @param source Byte array holding data to be encrypted
+     * @param offset Offset of data in source
+     * @param length Length of data in source
+     * @return Encrypted message
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public Envelope encryptEnvelope(final byte[] source, final int offset, final int length) throws EncryptionException {
+        if (isAead()) {
+            var nonce = nextNonce();
+            return new Envelope(suite, envelopeKdf(), salt, nonce, encrypt(source, offset, length, nonce));
+        }
+        return new Envelope(null, envelopeKdf(), salt, iv, encrypt(source, offset, length, iv));
+    }
+
+    /**
+     * Encrypt part of a byte array into an envelope, writing the cipher text to the start of the target array if it is
+     * large enough
+     *
+     * @param source Byte array holding data to be encrypted
+     * @param offset Offset of data in source
+     * @param length Length of data in source
+     * @param target Array to write the cipher text to
+     * @return Encrypted message, only valid until the target array is reused
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public Envelope encryptEnvelope(final byte[] source, final int offset, final int length, final byte[] target) throws EncryptionException {
+        var messageIv = isAead() ? nextNonce() : iv;
+        try {
+            var cipher = getEncryptCipher(messageIv);
+            var value = target;
+            int valueLength;
+            if (cipher.cipher().getOutputSize(length) <= target.length) {
+                valueLength = cipher.cipher().doFinal(source, offset, length, target, 0);
+            } else {
+                value = cipher.cipher().doFinal(source, offset, length);
+                valueLength = value.length;
+            }
+            writePool.release(cipher);
+            return new Envelope(isAead() ? suite : null, envelopeKdf(), salt, messageIv, value, 0, valueLength);
+        } catch (EncryptionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new EncryptionException(e);
+        }
+    }
+
+    /**
+     * Start a new message. The envelope shares the context's salt array, and iv array unless a nonce is generated for the
+     * message
+     *
+     * @return Envelope without cipher text
+     */
+    @Override
+    public Envelope newHeader() {
+        if (isAead())
+            return new Envelope(suite, envelopeKdf(), null, salt, nextNonce(), null, 0, 0);
+        return new Envelope(null, envelopeKdf(), null, salt, iv, null, 0, 0);
+    }
+
+    /**
+     * Get the length of the compact header of a new message, without generating a nonce
+     *
+     * @param keyId Identifier of the key in a key ring recorded in the header, null for none
+     * @return Header length in bytes
+     * @throws EncryptionException Thrown if the key id, salt or iv are too long to be recorded
+     */
+    @Override
+    public int compactHeaderLength(final String keyId) throws EncryptionException {
+        return Envelope.compactHeaderLength(keyId, salt.length, isAead() ? suite.getIvLength() : iv.length);
+    }
+
+    /**
+     * Encrypt the remaining bytes of a buffer into another without copying either to the heap
+     *
+     * @param header Message started by {@link #newHeader()}
+     * @param source Buffer holding the data to encrypt
+     * @param target Buffer to write the cipher text to
+     * @return Number of bytes written
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public int encrypt(final Envelope header, final ByteBuffer source, final ByteBuffer target) throws EncryptionException {
+        try {
+            var cipher = getEncryptCipher(header.iv());
+            var written = cipher.cipher().doFinal(source, target);
+            writePool.release(cipher);
+            return written;
+        } catch (EncryptionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new EncryptionException(e);
+        }
+    }
+
+    /**
+     * Decrypt the remaining bytes of a buffer into another without copying either to the heap
+     *
+     * @param header Message header read from the buffer
+     * @param source Buffer holding the cipher text
+     * @param target Buffer to write the decrypted data to
+     * @return Number of bytes written
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public int decrypt(final Envelope header, final ByteBuffer source, final ByteBuffer target) throws EncryptionException {
         try {
-            return getEncryptCipher().doFinal(source);
+            var pool = poolFor(header);
+            var cipher = getDecryptCipher(pool, header.kdf(), header.iv(), header.salt(), algorithmTypeFor(header));
+            var written = cipher.cipher().doFinal(source, target);
+            pool.release(cipher);
+            return written;
+        } catch (EncryptionException e) {
+            throw e;
         } catch (Exception e) {
             throw new EncryptionException(e);
         }
     }
 
     /**
-     * Get the initialization vector
+     * Encrypt a batch of byte arrays into envelopes using one cipher for the whole batch
+     *
+     * @param sources Byte arrays to be encrypted
+     * @return Encrypted messages, in the same order as the sources
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public List<Envelope> encryptEnvelopes(final List<byte[]> sources) throws EncryptionException {
+        var envelopes = new ArrayList<Envelope>(sources.size());
+        var envelopeSuite = isAead() ? suite : null;
+        try {
+            var cipher = writePool.acquire();
+            for (var source : sources) {
+                var nonce = isAead() ? nextNonce() : iv;
+                cipher.init(ENCRYPT_MODE, writeSecretKeySpec, nonce);
+                envelopes.add(new Envelope(envelopeSuite, envelopeKdf(), salt, nonce, cipher.cipher().doFinal(source)));
+            }
+            writePool.release(cipher);
+            return envelopes;
+        } catch (Exception e) {
+            throw new EncryptionException(e);
+        }
+    }
+
+    /**
+     * Get the initialization vector. For authenticated suites a fresh nonce is used for every message, and this is a
+     * zero filled array of the nonce length
      *
      * @return Vector as byte array
      */
@@ -157,22 +462,201 @@ public abstract class BaseCryptoContext implements ICryptoContext {
         return Arrays.copyOf(salt, salt.length);
     }
 
+    /**
+     * Get the block size that cipher text lengths are always a multiple of
+     *
+     * @return Block size in bytes, 0 if cipher text is not block aligned
+     */
+    @Override
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Get the cipher suite used to encrypt
+     *
+     * @return Cipher suite, null if a custom cipher is used
+     */
+    @Override
+    public CipherSuite getCipherSuite() {
+        return suite;
+    }
+
+    /**
+     * Decide if a message is as this context would write it. Keys are derived from the salt in the message, so a message
+     * with another salt is still current if it uses the write password, suite and key derivation
+     *
+     * @param envelope Encrypted message read by this context
+     * @return True if the message is current
+     */
+    @Override
+    public boolean isCurrent(final Envelope envelope) {
+        return writesWithReadKey && (null == envelope.keyId()) && (envelope.kdf() == envelopeKdf()) && (envelope.suite() == (isAead() ? suite : null));
+    }
+
+    /**
+     * Set the listener told about key derivations, i.e. key cache misses
+     *
+     * @param listener Listener, null for none
+     */
+    @Override
+    public void setCryptoListener(final CryptoListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Derive ahead of time the read keys for messages written with the given salts and this context's suite and key
+     * derivation. Keys are held in the derived key cache, so no more than the cache size are kept
+     *
+     * @param salts Salts of messages expected to be read
+     * @throws EncryptionException Thrown on any error
+     */
+    @Override
+    public void preloadKeys(final Collection<byte[]> salts) throws EncryptionException {
+        var algorithmType = isAead() ? suite.getKeyAlgorithm() : legacyAlgorithmType;
+        for (var salt : salts)
+            getReadSecretKeySpec(kdf, salt, algorithmType);
+    }
+
+    /**
+     * Allow a context using an authenticated suite to read unauthenticated AES/CBC messages, e.g. data written before
+     * changing suite. Off by default, as anyone able to change a message could then remove its suite and have it decrypted
+     * without authentication. A context that itself encrypts without an authenticated suite always reads such messages
+     *
+     * @param enabled True to read AES/CBC messages
+     */
+    public void setLegacyCbcEnabled(final boolean enabled) {
+        this.legacyCbcEnabled = enabled;
+    }
+
+    /**
+     * Check if unauthenticated AES/CBC messages are read
+     *
+     * @return True if AES/CBC messages are read
+     */
+    public boolean isLegacyCbcEnabled() {
+        return !isAead() || legacyCbcEnabled;
+    }
+
+    /**
+     * Get the scheme used to derive keys for encryption
+     *
+     * @return Key derivation scheme
+     */
+    public KeyDerivation getKeyDerivation() {
+        return kdf;
+    }
+
+    /**
+     * Set the maximum number of derived keys held for decryption. Each distinct salt seen costs one full key derivation
+     * when not cached
+     *
+     * @param size Maximum number of keys, 0 to disable caching
+     * @throws EncryptionException Thrown if size is negative
+     */
+    public void setKeyCacheSize(final int size) throws EncryptionException {
+        keyCache.setMaxSize(size);
+    }
+
+    /**
+     * Get the maximum number of derived keys held for decryption
+     *
+     * @return Cache size
+     */
+    public int getKeyCacheSize() {
+        return keyCache.getMaxSize();
+    }
+
+    /**
+     * Get the number of key lookups satisfied from the derived key cache
+     *
+     * @return Cache hits
+     */
+    public long getKeyCacheHits() {
+        return keyCache.getHits();
+    }
+
+    /**
+     * Get the number of key lookups that required a full key derivation
+     *
+     * @return Cache misses
+     */
+    public long getKeyCacheMisses() {
+        return keyCache.getMisses();
+    }
+
+    /**
+     * Set the maximum number of idle ciphers retained for reuse. Concurrent operations beyond this create additional
+     * ciphers which are discarded after use
+     *
+     * @param size Maximum number of idle ciphers, 0 to disable pooling
+     * @throws EncryptionException Thrown if size is negative
+     */
+    public void setCipherPoolSize(final int size) throws EncryptionException {
+        legacyPool.setMaxIdle(size);
+        suitePools.values().forEach(pool -> pool.setMaxIdle(size));
+    }
+
+    /**
+     * Get the maximum number of idle ciphers retained for reuse
+     *
+     * @return Pool size
+     */
+    public int getCipherPoolSize() {
+        return legacyPool.getMaxIdle();
+    }
+
+    /**
+     * Get the number of cipher instances created since the context was made. A count that keeps growing under steady
+     * load indicates the pool is too small
+     *
+     * @return Ciphers created
+     */
+    public long getCiphersCreated() {
+        var created = suitePools.values().stream().mapToLong(CipherPool::getCreated).sum();
+        return suitePools.containsValue(legacyPool) ? created : created + legacyPool.getCreated();
+    }
+
     // Internal functionality
 
     /**
-     * Generate a cipher for decryption based on the supplied iv and salt
+     * Encrypt part of a byte array with the write key
      *
-     * @param iv   Initialization vector
-     * @param salt Salt
+     * @param source Byte array holding data to be encrypted
+     * @param offset Offset of data in source
+     * @param length Length of data in source
+     * @param iv     Initialization vector or nonce
+     * @return Encrypted data
+     * @throws EncryptionException Something failed
+     */
+    private byte[] encrypt(final byte[] source, final int offset, final int length, final byte[] iv) throws EncryptionException {
+        try {
+            var cipher = getEncryptCipher(iv);
+            var result = cipher.cipher().doFinal(source, offset, length);
+            writePool.release(cipher);
+            return result;
+        } catch (Exception e) {
+            throw new EncryptionException(e);
+        }
+    }
+
+    /**
+     * Take a cipher from a pool for decryption based on the supplied iv and salt. Return it to the pool once used
+     *
+     * @param pool          Pool for the cipher the message was encrypted with
+     * @param kdf           Key derivation scheme recorded in the message, null if not recorded
+     * @param iv            Initialization vector
+     * @param salt          Salt
+     * @param algorithmType Key algorithm type, e.g. AES
      * @return Decryption cipher ready to use
      * @throws EncryptionException Something failed
      */
-    private Cipher getDecryptCipher(final byte[] iv, final byte[] salt) throws EncryptionException {
+    private PooledCipher getDecryptCipher(final CipherPool pool, final KeyDerivation kdf, final byte[] iv, final byte[] salt,
+                                          final String algorithmType) throws EncryptionException {
         try {
-            var cipher = Cipher.getInstance(cipherName);
-            IvParameterSpec ivParameterSpec = new IvParameterSpec(iv);
-            var secretKeySpec = createSecretKeySpec(salt, readPassword);
-            cipher.init(DECRYPT_MODE, secretKeySpec, ivParameterSpec);
+            var secretKeySpec = getReadSecretKeySpec(kdf, salt, algorithmType);
+            var cipher = pool.acquire();
+            cipher.init(DECRYPT_MODE, secretKeySpec, iv);
             return cipher;
         } catch (Exception e) {
             throw new EncryptionException(e);
@@ -180,22 +664,105 @@ public abstract class BaseCryptoContext implements ICryptoContext {
     }
 
     /**
-     * Generate a cipher for encryption based on the supplied crypto parameters
+     * Take a cipher from the pool for encryption based on the supplied crypto parameters. Where the key and iv are fixed
+     * for the context, a cipher reused from the pool is not reinitialised. Return it to the pool once used
      *
+     * @param iv Initialization vector or nonce
      * @return Encryption cipher ready to use
      * @throws EncryptionException Something failed
      */
-    private Cipher getEncryptCipher() throws EncryptionException {
+    private PooledCipher getEncryptCipher(final byte[] iv) throws EncryptionException {
         try {
-            var cipher = Cipher.getInstance(cipherName);
-            var ivParameterSpec = new IvParameterSpec(iv);
-            cipher.init(ENCRYPT_MODE, writeSecretKeySpec, ivParameterSpec);
+            var cipher = writePool.acquire();
+            cipher.init(ENCRYPT_MODE, writeSecretKeySpec, iv);
             return cipher;
         } catch (Exception e) {
             throw new EncryptionException(e);
         }
     }
 
+    /**
+     * Get the pool for the cipher a message was encrypted with
+     *
+     * @param envelope Encrypted message
+     * @return Cipher pool
+     * @throws EncryptionException Thrown if the message is not authenticated and AES/CBC messages are not read
+     */
+    private CipherPool poolFor(final Envelope envelope) throws EncryptionException {
+        var envelopeSuite = envelope.suite();
+        if (((null == envelopeSuite) || !envelopeSuite.isAead()) && !isLegacyCbcEnabled())
+            throw new EncryptionException("Message is not authenticated and reading AES/CBC messages is not enabled");
+        return null == envelopeSuite ? legacyPool : suitePools.get(envelopeSuite);
+    }
+
+    /**
+     * Get the key algorithm type for the cipher a message was encrypted with
+     *
+     * @param envelope Encrypted message
+     * @return Key algorithm type, e.g. AES
+     */
+    private String algorithmTypeFor(final Envelope envelope) {
+        return null == envelope.suite() ? legacyAlgorithmType : envelope.suite().getKeyAlgorithm();
+    }
+
+    /**
+     * Decide if two messages were encrypted with the same key
+     *
+     * @param first  Encrypted message
+     * @param second Encrypted message
+     * @return True if the keys are the same
+     */
+    private boolean sameKey(final Envelope first, final Envelope second) {
+        return (first.kdf() == second.kdf()) && algorithmTypeFor(first).equals(algorithmTypeFor(second)) && Arrays.equals(first.salt(), second.salt());
+    }
+
+    /**
+     * Get the key derivation scheme to record in messages. Password derived keys are not recorded so the output is
+     * unchanged for existing readers
+     *
+     * @return Key derivation scheme, null if not recorded
+     */
+    private KeyDerivation envelopeKdf() {
+        return KeyDerivation.PBKDF2 == kdf ? null : kdf;
+    }
+
+    /**
+     * Decide if the context encrypts with an authenticated suite
+     *
+     * @return True if a nonce is generated per message
+     */
+    private boolean isAead() {
+        return (null != suite) && suite.isAead();
+    }
+
+    /**
+     * Generate the nonce for the next message. Built as a random fixed field followed by a message counter, as in NIST
+     * SP 800-38D section 8.2.1, so nonces never repeat for the write key, which is unique to the context via its salt
+     *
+     * @return Nonce
+     */
+    private byte[] nextNonce() {
+        var nonce = Arrays.copyOf(nonceField, suite.getIvLength());
+        var count = nonceCounter.getAndIncrement();
+        for (int i = nonce.length - 1; i >= nonceField.length; i--) {
+            nonce[i] = (byte) count;
+            count >>>= 8;
+        }
+        return nonce;
+    }
+
+    /**
+     * Decide if a cipher transformation always produces whole blocks, e.g. CBC, but not GCM or CTR
+     *
+     * @param cipherName Name of cipher transformation, e.g. AES/CBC/PKCS5Padding
+     * @return True if block aligned
+     */
+    private static boolean isBlockAligned(final String cipherName) {
+        var parts = cipherName.split("/");
+        var mode = parts.length > 1 ? parts[1].toUpperCase(Locale.ROOT) : "ECB";
+        return "CBC".equals(mode) || "ECB".equals(mode) || "PCBC".equals(mode);
+    }
+
     /**
      * Generate a random salt value
      *
@@ -208,23 +775,110 @@ public abstract class BaseCryptoContext implements ICryptoContext {
         return bytes;
     }
 
+    /**
+     * Get a secret key spec for the supplied password and salt, from the cache if previously derived
+     *
+     * @param salt          Salt
+     * @param password      Password
+     * @param algorithmType Key algorithm type, e.g. AES
+     * @return Secret key spec
+     * @throws EncryptionException Something failed
+     */
+    private SecretKeySpec getSecretKeySpec(final byte[] salt, final String password, final String algorithmType) throws EncryptionException {
+        return keyCache.get(algorithmType, password, salt, () -> createSecretKeySpec(salt, password, algorithmType));
+    }
+
+    /**
+     * Get a secret key spec to decrypt a message, from the cache if previously derived
+     *
+     * @param kdf           Key derivation scheme recorded in the message, null if not recorded
+     * @param salt          Salt
+     * @param algorithmType Key algorithm type, e.g. AES
+     * @return Secret key spec
+     * @throws EncryptionException Something failed
+     */
+    private SecretKeySpec getReadSecretKeySpec(final KeyDerivation kdf, final byte[] salt, final String algorithmType) throws EncryptionException {
+        if (KeyDerivation.HKDF_SHA256 != kdf)
+            return getSecretKeySpec(salt, readPassword, algorithmType);
+        if (null == readMasterKey)
+            throw new EncryptionException("Encrypted JSON uses " + kdf.getId() + " key derivation but no master salt is set");
+        // Cached apart from password derived keys for the same salt
+        return keyCache.get(kdf.getId() + "/" + algorithmType, readPassword, salt, () -> createHkdfSecretKeySpec(readMasterKey, salt, algorithmType));
+    }
+
+    /**
+     * Generate the secret key spec used for encryption
+     *
+     * @param writePassword  Password for write operations
+     * @param writeMasterKey Master key for write operations, null if keys are derived from the password
+     * @param algorithmType  Key algorithm type, e.g. AES
+     * @return Secret key spec
+     * @throws EncryptionException Something failed
+     */
+    private SecretKeySpec createWriteSecretKeySpec(final String writePassword, final byte[] writeMasterKey, final String algorithmType) throws EncryptionException {
+        return null == writeMasterKey ? getSecretKeySpec(salt, writePassword, algorithmType) : createHkdfSecretKeySpec(writeMasterKey, salt, algorithmType);
+    }
+
+    /**
+     * Generate a secret key spec from a master key and salt with HKDF-SHA256
+     *
+     * @param masterKey     Master key
+     * @param salt          Salt
+     * @param algorithmType Key algorithm type, e.g. AES
+     * @return Secret key spec
+     * @throws EncryptionException Something failed
+     */
+    private SecretKeySpec createHkdfSecretKeySpec(final byte[] masterKey, final byte[] salt, final String algorithmType) throws EncryptionException {
+        var event = new KeyDerivationEvent();
+        event.begin();
+        var current = listener;
+        var start = null == current ? 0 : System.nanoTime();
+        try {
+            var info = ("jackson-json-crypto/" + algorithmType).getBytes(StandardCharsets.US_ASCII);
+            var key = new SecretKeySpec(Hkdf.derive(masterKey, salt, info, keyLength / 8), algorithmType);
+            if (null != current)
+                current.keyDerived(KeyDerivation.HKDF_SHA256, System.nanoTime() - start);
+            keyDerived(event, KeyDerivation.HKDF_SHA256, algorithmType);
+            return key;
+        } catch (Exception e) {
+            throw new EncryptionException(e);
+        }
+    }
+
     /**
      * Generate a secret key spec from supplied password and salt
      *
-     * @param salt     Salt
-     * @param password Password
+     * @param salt          Salt
+     * @param password      Password
+     * @param algorithmType Key algorithm type, e.g. AES
      * @return Secret key spec
      * @throws EncryptionException Something failed
      */
-    private SecretKeySpec createSecretKeySpec(final byte[] salt, final String password) throws EncryptionException {
+    private SecretKeySpec createSecretKeySpec(final byte[] salt, final String password, final String algorithmType) throws EncryptionException {
+        var event = new KeyDerivationEvent();
+        event.begin();
+        var current = listener;
+        var start = null == current ? 0 : System.nanoTime();
         try {
             var factory = SecretKeyFactory.getInstance(keyAlgorithm);
             var passwordBasedEncryptionKeySpec = new PBEKeySpec(password.toCharArray(), salt, iterationCount, keyLength);
             var secretKey = factory.generateSecret(passwordBasedEncryptionKeySpec);
-            return new SecretKeySpec(secretKey.getEncoded(), algorithmType);
+            var key = new SecretKeySpec(secretKey.getEncoded(), algorithmType);
+            if (null != current)
+                current.keyDerived(KeyDerivation.PBKDF2, System.nanoTime() - start);
+            keyDerived(event, KeyDerivation.PBKDF2, algorithmType);
+            return key;
         } catch (Exception e) {
             throw new EncryptionException(e);
         }
     }
 
+    private static void keyDerived(final KeyDerivationEvent event, final KeyDerivation kdf, final String algorithmType) {
+        if (event.shouldCommit()) {
+            event.kdf = kdf.getId();
+            event.algorithm = algorithmType;
+            event.commit();
+        }
+    }
+
 }
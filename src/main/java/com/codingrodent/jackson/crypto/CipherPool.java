@@ -0,0 +1,210 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Lock free pool of {@link Cipher} instances for a single transformation. Avoids a provider lookup and cipher construction
+ * on every operation. Nothing blocks, so the pool is safe to use from virtual threads. When the pool is empty a new cipher
+ * is created, and when full a returned cipher is discarded, so the number of idle instances never exceeds the maximum
+ */
+final class CipherPool {
+
+    private final String cipherName;
+    private final Function<byte[], AlgorithmParameterSpec> parameters;
+    private final boolean reusable;
+    private final ConcurrentLinkedQueue<PooledCipher> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final LongAdder created = new LongAdder();
+    private volatile int maxIdle;
+
+    /**
+     * Create a pool
+     *
+     * @param cipherName Name of cipher transformation, e.g. AES/CBC/PKCS5Padding
+     * @param maxIdle    Maximum number of idle ciphers to retain
+     */
+    CipherPool(final String cipherName, final int maxIdle) {
+        this(cipherName, IvParameterSpec::new, true, maxIdle);
+    }
+
+    /**
+     * Create a pool for a cipher suite. Ciphers for authenticated suites are always reinitialised as a nonce must never
+     * be used twice
+     *
+     * @param suite   Cipher suite
+     * @param maxIdle Maximum number of idle ciphers to retain
+     */
+    CipherPool(final CipherSuite suite, final int maxIdle) {
+        this(suite.getCipherName(), suite::parameterSpec, !suite.isAead(), maxIdle);
+    }
+
+    private CipherPool(final String cipherName, final Function<byte[], AlgorithmParameterSpec> parameters, final boolean reusable, final int maxIdle) {
+        this.cipherName = cipherName;
+        this.parameters = parameters;
+        this.reusable = reusable;
+        setMaxIdle(maxIdle);
+    }
+
+    /**
+     * Take a cipher from the pool, creating one if none are idle
+     *
+     * @return Pooled cipher
+     * @throws GeneralSecurityException Unable to create cipher
+     */
+    PooledCipher acquire() throws GeneralSecurityException {
+        var cipher = idle.poll();
+        if (null != cipher) {
+            idleCount.decrementAndGet();
+            return cipher;
+        }
+        cipher = new PooledCipher(Cipher.getInstance(cipherName), parameters, reusable);
+        created.increment();
+        return cipher;
+    }
+
+    /**
+     * Return a cipher to the pool. Only ciphers that completed their last operation normally should be returned
+     *
+     * @param cipher Cipher to return
+     */
+    void release(final PooledCipher cipher) {
+        if (idleCount.incrementAndGet() <= maxIdle)
+            idle.offer(cipher);
+        else
+            idleCount.decrementAndGet();
+    }
+
+    void setMaxIdle(final int maxIdle) {
+        if (maxIdle < 0)
+            throw new EncryptionException("Cipher pool size cannot be negative");
+        this.maxIdle = maxIdle;
+        while ((idleCount.get() > maxIdle) && (null != idle.poll()))
+            idleCount.decrementAndGet();
+    }
+
+    int getMaxIdle() {
+        return maxIdle;
+    }
+
+    int getIdle() {
+        return idleCount.get();
+    }
+
+    long getCreated() {
+        return created.sum();
+    }
+
+    /**
+     * A cipher and the parameters it was last initialised with
+     */
+    static final class PooledCipher {
+        private final Cipher cipher;
+        private final Function<byte[], AlgorithmParameterSpec> parameters;
+        private final boolean reusable;
+        private int mode;
+        private Key key;
+        private byte[] iv;
+
+        private PooledCipher(final Cipher cipher, final Function<byte[], AlgorithmParameterSpec> parameters, final boolean reusable) {
+            this.cipher = cipher;
+            this.parameters = parameters;
+            this.reusable = reusable;
+        }
+
+        /**
+         * Initialise the cipher, skipping the key schedule setup if the mode, key and iv are unchanged since the last use
+         * and the cipher allows reuse
+         *
+         * @param mode Cipher mode, e.g. {@link Cipher#ENCRYPT_MODE}
+         * @param key  Key
+         * @param iv   Initialization vector
+         * @throws GeneralSecurityException Unable to initialise cipher
+         */
+        void init(final int mode, final Key key, final byte[] iv) throws GeneralSecurityException {
+            if (!reusable) {
+                initFresh(mode, key, iv);
+            } else if ((mode != this.mode) || (key != this.key) || !Arrays.equals(iv, this.iv)) {
+                invalidate();
+                cipher.init(mode, key, parameters.apply(iv));
+                this.mode = mode;
+                this.key = key;
+                this.iv = Arrays.copyOf(iv, iv.length);
+            }
+        }
+
+        /**
+         * Get the cipher as set up by the last call to {@link #init}
+         *
+         * @return Cipher ready to use
+         */
+        Cipher cipher() {
+            return cipher;
+        }
+
+        /**
+         * Get the underlying cipher for custom initialisation. The next call to {@link #init} will always reinitialise
+         *
+         * @return Cipher
+         */
+        Cipher uninitialised() {
+            invalidate();
+            return cipher;
+        }
+
+        /**
+         * Initialise a cipher that must not be reused. Some ciphers, e.g. ChaCha20, refuse the same key and nonce twice in
+         * a row even when decrypting, which happens when a message is read more than once. For decryption only, step
+         * through a different nonce first. Encryption keeps the cipher's protection against nonce reuse
+         */
+        private void initFresh(final int mode, final Key key, final byte[] iv) throws GeneralSecurityException {
+            try {
+                cipher.init(mode, key, parameters.apply(iv));
+            } catch (InvalidKeyException e) {
+                if (Cipher.DECRYPT_MODE != mode)
+                    throw e;
+                var other = Arrays.copyOf(iv, iv.length);
+                other[0] ^= 1;
+                cipher.init(mode, key, parameters.apply(other));
+                cipher.init(mode, key, parameters.apply(iv));
+            }
+        }
+
+        private void invalidate() {
+            this.key = null;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Locale;
+
+/**
+ * Supported cipher suites. Authenticated suites use a fresh nonce for every message and record the suite in the
+ * encrypted JSON so that data written with different suites can be read by the same context
+ */
+public enum CipherSuite {
+
+    /**
+     * AES in CBC mode with PKCS5 padding. The original, and default, suite
+     */
+    AES_CBC("AES-CBC", "AES/CBC/PKCS5Padding", "AES", 16, 16, 0),
+    /**
+     * AES in Galois/Counter mode. Authenticated, no padding and hardware accelerated on most hosts
+     */
+    AES_GCM("AES-GCM", "AES/GCM/NoPadding", "AES", 12, 0, 16),
+    /**
+     * ChaCha20 stream cipher with Poly1305 authentication. Fast in software, so suited to hosts without AES instructions
+     */
+    CHACHA20_POLY1305("CHACHA20-POLY1305", "ChaCha20-Poly1305", "ChaCha20", 12, 0, 16);
+
+    private final String id;
+    private final String cipherName;
+    private final String keyAlgorithm;
+    private final int ivLength;
+    private final int blockSize;
+    private final int tagLength;
+
+    CipherSuite(final String id, final String cipherName, final String keyAlgorithm, final int ivLength, final int blockSize, final int tagLength) {
+        this.id = id;
+        this.cipherName = cipherName;
+        this.keyAlgorithm = keyAlgorithm;
+        this.ivLength = ivLength;
+        this.blockSize = blockSize;
+        this.tagLength = tagLength;
+    }
+
+    /**
+     * Find the suite with the identifier written to encrypted JSON
+     *
+     * @param id Suite identifier, e.g. AES-GCM
+     * @return Cipher suite
+     * @throws EncryptionException Thrown if the identifier is not recognised
+     */
+    public static CipherSuite fromId(final String id) throws EncryptionException {
+        for (var suite : values()) {
+            if (suite.id.equals(id))
+                return suite;
+        }
+        throw new EncryptionException("Unknown cipher suite " + id);
+    }
+
+    /**
+     * Find the suite using a cipher transformation
+     *
+     * @param cipherName Name of cipher transformation, e.g. AES/GCM/NoPadding
+     * @return Cipher suite, or null if the transformation is not one of the suites
+     */
+    public static CipherSuite forCipherName(final String cipherName) {
+        var name = cipherName.toUpperCase(Locale.ROOT);
+        for (var suite : values()) {
+            if (suite.cipherName.toUpperCase(Locale.ROOT).equals(name))
+                return suite;
+        }
+        return null;
+    }
+
+    /**
+     * Get the identifier written to encrypted JSON
+     *
+     * @return Identifier, e.g. AES-GCM
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Get the cipher transformation
+     *
+     * @return Transformation, e.g. AES/GCM/NoPadding
+     */
+    public String getCipherName() {
+        return cipherName;
+    }
+
+    /**
+     * Get the algorithm name for keys used by the suite
+     *
+     * @return Key algorithm, e.g. AES
+     */
+    public String getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    /**
+     * Get the initialization vector, or nonce, length
+     *
+     * @return Length in bytes
+     */
+    public int getIvLength() {
+        return ivLength;
+    }
+
+    /**
+     * Get the block size that cipher text lengths are always a multiple of
+     *
+     * @return Block size in bytes, 0 if cipher text is not block aligned
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Get the length of the authentication tag appended to the cipher text
+     *
+     * @return Tag length in bytes, 0 if not authenticated
+     */
+    public int getTagLength() {
+        return tagLength;
+    }
+
+    /**
+     * Decide if the suite is authenticated and so must use a fresh nonce for every message
+     *
+     * @return True if authenticated
+     */
+    public boolean isAead() {
+        return tagLength > 0;
+    }
+
+    /**
+     * Make the cipher parameters for an initialization vector or nonce
+     *
+     * @param iv Initialization vector or nonce
+     * @return Parameters to initialise the cipher with
+     */
+    AlgorithmParameterSpec parameterSpec(final byte[] iv) {
+        return AES_GCM == this ? new GCMParameterSpec(tagLength * 8, iv) : new IvParameterSpec(iv);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import com.fasterxml.jackson.core.JsonStreamContext;
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder events for the cipher work done by the module. All events are disabled by default and are turned
+ * on through recording settings. While disabled the JVM reduces them to nothing, so they are always safe to leave in
+ * place
+ */
+final class CryptoEvents {
+
+    static final String PREFIX = "com.codingrodent.jackson.crypto.";
+
+    private CryptoEvents() {
+    }
+
+    /**
+     * Event for work on one or more encrypted values, recording the bean and property where known
+     */
+    @Category({"Jackson", "Crypto"})
+    @Enabled(false)
+    @StackTrace(false)
+    abstract static class PayloadEvent extends Event {
+        @Label("Bean Class")
+        @Description("Class of the bean holding the value, if known")
+        Class<?> beanClass;
+
+        @Label("Property")
+        @Description("Name of the property holding the value, if known. Not set for a batch of values")
+        String property;
+
+        @Label("Messages")
+        @Description("Number of encrypted messages handled")
+        int messages;
+
+        @Label("Size")
+        @Description("Number of clear bytes, or for validation encrypted bytes, handled")
+        @DataAmount
+        long size;
+
+        /**
+         * Set where the value was read from or written to, taken from the JSON stream context
+         *
+         * @param site Context of the value in the JSON stream, null if not known
+         */
+        void setSite(final JsonStreamContext site) {
+            if (null == site)
+                return;
+            property = site.getCurrentName();
+            var bean = site.getCurrentValue();
+            if (null != bean)
+                beanClass = bean.getClass();
+        }
+    }
+
+    @Name(PREFIX + "Encrypt")
+    @Label("Encrypt")
+    @Description("Encryption of values marked for encryption")
+    static final class EncryptEvent extends PayloadEvent {
+    }
+
+    @Name(PREFIX + "Decrypt")
+    @Label("Decrypt")
+    @Description("Decryption of values marked for encryption")
+    static final class DecryptEvent extends PayloadEvent {
+    }
+
+    @Name(PREFIX + "Validate")
+    @Label("Validate")
+    @Description("Validation of an encrypted message before decryption")
+    static final class ValidateEvent extends PayloadEvent {
+        @Label("Valid")
+        boolean valid;
+    }
+
+    @Name(PREFIX + "KeyDerivation")
+    @Label("Key Derivation")
+    @Description("Derivation of a key from a password or master key, i.e. a key cache miss")
+    @Category({"Jackson", "Crypto"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class KeyDerivationEvent extends Event {
+        @Label("Key Derivation")
+        String kdf;
+
+        @Label("Algorithm")
+        String algorithm;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+/**
+ * Receives timings and sizes of the work done by an {@link EncryptionService} and its crypto context, e.g. to record
+ * metrics. {@link CryptoMetrics} is a ready made implementation
+ * <p>
+ * Methods are called on the thread doing the work, so must be quick, thread safe and must not throw. When no listener is
+ * set nothing is timed
+ */
+public interface CryptoListener {
+
+    /**
+     * Called after one or more values are encrypted
+     *
+     * @param messages    Number of values encrypted
+     * @param plainBytes  Total plain text length
+     * @param cipherBytes Total cipher text length
+     * @param nanos       Time taken in nanoseconds
+     */
+    default void encrypted(int messages, long plainBytes, long cipherBytes, long nanos) {
+    }
+
+    /**
+     * Called after one or more messages are decrypted
+     *
+     * @param messages    Number of messages decrypted
+     * @param cipherBytes Total cipher text length
+     * @param plainBytes  Total plain text length
+     * @param nanos       Time taken in nanoseconds
+     */
+    default void decrypted(int messages, long cipherBytes, long plainBytes, long nanos) {
+    }
+
+    /**
+     * Called after a key is derived, i.e. on a key cache miss
+     *
+     * @param kdf   Key derivation scheme used
+     * @param nanos Time taken in nanoseconds
+     */
+    default void keyDerived(KeyDerivation kdf, long nanos) {
+    }
+
+    /**
+     * Called when an encrypted message fails validation and is not decrypted
+     *
+     * @param message Description of the problems found
+     */
+    default void validationFailed(String message) {
+    }
+}
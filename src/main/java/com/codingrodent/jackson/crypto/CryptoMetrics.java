@@ -0,0 +1,279 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lightweight {@link CryptoListener} keeping counts, byte totals and timing histograms of encryption, decryption and key
+ * derivation. All updates are lock free. Timings are per call, so a batch counts as one call but every message in it is
+ * counted. The metrics can be published as a JMX MBean
+ *
+ * <pre>
+ * CryptoMetrics metrics = new CryptoMetrics();
+ * encryptionService.setCryptoListener(metrics);
+ * metrics.register(new ObjectName("com.codingrodent.jackson.crypto:type=CryptoMetrics,name=orders"));
+ * </pre>
+ */
+public class CryptoMetrics implements CryptoListener, CryptoMetricsMBean {
+
+    public static final String DEFAULT_OBJECT_NAME = CryptoModule.GROUP_ID + ":type=CryptoMetrics";
+
+    private final Log2Histogram encryptNanos = new Log2Histogram();
+    private final Log2Histogram decryptNanos = new Log2Histogram();
+    private final Log2Histogram keyDerivationNanos = new Log2Histogram();
+    private final LongAdder encryptCount = new LongAdder();
+    private final LongAdder decryptCount = new LongAdder();
+    private final LongAdder plainBytesEncrypted = new LongAdder();
+    private final LongAdder cipherBytesEncrypted = new LongAdder();
+    private final LongAdder cipherBytesDecrypted = new LongAdder();
+    private final LongAdder plainBytesDecrypted = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+
+    @Override
+    public void encrypted(final int messages, final long plainBytes, final long cipherBytes, final long nanos) {
+        encryptCount.add(messages);
+        plainBytesEncrypted.add(plainBytes);
+        cipherBytesEncrypted.add(cipherBytes);
+        encryptNanos.record(nanos);
+    }
+
+    @Override
+    public void decrypted(final int messages, final long cipherBytes, final long plainBytes, final long nanos) {
+        decryptCount.add(messages);
+        cipherBytesDecrypted.add(cipherBytes);
+        plainBytesDecrypted.add(plainBytes);
+        decryptNanos.record(nanos);
+    }
+
+    @Override
+    public void keyDerived(final KeyDerivation kdf, final long nanos) {
+        keyDerivationNanos.record(nanos);
+    }
+
+    @Override
+    public void validationFailed(final String message) {
+        validationFailures.increment();
+    }
+
+    /**
+     * Publish the metrics on the platform MBean server under {@value #DEFAULT_OBJECT_NAME}
+     *
+     * @return Name registered under
+     * @throws EncryptionException Thrown if unable to register, e.g. the name is in use
+     */
+    public ObjectName register() throws EncryptionException {
+        try {
+            return register(new ObjectName(DEFAULT_OBJECT_NAME));
+        } catch (MalformedObjectNameException e) {
+            throw new EncryptionException(e);
+        }
+    }
+
+    /**
+     * Publish the metrics on the platform MBean server
+     *
+     * @param name Name to register under, e.g. one naming the service measured
+     * @return Name registered under
+     * @throws EncryptionException Thrown if unable to register, e.g. the name is in use
+     */
+    public ObjectName register(final ObjectName name) throws EncryptionException {
+        try {
+            return ManagementFactory.getPlatformMBeanServer().registerMBean(this, name).getObjectName();
+        } catch (JMException e) {
+            throw new EncryptionException(e);
+        }
+    }
+
+    /**
+     * Remove metrics published on the platform MBean server
+     *
+     * @param name Name registered under
+     * @throws EncryptionException Thrown if unable to unregister, e.g. nothing is registered under the name
+     */
+    public static void unregister(final ObjectName name) throws EncryptionException {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            throw new EncryptionException(e);
+        }
+    }
+
+    @Override
+    public long getEncryptCount() {
+        return encryptCount.sum();
+    }
+
+    @Override
+    public long getEncryptTotalNanos() {
+        return encryptNanos.getTotal();
+    }
+
+    /**
+     * Get the mean time of an encrypt call, a batch being one call
+     *
+     * @return Mean nanoseconds
+     */
+    @Override
+    public long getEncryptMeanNanos() {
+        return encryptNanos.getMean();
+    }
+
+    @Override
+    public long getEncrypt99thPercentileNanos() {
+        return encryptNanos.getPercentile(99);
+    }
+
+    @Override
+    public long getEncryptMaxNanos() {
+        return encryptNanos.getMax();
+    }
+
+    @Override
+    public long getDecryptCount() {
+        return decryptCount.sum();
+    }
+
+    @Override
+    public long getDecryptTotalNanos() {
+        return decryptNanos.getTotal();
+    }
+
+    /**
+     * Get the mean time of a decrypt call, a batch being one call
+     *
+     * @return Mean nanoseconds
+     */
+    @Override
+    public long getDecryptMeanNanos() {
+        return decryptNanos.getMean();
+    }
+
+    @Override
+    public long getDecrypt99thPercentileNanos() {
+        return decryptNanos.getPercentile(99);
+    }
+
+    @Override
+    public long getDecryptMaxNanos() {
+        return decryptNanos.getMax();
+    }
+
+    @Override
+    public long getKeyDerivationCount() {
+        return keyDerivationNanos.getCount();
+    }
+
+    @Override
+    public long getKeyDerivationTotalNanos() {
+        return keyDerivationNanos.getTotal();
+    }
+
+    @Override
+    public long getKeyDerivationMeanNanos() {
+        return keyDerivationNanos.getMean();
+    }
+
+    @Override
+    public long getKeyDerivation99thPercentileNanos() {
+        return keyDerivationNanos.getPercentile(99);
+    }
+
+    @Override
+    public long getKeyDerivationMaxNanos() {
+        return keyDerivationNanos.getMax();
+    }
+
+    @Override
+    public long getPlainBytesEncrypted() {
+        return plainBytesEncrypted.sum();
+    }
+
+    @Override
+    public long getCipherBytesEncrypted() {
+        return cipherBytesEncrypted.sum();
+    }
+
+    @Override
+    public long getCipherBytesDecrypted() {
+        return cipherBytesDecrypted.sum();
+    }
+
+    @Override
+    public long getPlainBytesDecrypted() {
+        return plainBytesDecrypted.sum();
+    }
+
+    @Override
+    public long getValidationFailures() {
+        return validationFailures.sum();
+    }
+
+    /**
+     * Get a percentile of encrypt call times
+     *
+     * @param percentile Percentile, e.g. 50.0
+     * @return Upper bound in nanoseconds, accurate to within a factor of two
+     */
+    public long getEncryptPercentileNanos(final double percentile) {
+        return encryptNanos.getPercentile(percentile);
+    }
+
+    /**
+     * Get a percentile of decrypt call times
+     *
+     * @param percentile Percentile, e.g. 50.0
+     * @return Upper bound in nanoseconds, accurate to within a factor of two
+     */
+    public long getDecryptPercentileNanos(final double percentile) {
+        return decryptNanos.getPercentile(percentile);
+    }
+
+    /**
+     * Get a percentile of key derivation times
+     *
+     * @param percentile Percentile, e.g. 50.0
+     * @return Upper bound in nanoseconds, accurate to within a factor of two
+     */
+    public long getKeyDerivationPercentileNanos(final double percentile) {
+        return keyDerivationNanos.getPercentile(percentile);
+    }
+
+    @Override
+    public void reset() {
+        encryptNanos.reset();
+        decryptNanos.reset();
+        keyDerivationNanos.reset();
+        encryptCount.reset();
+        decryptCount.reset();
+        plainBytesEncrypted.reset();
+        cipherBytesEncrypted.reset();
+        cipherBytesDecrypted.reset();
+        plainBytesDecrypted.reset();
+        validationFailures.reset();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+/**
+ * JMX view of {@link CryptoMetrics}. Timings are in nanoseconds, percentiles are upper bounds accurate to within a factor
+ * of two
+ */
+public interface CryptoMetricsMBean {
+
+    long getEncryptCount();
+
+    long getEncryptTotalNanos();
+
+    long getEncryptMeanNanos();
+
+    long getEncrypt99thPercentileNanos();
+
+    long getEncryptMaxNanos();
+
+    long getDecryptCount();
+
+    long getDecryptTotalNanos();
+
+    long getDecryptMeanNanos();
+
+    long getDecrypt99thPercentileNanos();
+
+    long getDecryptMaxNanos();
+
+    long getKeyDerivationCount();
+
+    long getKeyDerivationTotalNanos();
+
+    long getKeyDerivationMeanNanos();
+
+    long getKeyDerivation99thPercentileNanos();
+
+    long getKeyDerivationMaxNanos();
+
+    long getPlainBytesEncrypted();
+
+    long getCipherBytesEncrypted();
+
+    long getCipherBytesDecrypted();
+
+    long getPlainBytesDecrypted();
+
+    long getValidationFailures();
+
+    /**
+     * Clear all counts and timings
+     */
+    void reset();
+}
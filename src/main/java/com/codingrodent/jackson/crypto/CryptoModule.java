@@ -26,9 +26,15 @@ package com.codingrodent.jackson.crypto;
 
 import com.fasterxml.jackson.core.Version;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleDeserializers;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.module.SimpleSerializers;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Crypto Module for Jackson JSON library
@@ -39,6 +45,7 @@ public class CryptoModule extends SimpleModule {
 
     public final static String GROUP_ID = "com.codingrodent.jackson.crypto";
     public final static String ARTIFACT_ID = "jackson-json-crypto";
+    public final static int DEFAULT_PARALLEL_THRESHOLD = 16;
     //
     private final static String BUNDLE = CryptoModule.class.getPackage().getName() + ".config";
     //
@@ -46,8 +53,10 @@ public class CryptoModule extends SimpleModule {
     private final int minor;
     private final int patch;
     //
-    private transient EncryptedSerializerModifier serializerModifierModifier;
-    private transient EncryptedDeserializerModifier deserializerModifierModifier;
+    private transient EncryptionService encryptionService;
+    private transient Executor executor;
+    private transient ObjectMapper objectMapper;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
 
     /**
      * Initialize module
@@ -66,11 +75,67 @@ public class CryptoModule extends SimpleModule {
      * @return Updated module
      */
     public CryptoModule addEncryptionService(final EncryptionService encryptionService) {
-        serializerModifierModifier = new EncryptedSerializerModifier(encryptionService);
-        deserializerModifierModifier = new EncryptedDeserializerModifier(encryptionService);
+        this.encryptionService = encryptionService;
         return this;
     }
 
+    /**
+     * Encrypt and decrypt the {@link Encrypt} marked fields of a bean in parallel when it has at least the default
+     * threshold of marked fields. Must be set before the module is registered
+     *
+     * @param executor Executor to run the cipher work on, e.g. a {@link java.util.concurrent.ForkJoinPool}
+     * @return Updated module
+     * @throws EncryptionException Thrown if the executor is null
+     */
+    public CryptoModule enableParallelEncryption(final Executor executor) throws EncryptionException {
+        return enableParallelEncryption(executor, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Encrypt and decrypt the {@link Encrypt} marked fields of a bean in parallel when it has at least a threshold of
+     * marked fields. The output is the same as when each field is handled in turn. Must be set before the module is
+     * registered
+     *
+     * @param executor  Executor to run the cipher work on, e.g. a {@link java.util.concurrent.ForkJoinPool}
+     * @param threshold Smallest number of marked fields in a bean for them to be handled in parallel
+     * @return Updated module
+     * @throws EncryptionException Thrown if the executor is null or the threshold less than one
+     */
+    public CryptoModule enableParallelEncryption(final Executor executor, final int threshold) throws EncryptionException {
+        if (null == executor)
+            throw new EncryptionException("Executor cannot be null");
+        if (threshold < 1)
+            throw new EncryptionException("Parallel threshold must be at least one");
+        this.executor = executor;
+        this.parallelThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Pay the one off costs of first use ahead of time, e.g. before taking traffic after a deploy. The serializers and
+     * deserializers for the bean classes are built and cached by the object mapper the module is registered with, the
+     * keys for the salts are derived, and a few messages are encrypted, validated and decrypted
+     *
+     * @param types Bean classes that will be written and read
+     * @param salts Salts of stored messages that will be read
+     * @throws EncryptionException Thrown on any error, or if the module is not registered
+     */
+    public void warmUp(final Collection<Class<?>> types, final Collection<byte[]> salts) throws EncryptionException {
+        encryptionService.warmUp(getObjectMapper(), types, salts);
+    }
+
+    /**
+     * Warm up in the background on the encryption service executor, in parallel where the executor allows
+     *
+     * @param types Bean classes that will be written and read
+     * @param salts Salts of stored messages that will be read
+     * @return Future completed when everything is warm, completed exceptionally on any error
+     * @throws EncryptionException Thrown if the module is not registered
+     */
+    public CompletableFuture<Void> warmUpAsync(final Collection<Class<?>> types, final Collection<byte[]> salts) throws EncryptionException {
+        return encryptionService.warmUpAsync(getObjectMapper(), types, salts);
+    }
+
     /**
      * Method that returns a display that can be used by Jackson
      *
@@ -98,10 +163,20 @@ public class CryptoModule extends SimpleModule {
      */
     @Override
     public void setupModule(final SetupContext context) {
-        if ((null == serializerModifierModifier) || (null == deserializerModifierModifier))
+        if (null == encryptionService)
             throw new EncryptionException("Crypto module not initialised with an encryption service");
-        context.addBeanSerializerModifier(serializerModifierModifier);
-        context.addBeanDeserializerModifier(deserializerModifierModifier);
+        objectMapper = context.getOwner();
+        context.addBeanSerializerModifier(new EncryptedSerializerModifier(encryptionService, executor, parallelThreshold));
+        context.addBeanDeserializerModifier(new EncryptedDeserializerModifier(encryptionService, executor, parallelThreshold));
+        context.addSerializers(new SimpleSerializers(List.of(new EncryptedValueSerializer(encryptionService))));
+        var deserializers = new SimpleDeserializers();
+        deserializers.addDeserializer(Encrypted.class, new EncryptedValueDeserializer(encryptionService, null));
+        context.addDeserializers(deserializers);
     }
-}
 
+    private ObjectMapper getObjectMapper() throws EncryptionException {
+        if (null == objectMapper)
+            throw new EncryptionException("Crypto module not registered with an object mapper");
+        return objectMapper;
+    }
+}
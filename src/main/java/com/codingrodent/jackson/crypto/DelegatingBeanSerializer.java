@@ -0,0 +1,103 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.jsonFormatVisitors.JsonFormatVisitorWrapper;
+import com.fasterxml.jackson.databind.ser.*;
+import com.fasterxml.jackson.databind.util.NameTransformer;
+
+import java.util.Iterator;
+
+/**
+ * Base for serializers that wrap a bean serializer. Contextualisation and resolution are passed on to the wrapped
+ * serializer, and a changed serializer is wrapped again, so the bean is set up just as if it were not wrapped
+ */
+abstract class DelegatingBeanSerializer extends JsonSerializer<Object> implements ContextualSerializer, ResolvableSerializer {
+
+    protected final JsonSerializer<Object> delegate;
+
+    @SuppressWarnings("unchecked")
+    DelegatingBeanSerializer(final JsonSerializer<?> delegate) {
+        this.delegate = (JsonSerializer<Object>) delegate;
+    }
+
+    /**
+     * Wrap a changed serializer in the same way as this one
+     *
+     * @param delegate Serializer to wrap
+     * @return Wrapping serializer
+     */
+    protected abstract JsonSerializer<?> withDelegate(JsonSerializer<?> delegate);
+
+    @Override
+    public JsonSerializer<?> createContextual(final SerializerProvider provider, final BeanProperty property) throws JsonMappingException {
+        if (!(delegate instanceof ContextualSerializer))
+            return this;
+        var contextual = ((ContextualSerializer) delegate).createContextual(provider, property);
+        return contextual == delegate ? this : withDelegate(contextual);
+    }
+
+    @Override
+    public void resolve(final SerializerProvider provider) throws JsonMappingException {
+        if (delegate instanceof ResolvableSerializer)
+            ((ResolvableSerializer) delegate).resolve(provider);
+    }
+
+    @Override
+    public JsonSerializer<Object> unwrappingSerializer(final NameTransformer unwrapper) {
+        return delegate.unwrappingSerializer(unwrapper);
+    }
+
+    @Override
+    public boolean isEmpty(final SerializerProvider provider, final Object value) {
+        return delegate.isEmpty(provider, value);
+    }
+
+    @Override
+    public boolean usesObjectId() {
+        return delegate.usesObjectId();
+    }
+
+    @Override
+    public Class<Object> handledType() {
+        return delegate.handledType();
+    }
+
+    @Override
+    public JsonSerializer<?> getDelegatee() {
+        return delegate;
+    }
+
+    @Override
+    public Iterator<PropertyWriter> properties() {
+        return delegate.properties();
+    }
+
+    @Override
+    public void acceptJsonFormatVisitor(final JsonFormatVisitorWrapper visitor, final JavaType type) throws JsonMappingException {
+        delegate.acceptJsonFormatVisitor(visitor, type);
+    }
+}
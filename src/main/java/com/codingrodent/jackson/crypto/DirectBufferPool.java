@@ -0,0 +1,172 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free, bounded pool of direct {@link ByteBuffer}s of a single size, for encrypting and decrypting without copying
+ * into the heap. When the pool is empty a new buffer is allocated, and when full a returned buffer is dropped, so the
+ * number of idle buffers never exceeds the maximum. Returned buffers are zeroed to their full capacity, whatever their
+ * position and limit, as they may have held decrypted data
+ */
+public final class DirectBufferPool {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_MAX_IDLE = 16;
+
+    private final int bufferSize;
+    private final ConcurrentLinkedQueue<ByteBuffer> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final LongAdder created = new LongAdder();
+    private volatile int maxIdle;
+
+    /**
+     * Create a pool with the default buffer size and maximum number of idle buffers
+     */
+    public DirectBufferPool() {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_IDLE);
+    }
+
+    /**
+     * Create a pool
+     *
+     * @param bufferSize Capacity of each pooled buffer in bytes
+     * @param maxIdle    Maximum number of idle buffers to retain
+     * @throws EncryptionException Thrown if the buffer size is less than one or the maximum negative
+     */
+    public DirectBufferPool(final int bufferSize, final int maxIdle) throws EncryptionException {
+        if (bufferSize < 1)
+            throw new EncryptionException("Buffer size must be at least one");
+        this.bufferSize = bufferSize;
+        setMaxIdle(maxIdle);
+    }
+
+    /**
+     * Take a buffer from the pool, allocating one if none are idle
+     *
+     * @return Cleared direct buffer of the pool's buffer size
+     */
+    public ByteBuffer acquire() {
+        var buffer = idle.poll();
+        if (null != buffer) {
+            idleCount.decrementAndGet();
+            return buffer;
+        }
+        created.increment();
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Take a buffer with at least the given capacity. Larger than the pool's buffer size, a buffer is allocated that will
+     * not be retained when returned
+     *
+     * @param capacity Capacity needed in bytes
+     * @return Cleared direct buffer
+     */
+    public ByteBuffer acquire(final int capacity) {
+        if (capacity <= bufferSize)
+            return acquire();
+        created.increment();
+        return ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * Return a buffer to the pool. Its whole capacity is zeroed and it is left cleared. Buffers of another size are
+     * dropped
+     *
+     * @param buffer Buffer to return
+     */
+    public void release(final ByteBuffer buffer) {
+        if (buffer.isReadOnly())
+            return;
+        buffer.clear();
+        while (buffer.remaining() >= Long.BYTES)
+            buffer.putLong(0L);
+        while (buffer.hasRemaining())
+            buffer.put((byte) 0);
+        buffer.clear();
+        if (!buffer.isDirect() || (buffer.capacity() != bufferSize))
+            return;
+        if (idleCount.incrementAndGet() <= maxIdle)
+            idle.offer(buffer);
+        else
+            idleCount.decrementAndGet();
+    }
+
+    /**
+     * Set the maximum number of idle buffers retained. Buffers beyond this are dropped
+     *
+     * @param maxIdle Maximum number of idle buffers, 0 to disable pooling
+     * @throws EncryptionException Thrown if negative
+     */
+    public void setMaxIdle(final int maxIdle) throws EncryptionException {
+        if (maxIdle < 0)
+            throw new EncryptionException("Buffer pool size cannot be negative");
+        this.maxIdle = maxIdle;
+        while ((idleCount.get() > maxIdle) && (null != idle.poll()))
+            idleCount.decrementAndGet();
+    }
+
+    /**
+     * Get the maximum number of idle buffers retained
+     *
+     * @return Pool size
+     */
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    /**
+     * Get the number of idle buffers currently held
+     *
+     * @return Idle buffers
+     */
+    public int getIdle() {
+        return idleCount.get();
+    }
+
+    /**
+     * Get the capacity of pooled buffers
+     *
+     * @return Buffer size in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Get the number of buffers allocated since the pool was made. A count that keeps growing under steady load suggests
+     * the pool is too small
+     *
+     * @return Buffers allocated
+     */
+    public long getCreated() {
+        return created.sum();
+    }
+}
@@ -29,10 +29,11 @@ import com.fasterxml.jackson.annotation.JacksonAnnotation;
 import java.lang.annotation.*;
 
 /**
- * Marker annotation to indicate a field to be encrypted
+ * Marker annotation to indicate a field to be encrypted. On a type, the whole object is encrypted as a single message
+ * wherever it is written
  */
 @JacksonAnnotation
 @Retention(RetentionPolicy.RUNTIME)
-@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER})
+@Target({ElementType.TYPE, ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER})
 public @interface Encrypt {
 }
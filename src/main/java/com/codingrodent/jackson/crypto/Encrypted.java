@@ -0,0 +1,149 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import com.fasterxml.jackson.databind.JavaType;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holder for a value that is always encrypted in JSON. Unlike an {@link Encrypt} marked field, reading a holder keeps
+ * only the encrypted message. The value is decrypted and bound the first time {@link #get()} is called, so values that
+ * are never looked at cost no cipher work. A holder that has not been read is written back out as the same encrypted
+ * message, as long as it is written by the service that read it and the message is under that service's current key and
+ * cipher suite
+ * <p>
+ * Holders are thread safe. The value is decrypted once however many threads ask for it
+ *
+ * @param <T> Type of value
+ */
+public final class Encrypted<T> {
+
+    private final Envelope envelope;
+    private final EncryptionService encryptionService;
+    private final JavaType type;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile boolean decrypted;
+    private T value;
+
+    /**
+     * Create a holder for a value read from JSON
+     *
+     * @param envelope          Encrypted message
+     * @param encryptionService Service to decrypt the message with
+     * @param type              Type to bind the decrypted value to
+     */
+    Encrypted(final Envelope envelope, final EncryptionService encryptionService, final JavaType type) {
+        this.envelope = envelope;
+        this.encryptionService = encryptionService;
+        this.type = type;
+    }
+
+    private Encrypted(final T value) {
+        this.envelope = null;
+        this.encryptionService = null;
+        this.type = null;
+        this.value = value;
+        this.decrypted = true;
+    }
+
+    /**
+     * Create a holder for a value to be encrypted when written
+     *
+     * @param value Value
+     * @param <T>   Type of value
+     * @return Holder
+     */
+    public static <T> Encrypted<T> of(final T value) {
+        return new Encrypted<>(value);
+    }
+
+    /**
+     * Get the value, decrypting it if this is the first call
+     *
+     * @return Value
+     * @throws EncryptionException Thrown if the value cannot be decrypted
+     */
+    @SuppressWarnings("unchecked")
+    public T get() throws EncryptionException {
+        if (decrypted)
+            return value;
+        lock.lock();
+        try {
+            if (!decrypted) {
+                var clear = encryptionService.decrypt(envelope, null);
+                try {
+                    value = (T) encryptionService.readDecrypted(clear, null, null, type);
+                } catch (Exception e) {
+                    throw new EncryptionException("Unable to decrypt document", e);
+                } finally {
+                    Arrays.fill(clear, (byte) 0);
+                }
+                decrypted = true;
+            }
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Check if the value has been decrypted
+     *
+     * @return True if the value is available without decryption
+     */
+    public boolean isDecrypted() {
+        return decrypted;
+    }
+
+    /**
+     * Get the encrypted message the holder was read from
+     *
+     * @return Encrypted message, null if the holder was made from a value
+     */
+    Envelope getEnvelope() {
+        return envelope;
+    }
+
+    /**
+     * Get the service the holder was read by
+     *
+     * @return Encryption service, null if the holder was made from a value
+     */
+    EncryptionService getEncryptionService() {
+        return encryptionService;
+    }
+
+    /**
+     * Describe the holder without revealing the value
+     *
+     * @return Description
+     */
+    @Override
+    public String toString() {
+        return decrypted ? "Encrypted[decrypted]" : "Encrypted[encrypted]";
+    }
+}
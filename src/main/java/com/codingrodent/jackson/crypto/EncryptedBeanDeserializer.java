@@ -0,0 +1,77 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+
+/**
+ * Deserializer for a type marked {@link Encrypt}. The single encrypted message holding the bean is decrypted with one
+ * cipher operation and the bean read from the plain JSON
+ */
+final class EncryptedBeanDeserializer extends DelegatingDeserializer {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient EncryptionService encryptionService;
+
+    /**
+     * Create a deserializer
+     *
+     * @param encryptionService Encryption service to decrypt the bean with
+     * @param delegate          Bean deserializer to read the plain JSON
+     */
+    EncryptedBeanDeserializer(final EncryptionService encryptionService, final JsonDeserializer<?> delegate) {
+        super(delegate);
+        this.encryptionService = encryptionService;
+    }
+
+    @Override
+    protected JsonDeserializer<?> newDelegatingInstance(final JsonDeserializer<?> newDelegatee) {
+        return new EncryptedBeanDeserializer(encryptionService, newDelegatee);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Decrypt the message and read the bean
+     */
+    @Override
+    public Object deserialize(final JsonParser parser, final DeserializationContext context) {
+        return encryptionService.decrypt(parser, _delegatee, context, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Decrypt the message and update the bean
+     */
+    @Override
+    public Object deserialize(final JsonParser parser, final DeserializationContext context, final Object intoValue) {
+        return encryptionService.decryptInto(parser, _delegatee, context, intoValue);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.util.NameTransformer;
+
+import java.io.IOException;
+
+/**
+ * Serializer for a type marked {@link Encrypt}. The whole bean is written as plain JSON and encrypted into a single
+ * message, so a bean with many sensitive fields costs one cipher operation rather than one per field
+ */
+final class EncryptedBeanSerializer extends DelegatingBeanSerializer {
+
+    private final EncryptionService encryptionService;
+    private final EncryptedJsonSerializer encryptedSerializer;
+
+    /**
+     * Create a serializer
+     *
+     * @param encryptionService Encryption service to encrypt the bean with
+     * @param delegate          Bean serializer to write the plain JSON
+     */
+    EncryptedBeanSerializer(final EncryptionService encryptionService, final JsonSerializer<?> delegate) {
+        super(delegate);
+        this.encryptionService = encryptionService;
+        this.encryptedSerializer = new EncryptedJsonSerializer(encryptionService, this.delegate);
+    }
+
+    @Override
+    protected JsonSerializer<?> withDelegate(final JsonSerializer<?> delegate) {
+        return new EncryptedBeanSerializer(encryptionService, delegate);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Write the bean as a single encrypted message
+     */
+    @Override
+    public void serialize(final Object value, final JsonGenerator generator, final SerializerProvider provider) throws IOException {
+        encryptedSerializer.serialize(value, generator, provider);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Write the bean as a single encrypted message, with the type id outside the message so the subtype can be found
+     * before it is decrypted. The message is an opaque value, so a type id property is written as a wrapper array
+     */
+    @Override
+    public void serializeWithType(final Object value, final JsonGenerator generator, final SerializerProvider provider, final TypeSerializer typeSerializer)
+            throws IOException {
+        var typeId = typeSerializer.writeTypePrefix(generator, typeSerializer.typeId(value, JsonToken.VALUE_EMBEDDED_OBJECT));
+        encryptedSerializer.serialize(value, generator, provider);
+        typeSerializer.writeTypeSuffix(generator, typeId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * An unwrapped bean would have its fields written in the clear as part of another bean, so is not allowed
+     */
+    @Override
+    public JsonSerializer<Object> unwrappingSerializer(final NameTransformer unwrapper) {
+        throw new EncryptionException("Type marked as encrypted cannot be unwrapped: " + delegate.handledType().getName());
+    }
+}
@@ -24,18 +24,39 @@ THE SOFTWARE.
 
 package com.codingrodent.jackson.crypto;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.*;
 import com.fasterxml.jackson.databind.deser.*;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+
 /**
  * Class that defines objects that are to be used to participate in constructing {@link JsonDeserializer} instances (via {@link DeserializerFactory}).
  */
 public class EncryptedDeserializerModifier extends BeanDeserializerModifier {
 
     private final EncryptionService encryptionService;
+    private final Executor executor;
+    private final int threshold;
 
     public EncryptedDeserializerModifier(final EncryptionService encryptionService) {
+        this(encryptionService, null, 0);
+    }
+
+    /**
+     * Constructor for parallel decryption of the {@link Encrypt} marked fields of a bean
+     *
+     * @param encryptionService Encryption services to use to handle {@link Encrypt} marked fields
+     * @param executor          Executor to decrypt fields on, null to decrypt each field as it is read
+     * @param threshold         Smallest number of marked fields in a bean for them to be decrypted in parallel
+     */
+    public EncryptedDeserializerModifier(final EncryptionService encryptionService, final Executor executor, final int threshold) {
         this.encryptionService = encryptionService;
+        this.executor = executor;
+        this.threshold = threshold;
     }
 
     /**
@@ -45,14 +66,98 @@ public class EncryptedDeserializerModifier extends BeanDeserializerModifier {
      */
     @Override
     public BeanDeserializerBuilder updateBuilder(final DeserializationConfig config, final BeanDescription beanDescription, final BeanDeserializerBuilder builder) {
+        var encrypted = new ArrayList<SettableBeanProperty>();
         var it = builder.getProperties();
         while (it.hasNext()) {
             var property = it.next();
-            if (null != property.getAnnotation(Encrypt.class)) {
+            if ((null != property.getAnnotation(Encrypt.class)) && !property.getType().hasRawClass(Encrypted.class)) {
                 var current = property.getValueDeserializer();
-                builder.addOrReplaceProperty(property.withValueDeserializer(new EncryptedJsonDeserializer(encryptionService, current)), true);
+                encrypted.add(property.withValueDeserializer(new EncryptedJsonDeserializer(encryptionService, current)));
             }
         }
+        // Creator properties are needed before the bean exists so are always decrypted as they are read
+        var deferred = null == executor ? 0 : encrypted.stream().filter(property -> !(property instanceof CreatorProperty)).count();
+        for (var property : encrypted) {
+            if ((deferred >= Math.max(threshold, 1)) && !(property instanceof CreatorProperty))
+                property = new DeferredProperty(property);
+            builder.addOrReplaceProperty(property, true);
+        }
         return builder;
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Decrypt the {@link Encrypt} marked fields of wide beans in parallel if an executor is set, and decrypt beans of
+     * {@link Encrypt} marked types as a whole
+     */
+    @Override
+    public JsonDeserializer<?> modifyDeserializer(final DeserializationConfig config, final BeanDescription beanDescription, final JsonDeserializer<?> deserializer) {
+        var modified = hasDeferredProperties(deserializer) ? new ParallelBeanDeserializer(deserializer, executor) : deserializer;
+        if (beanDescription.getClassAnnotations().has(Encrypt.class))
+            modified = new EncryptedBeanDeserializer(encryptionService, modified);
+        return modified;
+    }
+
+    private static boolean hasDeferredProperties(final JsonDeserializer<?> deserializer) {
+        if (!(deserializer instanceof BeanDeserializerBase))
+            return false;
+        var it = ((BeanDeserializerBase) deserializer).properties();
+        while (it.hasNext()) {
+            if (it.next() instanceof DeferredProperty)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Property that, when read as part of a {@link ParallelBeanDeserializer}, collects its encrypted message to be
+     * decrypted and set once the whole bean has been read
+     */
+    static class DeferredProperty extends SettableBeanProperty.Delegating {
+        private static final long serialVersionUID = 1L;
+
+        DeferredProperty(final SettableBeanProperty delegate) {
+            super(delegate);
+        }
+
+        @Override
+        protected SettableBeanProperty withDelegate(final SettableBeanProperty delegate) {
+            return new DeferredProperty(delegate);
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * Defer decryption if the bean is being read by a {@link ParallelBeanDeserializer}
+         */
+        @Override
+        public void deserializeAndSet(final JsonParser parser, final DeserializationContext context, final Object instance) throws IOException {
+            var deserializer = getValueDeserializer();
+            var fields = ParallelBeanDeserializer.deferred(context);
+            if ((null == fields) || !(deserializer instanceof EncryptedJsonDeserializer) || parser.hasToken(JsonToken.VALUE_NULL)) {
+                delegate.deserializeAndSet(parser, context, instance);
+                return;
+            }
+            fields.add(this, instance, ((EncryptedJsonDeserializer) deserializer).readEnvelope(parser));
+        }
+
+        /**
+         * Set the value read from a decrypted message
+         *
+         * @param instance  Bean to set the value of
+         * @param envelope  Encrypted message the value was read from
+         * @param decrypted Decrypted JSON document
+         * @param context   Deserialization context
+         * @throws IOException Thrown on any error reading the document
+         */
+        void setDecrypted(final Object instance, final Envelope envelope, final byte[] decrypted, final DeserializationContext context) throws IOException {
+            var value = ((EncryptedJsonDeserializer) getValueDeserializer()).readDecrypted(decrypted, context);
+            delegate.set(instance, getEncryptionService().remember(value, instance, getName(), envelope, decrypted));
+        }
+
+        EncryptionService getEncryptionService() {
+            return ((EncryptedJsonDeserializer) getValueDeserializer()).getEncryptionService();
+        }
+    }
 }
@@ -37,19 +37,84 @@ import java.util.Arrays;
 @JsonInclude(Include.NON_NULL)
 public class EncryptedJson {
 
-    @JsonProperty(value = "salt", required = true)
+    static final String KEY_ID = "kid";
+    static final String SUITE = "suite";
+    static final String KDF = "kdf";
+    static final String SALT = "salt";
+    static final String IV = "iv";
+    static final String VALUE = "value";
+
+    @JsonProperty(value = KEY_ID)
+    private String kid;
+    @JsonProperty(value = SUITE)
+    private String suite;
+    @JsonProperty(value = KDF)
+    private String kdf;
+    @JsonProperty(value = SALT, required = true)
     @NotNull
     private byte[] salt;
-    @JsonProperty(value = "iv", required = true)
+    @JsonProperty(value = IV, required = true)
     @NotNull
     private byte[] iv;
-    @JsonProperty(value = "value", required = true)
+    @JsonProperty(value = VALUE, required = true)
     @NotNull
     private byte[] value;
 
     public EncryptedJson() {
     }
 
+    /**
+     * Internal constructor that takes ownership of the supplied arrays rather than copying them
+     *
+     * @param salt  Salt
+     * @param iv    Initialization vector
+     * @param value Cipher text
+     */
+    EncryptedJson(final byte[] salt, final byte[] iv, final byte[] value) {
+        this.salt = salt;
+        this.iv = iv;
+        this.value = value;
+    }
+
+    /**
+     * Get the identifier of the key in a key ring used to encrypt
+     *
+     * @return Key id, null if not encrypted with a key ring
+     */
+    public String getKid() {
+        return this.kid;
+    }
+
+    public void setKid(final String kid) {
+        this.kid = kid;
+    }
+
+    /**
+     * Get the cipher suite identifier, e.g. AES-GCM
+     *
+     * @return Suite identifier, null for data written with the context's own cipher
+     */
+    public String getSuite() {
+        return this.suite;
+    }
+
+    public void setSuite(final String suite) {
+        this.suite = suite;
+    }
+
+    /**
+     * Get the key derivation scheme identifier, e.g. HKDF-SHA256
+     *
+     * @return Scheme identifier, null for keys derived from the password for each salt
+     */
+    public String getKdf() {
+        return this.kdf;
+    }
+
+    public void setKdf(final String kdf) {
+        this.kdf = kdf;
+    }
+
     public byte[] getSalt() {
         return null == this.salt ? null : Arrays.copyOf(this.salt, this.salt.length);
     }
@@ -59,7 +124,7 @@ public class EncryptedJson {
     }
 
     public byte[] getIv() {
-        return Arrays.copyOf(this.iv, this.iv.length);
+        return null == this.iv ? null : Arrays.copyOf(this.iv, this.iv.length);
     }
 
     public void setIv(final byte[] iv) {
@@ -73,4 +138,18 @@ public class EncryptedJson {
     public void setValue(final byte[] value) {
         this.value = null == value ? null : Arrays.copyOf(value, value.length);
     }
+
+    // Internal access without copying, the arrays must not be modified
+
+    byte[] salt() {
+        return salt;
+    }
+
+    byte[] iv() {
+        return iv;
+    }
+
+    byte[] value() {
+        return value;
+    }
 }
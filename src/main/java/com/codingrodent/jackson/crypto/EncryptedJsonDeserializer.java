@@ -28,6 +28,8 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.*;
 import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
 
+import java.io.IOException;
+
 /**
  * Implementation of  {@link JsonDeserializer} to supply a callback
  * that can be used to create contextual (context-dependent) instances of
@@ -56,19 +58,56 @@ public class EncryptedJsonDeserializer extends JsonDeserializer<Object> implemen
      * Encrypted field deserializer
      */
     @Override
-    public Object deserialize(final JsonParser parser, final DeserializationContext context) throws JsonMappingException {
-        JsonDeserializer<?> deserializer = baseDeserializer;
-        if (deserializer instanceof ContextualDeserializer) {
-            deserializer = ((ContextualDeserializer) deserializer).createContextual(context, property);
-        }
-        return service.decrypt(parser, deserializer, context, null == property ? null : property.getType());
+    public Object deserialize(final JsonParser parser, final DeserializationContext context) {
+        return service.decrypt(parser, baseDeserializer, context, null == property ? null : property.getType());
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The deserializer for the decrypted value is resolved here, once per property, rather than for every value read
      */
     @Override
-    public JsonDeserializer<?> createContextual(final DeserializationContext context, final BeanProperty property) {
-        return new EncryptedJsonDeserializer(service, baseDeserializer, property);
+    @SuppressWarnings("unchecked")
+    public JsonDeserializer<?> createContextual(final DeserializationContext context, final BeanProperty property) throws JsonMappingException {
+        var type = null == property ? context.getContextualType() : property.getType();
+        JsonDeserializer<Object> deserializer = baseDeserializer;
+        if (null == deserializer) {
+            if (null != type)
+                deserializer = context.findContextualValueDeserializer(type, property);
+        } else
+            deserializer = (JsonDeserializer<Object>) context.handleSecondaryContextualization(deserializer, property, type);
+        return new EncryptedJsonDeserializer(service, deserializer, property);
+    }
+
+    /**
+     * Read the encrypted message for a value without decrypting it
+     *
+     * @param parser JSON parser positioned at the start of the message
+     * @return Encrypted message
+     * @throws EncryptionException Thrown if the message cannot be read
+     */
+    Envelope readEnvelope(final JsonParser parser) throws EncryptionException {
+        try {
+            return service.readEnvelope(parser);
+        } catch (Exception e) {
+            throw new EncryptionException("Unable to decrypt document", e);
+        }
+    }
+
+    /**
+     * Read the value from a decrypted message
+     *
+     * @param decrypted Decrypted JSON document
+     * @param context   Deserialization context
+     * @return Decrypted object
+     * @throws IOException Thrown on any error reading the document
+     */
+    Object readDecrypted(final byte[] decrypted, final DeserializationContext context) throws IOException {
+        return service.readDecrypted(decrypted, baseDeserializer, context, null == property ? null : property.getType());
+    }
+
+    EncryptionService getEncryptionService() {
+        return service;
     }
 }
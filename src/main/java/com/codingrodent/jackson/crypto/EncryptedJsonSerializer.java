@@ -28,8 +28,7 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.*;
 
 import java.io.IOException;
-import java.io.StringWriter;
-import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * Implementation of API used by {@link ObjectMapper}  for {@link JsonSerializer}s too) to serialize required objects
@@ -50,16 +49,64 @@ public class EncryptedJsonSerializer extends JsonSerializer<Object> {
      */
     @Override
     public void serialize(final Object object, final JsonGenerator generator, final SerializerProvider provider) throws IOException, EncryptionException {
-        var writer = new StringWriter();
-        // new generator to write the value whatever it is
-        var nestedGenerator = generator.getCodec().getFactory().createGenerator(writer);
+        var scratch = SerializerScratch.acquire();
+        var completed = false;
+        try {
+            var length = writePlain(object, generator, provider, scratch);
+            completed = true;
+            // now encrypt the output from the generator, straight from the scratch
+            var data = scratch.plain();
+            var envelope = encryptionService.unchanged(object, generator.getOutputContext(), data, 0, length);
+            if (null != envelope)
+                encryptionService.writeEnvelope(envelope, generator);
+            else
+                encryptionService.writeEncrypted(data, 0, length, generator, scratch);
+        } finally {
+            scratch.release(completed);
+        }
+    }
+
+    /**
+     * Write a value, whatever it is, as UTF-8 JSON ready to be encrypted
+     *
+     * @param object    Value to write
+     * @param generator Generator the encrypted value will be written to
+     * @param provider  Serializer provider
+     * @return The JSON
+     * @throws IOException Thrown on any error writing the value
+     */
+    byte[] serializePlain(final Object object, final JsonGenerator generator, final SerializerProvider provider) throws IOException {
+        var scratch = SerializerScratch.acquire();
+        var completed = false;
+        try {
+            var length = writePlain(object, generator, provider, scratch);
+            completed = true;
+            return Arrays.copyOf(scratch.plain(), length);
+        } finally {
+            scratch.release(completed);
+        }
+    }
+
+    /**
+     * Write a value as UTF-8 JSON to a scratch space
+     *
+     * @param object    Value to write
+     * @param generator Generator the encrypted value will be written to
+     * @param provider  Serializer provider
+     * @param scratch   Scratch space to write the JSON to
+     * @return Length of the JSON
+     * @throws IOException Thrown on any error writing the value
+     */
+    private int writePlain(final Object object, final JsonGenerator generator, final SerializerProvider provider, final SerializerScratch scratch) throws IOException {
+        var nestedGenerator = scratch.generator(generator.getCodec().getFactory());
         if (null == baseSerializer)
             provider.defaultSerializeValue(object, nestedGenerator);
         else
             baseSerializer.serialize(object, nestedGenerator, provider);
-        nestedGenerator.close();
-        // now encrypt the output from the generator
-        var encrypted = encryptionService.encrypt(writer.getBuffer().toString(), StandardCharsets.UTF_8.name());
-        generator.writeObject(encrypted);
+        return scratch.finish();
+    }
+
+    EncryptionService getEncryptionService() {
+        return encryptionService;
     }
 }
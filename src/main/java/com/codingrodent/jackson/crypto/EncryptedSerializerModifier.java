@@ -24,22 +24,24 @@ THE SOFTWARE.
 
 package com.codingrodent.jackson.crypto;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.*;
 import com.fasterxml.jackson.databind.ser.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Implementation that defines API for objects that can be registered (for {@link BeanSerializerFactory}
  * to participate in constructing {@link BeanSerializer} instances.
  */
 public class EncryptedSerializerModifier extends BeanSerializerModifier {
-    private static final Logger logger = LoggerFactory.getLogger(EncryptedSerializerModifier.class);
 
     private final EncryptionService encryptionService;
+    private final Executor executor;
+    private final int threshold;
 
     /**
      * Constructor
@@ -47,7 +49,20 @@ public class EncryptedSerializerModifier extends BeanSerializerModifier {
      * @param encryptionService Encryption services to use to handle {@link Encrypt} marked fields
      */
     public EncryptedSerializerModifier(final EncryptionService encryptionService) {
+        this(encryptionService, null, 0);
+    }
+
+    /**
+     * Constructor for parallel encryption of the {@link Encrypt} marked fields of a bean
+     *
+     * @param encryptionService Encryption services to use to handle {@link Encrypt} marked fields
+     * @param executor          Executor to encrypt fields on, null to encrypt each field as it is written
+     * @param threshold         Smallest number of marked fields in a bean for them to be encrypted in parallel
+     */
+    public EncryptedSerializerModifier(final EncryptionService encryptionService, final Executor executor, final int threshold) {
         this.encryptionService = encryptionService;
+        this.executor = executor;
+        this.threshold = threshold;
     }
 
     /**
@@ -59,26 +74,90 @@ public class EncryptedSerializerModifier extends BeanSerializerModifier {
     public List<BeanPropertyWriter> changeProperties(final SerializationConfig config, final BeanDescription beanDescription, final List<BeanPropertyWriter> beanProperties) {
         var newWriters = new ArrayList<BeanPropertyWriter>();
         for (final BeanPropertyWriter writer : beanProperties) {
-            if (null == writer.getAnnotation(Encrypt.class)) {
+            // Encrypted holders are always encrypted, so need no further handling
+            if ((null == writer.getAnnotation(Encrypt.class)) || writer.getType().hasRawClass(Encrypted.class)) {
                 newWriters.add(writer);
             } else {
-                try {
-                    // ToDo - only encrypt strings at the moment
-                    var encryptSer = new EncryptedJsonSerializer(encryptionService, writer.getSerializer());
-                    newWriters.add(new EncryptedPropertyWriter(writer, encryptSer));
-                } catch (Exception e) {
-                    logger.error("Only string encryption supported at present");
-                    throw new EncryptionException("Type to encrypt is unsupported");
-                }
+                // Any type can be encrypted, the field's own serializer writes the value to be encrypted
+                newWriters.add(new EncryptedPropertyWriter(writer, new EncryptedJsonSerializer(encryptionService, writer.getSerializer())));
             }
         }
         return newWriters;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Encrypt the {@link Encrypt} marked fields of wide beans in parallel if an executor is set, and encrypt beans of
+     * {@link Encrypt} marked types as a whole
+     */
+    @Override
+    public JsonSerializer<?> modifySerializer(final SerializationConfig config, final BeanDescription beanDescription, final JsonSerializer<?> serializer) {
+        var modified = serializer;
+        if ((null != executor) && (ParallelBeanSerializer.encryptedWriters(serializer).size() >= Math.max(threshold, 1)))
+            modified = new ParallelBeanSerializer(modified, executor, null != config.getAnnotationIntrospector().findFilterId(beanDescription.getClassInfo()));
+        if (beanDescription.getClassAnnotations().has(Encrypt.class))
+            modified = new EncryptedBeanSerializer(encryptionService, modified);
+        return modified;
+    }
+
     static class EncryptedPropertyWriter extends BeanPropertyWriter {
-        EncryptedPropertyWriter(final BeanPropertyWriter base, final JsonSerializer<Object> serializer) {
+        private static final long serialVersionUID = 1L;
+        private final EncryptedJsonSerializer encryptedSerializer;
+
+        EncryptedPropertyWriter(final BeanPropertyWriter base, final EncryptedJsonSerializer serializer) {
             super(base);
             this._serializer = serializer;
+            this.encryptedSerializer = serializer;
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * Write the field from an envelope encrypted ahead of time, if there is one
+         */
+        @Override
+        public void serializeAsField(final Object bean, final JsonGenerator generator, final SerializerProvider provider) throws Exception {
+            var envelope = ParallelBeanSerializer.encrypted(bean, this, provider);
+            if (null == envelope) {
+                super.serializeAsField(bean, generator, provider);
+            } else {
+                generator.writeFieldName(_name);
+                encryptedSerializer.getEncryptionService().writeEnvelope(envelope, generator);
+            }
+        }
+
+        /**
+         * Write the field value as JSON ready to be encrypted ahead of time. Values that need the special handling of
+         * {@link #serializeAsField} are left to be written in the usual way
+         *
+         * @param bean      Bean holding the field
+         * @param value     Field value, as read from the bean
+         * @param generator Generator the bean is being written to
+         * @param provider  Serializer provider
+         * @return JSON to encrypt, null if the field must be written in the usual way
+         * @throws IOException Thrown on any error writing the value
+         */
+        byte[] serializePlain(final Object bean, final Object value, final JsonGenerator generator, final SerializerProvider provider) throws IOException {
+            if ((null == value) || (value == bean) || (null != _suppressableValue) || (null != _typeSerializer))
+                return null;
+            return encryptedSerializer.serializePlain(value, generator, provider);
+        }
+
+        /**
+         * Find the message the field value was read from, if it can be written as is
+         *
+         * @param bean      Bean holding the field
+         * @param value     Field value, as read from the bean
+         * @param plainJson JSON the field value writes out as
+         * @return Encrypted message, null if the value must be encrypted
+         */
+        Envelope unchanged(final Object bean, final Object value, final byte[] plainJson) {
+            return getEncryptionService().unchanged(value, bean, _name.getValue(), plainJson, 0, plainJson.length);
+        }
+
+        EncryptionService getEncryptionService() {
+            return encryptedSerializer.getEncryptionService();
         }
     }
 }
@@ -0,0 +1,64 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+
+/**
+ * Deserializer for {@link Encrypted} holders. Only the encrypted message is read, decryption is left until the value is
+ * asked for
+ */
+final class EncryptedValueDeserializer extends JsonDeserializer<Encrypted<?>> implements ContextualDeserializer {
+    private final EncryptionService encryptionService;
+    private final JavaType valueType;
+
+    EncryptedValueDeserializer(final EncryptionService encryptionService, final JavaType valueType) {
+        this.encryptionService = encryptionService;
+        this.valueType = valueType;
+    }
+
+    @Override
+    public Encrypted<?> deserialize(final JsonParser parser, final DeserializationContext context) {
+        try {
+            return new Encrypted<>(encryptionService.readEnvelope(parser), encryptionService, valueType);
+        } catch (Exception e) {
+            throw new EncryptionException("Unable to decrypt document", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Pick up the type of value held, e.g. the T of an Encrypted&lt;T&gt; property
+     */
+    @Override
+    public JsonDeserializer<?> createContextual(final DeserializationContext context, final BeanProperty property) {
+        var type = context.getContextualType();
+        var contained = null == type ? null : type.containedType(0);
+        return new EncryptedValueDeserializer(encryptionService, null == contained ? context.constructType(Object.class) : contained);
+    }
+}
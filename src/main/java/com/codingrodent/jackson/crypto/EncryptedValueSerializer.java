@@ -0,0 +1,59 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+
+/**
+ * Serializer for {@link Encrypted} holders. A holder whose value has never been read is written as the encrypted message
+ * it was read from, without any cipher work, if it was read by this service and the message is under the service's current
+ * key and cipher suite. Otherwise the value is decrypted and encrypted again
+ */
+final class EncryptedValueSerializer extends JsonSerializer<Encrypted<?>> {
+    private final EncryptedJsonSerializer valueSerializer;
+
+    EncryptedValueSerializer(final EncryptionService encryptionService) {
+        this.valueSerializer = new EncryptedJsonSerializer(encryptionService, null);
+    }
+
+    @Override
+    public void serialize(final Encrypted<?> holder, final JsonGenerator generator, final SerializerProvider provider) throws IOException {
+        var encryptionService = valueSerializer.getEncryptionService();
+        if (!holder.isDecrypted() && (holder.getEncryptionService() == encryptionService) && encryptionService.isCurrent(holder.getEnvelope()))
+            encryptionService.writeEnvelope(holder.getEnvelope(), generator);
+        else
+            valueSerializer.serialize(holder.get(), generator, provider);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Class<Encrypted<?>> handledType() {
+        return (Class<Encrypted<?>>) (Class<?>) Encrypted.class;
+    }
+}
@@ -24,22 +24,42 @@ THE SOFTWARE.
 
 package com.codingrodent.jackson.crypto;
 
+import com.codingrodent.jackson.crypto.CryptoEvents.*;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.validation.*;
-import java.util.Set;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * Encryption / decryption functionality to handle the processing of {@link Encrypt} marked fields to/from JSON
  */
 public class EncryptionService {
     private static final Logger logger = LoggerFactory.getLogger(EncryptionService.class);
+    // Smallest batch worth handing to another thread
+    private static final int MIN_BATCH_SIZE = 64;
+    // Messages encrypted and decrypted by a warm up
+    private static final int WARM_UP_ROUNDS = 16;
+    // Most cipher text can exceed the clear text by, i.e. a block of padding or an authentication tag
+    private static final int MAX_CIPHER_OVERHEAD = 16;
     private final ObjectMapper mapper;
     private final Validator validator;
     private final ICryptoContext cryptoContext;
+    private volatile Executor executor;
+    private volatile EnvelopeFormat envelopeFormat = EnvelopeFormat.OBJECT;
+    private volatile EnvelopeTable envelopeTable;
+    private volatile CryptoListener listener;
+    private final DirectBufferPool bufferPool = new DirectBufferPool();
 
     /**
      * Convenience method to make a preconfigured ObjectMapper
@@ -55,7 +75,8 @@ public class EncryptionService {
     }
 
     /**
-     * Construct crypto service
+     * Construct crypto service. Encrypted JSON is checked by the supplied bean validator in addition to the built in
+     * structural checks
      *
      * @param objectMapper  Object objectMapper to use
      * @param validator     Validator to use
@@ -63,27 +84,32 @@ public class EncryptionService {
      * @throws EncryptionException Thrown on any error
      */
     public EncryptionService(final ObjectMapper objectMapper, final Validator validator, final ICryptoContext cryptoContext) throws EncryptionException {
-        if (null == objectMapper)
-            throw new EncryptionException("Object mapper cannot be null");
-        if (null == validator)
-            throw new EncryptionException("Validator cannot be null");
-        if (null == cryptoContext)
-            throw new EncryptionException("Crypto Context cannot be null");
-        //
-        this.mapper = objectMapper;
-        this.validator = validator;
-        this.cryptoContext = cryptoContext;
+        this(objectMapper, validator, cryptoContext, true);
     }
 
     /**
-     * Construct crypto service using a default validator
+     * Construct crypto service using only the built in structural checks of encrypted JSON
      *
      * @param objectMapper  Object mapper to use
      * @param cryptoContext Crypto to use
      * @throws EncryptionException Thrown on any error
      */
     public EncryptionService(final ObjectMapper objectMapper, final ICryptoContext cryptoContext) throws EncryptionException {
-        this(objectMapper, Validation.buildDefaultValidatorFactory().getValidator(), cryptoContext);
+        this(objectMapper, null, cryptoContext, false);
+    }
+
+    private EncryptionService(final ObjectMapper objectMapper, final Validator validator, final ICryptoContext cryptoContext,
+                              final boolean validatorRequired) throws EncryptionException {
+        if (null == objectMapper)
+            throw new EncryptionException("Object mapper cannot be null");
+        if (null == cryptoContext)
+            throw new EncryptionException("Crypto Context cannot be null");
+        if (validatorRequired && (null == validator))
+            throw new EncryptionException("Validator cannot be null");
+        //
+        this.mapper = objectMapper;
+        this.validator = validator;
+        this.cryptoContext = cryptoContext;
     }
 
     /**
@@ -94,11 +120,7 @@ public class EncryptionService {
      * @throws EncryptionException Thrown on any error
      */
     public EncryptedJson encrypt(final byte[] data) throws EncryptionException {
-        var result = new EncryptedJson();
-        result.setIv(cryptoContext.getIv());
-        result.setSalt(cryptoContext.getSalt());
-        result.setValue(cryptoContext.encrypt(data));
-        return result;
+        return encryptEnvelope(data, 0, data.length, null).toEncryptedJson();
     }
 
     /**
@@ -117,6 +139,242 @@ public class EncryptionService {
         }
     }
 
+    /**
+     * Encrypt a batch of byte arrays. Cipher setup is shared across the batch rather than repeated for each value
+     *
+     * @param data Byte arrays to encrypt
+     * @return JSON messages, in the same order as the data
+     * @throws EncryptionException Thrown on any error
+     */
+    public List<EncryptedJson> encryptAll(final List<byte[]> data) throws EncryptionException {
+        return encryptAll(data, null);
+    }
+
+    /**
+     * Encrypt a batch of byte arrays, splitting large batches across an executor
+     *
+     * @param data     Byte arrays to encrypt
+     * @param executor Executor to run parts of the batch on, null to run on the calling thread
+     * @return JSON messages, in the same order as the data
+     * @throws EncryptionException Thrown on any error
+     */
+    public List<EncryptedJson> encryptAll(final List<byte[]> data, final Executor executor) throws EncryptionException {
+        var envelopes = encryptEnvelopes(data, executor, MIN_BATCH_SIZE, null);
+        var results = new ArrayList<EncryptedJson>(envelopes.size());
+        for (var envelope : envelopes)
+            results.add(envelope.toEncryptedJson());
+        return results;
+    }
+
+    /**
+     * Encrypt a batch of byte arrays to envelopes
+     *
+     * @param data         Byte arrays to encrypt
+     * @param executor     Executor to run parts of the batch on, null to run on the calling thread
+     * @param minBatchSize Smallest part of the batch to hand to another thread
+     * @param beanClass    Class of the bean holding the values, for recording, null if not known
+     * @return Encrypted messages, in the same order as the data
+     * @throws EncryptionException Thrown on any error
+     */
+    List<Envelope> encryptEnvelopes(final List<byte[]> data, final Executor executor, final int minBatchSize, final Class<?> beanClass)
+            throws EncryptionException {
+        var event = new EncryptEvent();
+        event.begin();
+        var current = listener;
+        if ((null == current) && !event.isEnabled())
+            return inBatches(data, executor, minBatchSize, cryptoContext::encryptEnvelopes);
+        var start = System.nanoTime();
+        var envelopes = inBatches(data, executor, minBatchSize, cryptoContext::encryptEnvelopes);
+        var elapsed = System.nanoTime() - start;
+        long plainBytes = 0, cipherBytes = 0;
+        for (int i = 0; i < envelopes.size(); i++) {
+            plainBytes += data.get(i).length;
+            cipherBytes += envelopes.get(i).valueLength();
+        }
+        if (null != current)
+            current.encrypted(envelopes.size(), plainBytes, cipherBytes, elapsed);
+        if (event.shouldCommit()) {
+            event.beanClass = beanClass;
+            event.messages = envelopes.size();
+            event.size = plainBytes;
+            event.commit();
+        }
+        return envelopes;
+    }
+
+    /**
+     * Encrypt part of a byte array to an envelope
+     *
+     * @param data   Byte array holding data to encrypt
+     * @param offset Offset of data in byte array
+     * @param length Length of data in byte array
+     * @param site   Context of the value in the JSON stream, for recording, null if not known
+     * @return Encrypted message
+     * @throws EncryptionException Thrown on any error
+     */
+    Envelope encryptEnvelope(final byte[] data, final int offset, final int length, final JsonStreamContext site) throws EncryptionException {
+        return encryptEnvelope(data, offset, length, null, site);
+    }
+
+    /**
+     * Encrypt part of a byte array to an envelope, writing the cipher text to a scratch array if given
+     *
+     * @param data   Byte array holding data to encrypt
+     * @param offset Offset of data in byte array
+     * @param length Length of data in byte array
+     * @param target Array to write the cipher text to if large enough, null to allocate one
+     * @param site   Context of the value in the JSON stream, for recording, null if not known
+     * @return Encrypted message, only valid until the target array is reused
+     * @throws EncryptionException Thrown on any error
+     */
+    private Envelope encryptEnvelope(final byte[] data, final int offset, final int length, final byte[] target, final JsonStreamContext site)
+            throws EncryptionException {
+        var event = new EncryptEvent();
+        event.begin();
+        var current = listener;
+        var start = null == current ? 0 : System.nanoTime();
+        var envelope = null == target ? cryptoContext.encryptEnvelope(data, offset, length) : cryptoContext.encryptEnvelope(data, offset, length, target);
+        if (null != current)
+            current.encrypted(1, length, envelope.valueLength(), System.nanoTime() - start);
+        if (event.shouldCommit()) {
+            event.setSite(site);
+            event.messages = 1;
+            event.size = length;
+            event.commit();
+        }
+        return envelope;
+    }
+
+    /**
+     * Encrypt part of a byte array and write the resulting JSON message straight to a generator, avoiding any intermediate
+     * objects
+     *
+     * @param data      Byte array holding data to encrypt
+     * @param offset    Offset of data in byte array
+     * @param length    Length of data in byte array
+     * @param generator Generator to write JSON message to
+     * @throws IOException         Thrown on any error writing to the generator
+     * @throws EncryptionException Thrown on any error encrypting
+     */
+    public void writeEncrypted(final byte[] data, final int offset, final int length, final JsonGenerator generator) throws IOException, EncryptionException {
+        writeEnvelope(encryptEnvelope(data, offset, length, generator.getOutputContext()), generator);
+    }
+
+    /**
+     * Encrypt part of a byte array and write the resulting JSON message straight to a generator, using a scratch space for
+     * the cipher text and compact message
+     *
+     * @param data      Byte array holding data to encrypt
+     * @param offset    Offset of data in byte array
+     * @param length    Length of data in byte array
+     * @param generator Generator to write JSON message to
+     * @param scratch   Scratch space of the current thread
+     * @throws IOException         Thrown on any error writing to the generator
+     * @throws EncryptionException Thrown on any error encrypting
+     */
+    void writeEncrypted(final byte[] data, final int offset, final int length, final JsonGenerator generator, final SerializerScratch scratch)
+            throws IOException, EncryptionException {
+        var envelope = encryptEnvelope(data, offset, length, scratch.cipherText(length + MAX_CIPHER_OVERHEAD), generator.getOutputContext());
+        if (EnvelopeFormat.COMPACT == envelopeFormat) {
+            var compact = scratch.compact(envelope.compactHeaderLength() + envelope.valueLength());
+            var compactLength = envelope.toCompact(compact);
+            generator.writeBinary(mapper.getSerializationConfig().getBase64Variant(), compact, 0, compactLength);
+        } else {
+            writeEnvelope(envelope, generator);
+        }
+    }
+
+    /**
+     * Encrypt the remaining bytes of a buffer into another, without copying either to the heap. The message is written in
+     * the compact form without base 64 encoding, as the header then the cipher text. Buffers can be taken from
+     * {@link #getBufferPool()}
+     *
+     * @param source Buffer holding the data to encrypt, left at its limit
+     * @param target Buffer to write the message to, with at least {@link #getMaxEncryptedLength(int)} bytes remaining
+     * @return Number of bytes written
+     * @throws EncryptionException Thrown on any error, or if the target is too small, in which case nothing is written
+     */
+    public int encrypt(final ByteBuffer source, final ByteBuffer target) throws EncryptionException {
+        var event = new EncryptEvent();
+        event.begin();
+        var current = listener;
+        var start = null == current ? 0 : System.nanoTime();
+        var length = source.remaining();
+        var header = cryptoContext.newHeader();
+        var headerLength = header.compactHeaderLength();
+        if (target.remaining() < headerLength + length + MAX_CIPHER_OVERHEAD)
+            throw new EncryptionException("Target buffer too small, " + (headerLength + length + MAX_CIPHER_OVERHEAD) + " bytes needed");
+        var position = target.position();
+        int written;
+        try {
+            header.writeCompactHeader(target);
+            written = headerLength + cryptoContext.encrypt(header, source, target);
+        } catch (EncryptionException e) {
+            target.position(position);
+            throw e;
+        }
+        if (null != current)
+            current.encrypted(1, length, written - headerLength, System.nanoTime() - start);
+        if (event.shouldCommit()) {
+            event.messages = 1;
+            event.size = length;
+            event.commit();
+        }
+        return written;
+    }
+
+    /**
+     * Get the space needed to encrypt data of a given length into a buffer. No message is started, so no iv or nonce is
+     * used up
+     *
+     * @param length Length of data to encrypt
+     * @return Bytes needed in the target buffer
+     * @throws EncryptionException Thrown if the context cannot encrypt buffers
+     */
+    public int getMaxEncryptedLength(final int length) throws EncryptionException {
+        return cryptoContext.compactHeaderLength(null) + length + MAX_CIPHER_OVERHEAD;
+    }
+
+    /**
+     * Decrypt a message written by {@link #encrypt(ByteBuffer, ByteBuffer)}, held in the remaining bytes of a buffer, into
+     * another without copying either to the heap. Messages are checked structurally before decryption, but bean
+     * validation is not applied
+     *
+     * @param source Buffer holding the message, left at its limit
+     * @param target Buffer to write the decrypted data to, with at least as many bytes remaining as the message as some
+     *               ciphers need room for padding before removing it
+     * @return Number of bytes written
+     * @throws EncryptionException Thrown on any error
+     */
+    public int decrypt(final ByteBuffer source, final ByteBuffer target) throws EncryptionException {
+        var header = Envelope.readCompactHeader(source);
+        var length = source.remaining();
+        checkStructure(header, length);
+        var event = new DecryptEvent();
+        event.begin();
+        var current = listener;
+        var start = null == current ? 0 : System.nanoTime();
+        var written = cryptoContext.decrypt(header, source, target);
+        if (null != current)
+            current.decrypted(1, length, written, System.nanoTime() - start);
+        if (event.shouldCommit()) {
+            event.messages = 1;
+            event.size = written;
+            event.commit();
+        }
+        return written;
+    }
+
+    /**
+     * Get the pool of direct buffers for use with {@link #encrypt(ByteBuffer, ByteBuffer)} and
+     * {@link #decrypt(ByteBuffer, ByteBuffer)}. Buffers taken from the pool should be returned once used
+     *
+     * @return Buffer pool
+     */
+    public DirectBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
     /**
      * Decrypt an encrypted byte array
      *
@@ -124,8 +382,314 @@ public class EncryptionService {
      * @return Decrypted byte array
      */
     public byte[] decrypt(final EncryptedJson value) {
-        validate(value);
-        return cryptoContext.decrypt(value);
+        return decrypt(Envelope.of(value), null);
+    }
+
+    /**
+     * Decrypt an envelope
+     *
+     * @param envelope Encrypted message
+     * @param site     Context of the value in the JSON stream, for recording, null if not known
+     * @return Decrypted byte array
+     */
+    byte[] decrypt(final Envelope envelope, final JsonStreamContext site) {
+        validate(envelope, site);
+        var event = new DecryptEvent();
+        event.begin();
+        var current = listener;
+        var start = null == current ? 0 : System.nanoTime();
+        var decrypted = cryptoContext.decrypt(envelope);
+        if (null != current)
+            current.decrypted(1, envelope.valueLength(), decrypted.length, System.nanoTime() - start);
+        if (event.shouldCommit()) {
+            event.setSite(site);
+            event.messages = 1;
+            event.size = decrypted.length;
+            event.commit();
+        }
+        return decrypted;
+    }
+
+    /**
+     * Decrypt a batch of encrypted byte arrays. Cipher setup and key lookup are shared across the batch rather than
+     * repeated for each value
+     *
+     * @param values Pojos derived from JSON
+     * @return Decrypted byte arrays, in the same order as the values
+     */
+    public List<byte[]> decryptAll(final List<EncryptedJson> values) {
+        return decryptAll(values, null);
+    }
+
+    /**
+     * Decrypt a batch of encrypted byte arrays, splitting large batches across an executor
+     *
+     * @param values   Pojos derived from JSON
+     * @param executor Executor to run parts of the batch on, null to run on the calling thread
+     * @return Decrypted byte arrays, in the same order as the values
+     */
+    public List<byte[]> decryptAll(final List<EncryptedJson> values, final Executor executor) {
+        var envelopes = new ArrayList<Envelope>(values.size());
+        for (var value : values)
+            envelopes.add(Envelope.of(value));
+        return decryptEnvelopes(envelopes, executor, MIN_BATCH_SIZE, null);
+    }
+
+    /**
+     * Decrypt a batch of envelopes
+     *
+     * @param envelopes    Encrypted messages
+     * @param executor     Executor to run parts of the batch on, null to run on the calling thread
+     * @param minBatchSize Smallest part of the batch to hand to another thread
+     * @param beanClass    Class of the bean holding the values, for recording, null if not known
+     * @return Decrypted byte arrays, in the same order as the envelopes
+     */
+    List<byte[]> decryptEnvelopes(final List<Envelope> envelopes, final Executor executor, final int minBatchSize, final Class<?> beanClass) {
+        for (var envelope : envelopes)
+            validate(envelope, null);
+        var event = new DecryptEvent();
+        event.begin();
+        var current = listener;
+        if ((null == current) && !event.isEnabled())
+            return inBatches(envelopes, executor, minBatchSize, cryptoContext::decryptEnvelopes);
+        var start = System.nanoTime();
+        var decrypted = inBatches(envelopes, executor, minBatchSize, cryptoContext::decryptEnvelopes);
+        var elapsed = System.nanoTime() - start;
+        long cipherBytes = 0, plainBytes = 0;
+        for (int i = 0; i < decrypted.size(); i++) {
+            cipherBytes += envelopes.get(i).valueLength();
+            plainBytes += decrypted.get(i).length;
+        }
+        if (null != current)
+            current.decrypted(decrypted.size(), cipherBytes, plainBytes, elapsed);
+        if (event.shouldCommit()) {
+            event.beanClass = beanClass;
+            event.messages = decrypted.size();
+            event.size = plainBytes;
+            event.commit();
+        }
+        return decrypted;
+    }
+
+    /**
+     * Encrypt a byte array as a JSON message on the service executor
+     *
+     * @param data Byte array to encrypt
+     * @return Future JSON message containing the encrypted byte array, completed exceptionally on any error
+     */
+    public CompletableFuture<EncryptedJson> encryptAsync(final byte[] data) {
+        return CompletableFuture.supplyAsync(() -> encrypt(data), getExecutor());
+    }
+
+    /**
+     * Decrypt an encrypted byte array on the service executor
+     *
+     * @param value Pojo derived from JSON
+     * @return Future decrypted byte array, completed exceptionally on any error
+     */
+    public CompletableFuture<byte[]> decryptAsync(final EncryptedJson value) {
+        return CompletableFuture.supplyAsync(() -> decrypt(value), getExecutor());
+    }
+
+    /**
+     * Write an object as JSON, encrypting any {@link Encrypt} marked fields, on the service executor. The object mapper
+     * given to the service is used
+     *
+     * @param value Object to write
+     * @return Future JSON, completed exceptionally on any error
+     */
+    public CompletableFuture<String> writeValueAsStringAsync(final Object value) {
+        return async(() -> mapper.writeValueAsString(value));
+    }
+
+    /**
+     * Write an object as UTF-8 JSON, encrypting any {@link Encrypt} marked fields, on the service executor. The object
+     * mapper given to the service is used
+     *
+     * @param value Object to write
+     * @return Future JSON, completed exceptionally on any error
+     */
+    public CompletableFuture<byte[]> writeValueAsBytesAsync(final Object value) {
+        return async(() -> mapper.writeValueAsBytes(value));
+    }
+
+    /**
+     * Read an object from JSON, decrypting any {@link Encrypt} marked fields, on the service executor. The object mapper
+     * given to the service is used
+     *
+     * @param json JSON to read
+     * @param type Type of object
+     * @param <T>  Type of object
+     * @return Future object, completed exceptionally on any error
+     */
+    public <T> CompletableFuture<T> readValueAsync(final String json, final Class<T> type) {
+        return async(() -> mapper.readValue(json, type));
+    }
+
+    /**
+     * Read an object from UTF-8 JSON, decrypting any {@link Encrypt} marked fields, on the service executor. The object
+     * mapper given to the service is used
+     *
+     * @param json JSON to read
+     * @param type Type of object
+     * @param <T>  Type of object
+     * @return Future object, completed exceptionally on any error
+     */
+    public <T> CompletableFuture<T> readValueAsync(final byte[] json, final Class<T> type) {
+        return async(() -> mapper.readValue(json, type));
+    }
+
+    /**
+     * Pay the one off costs of first use ahead of time, e.g. before taking traffic after a deploy. The serializers and
+     * deserializers for the bean classes are built and cached by the object mapper given to the service, the keys for the
+     * salts are derived, and a few messages are encrypted, validated and decrypted to load the cipher providers and bean
+     * validation
+     *
+     * @param types Bean classes that will be written and read
+     * @param salts Salts of stored messages that will be read, e.g. {@link BaseCryptoContext#getSalt()} of the writer
+     * @throws EncryptionException Thrown on any error
+     */
+    public void warmUp(final Collection<Class<?>> types, final Collection<byte[]> salts) throws EncryptionException {
+        warmUp(mapper, types, salts);
+    }
+
+    /**
+     * Warm up on the service executor, building serializers, deriving the key for each salt and running cipher rounds
+     * as separate tasks
+     *
+     * @param types Bean classes that will be written and read
+     * @param salts Salts of stored messages that will be read
+     * @return Future completed when everything is warm, completed exceptionally on any error
+     */
+    public CompletableFuture<Void> warmUpAsync(final Collection<Class<?>> types, final Collection<byte[]> salts) {
+        return warmUpAsync(mapper, types, salts);
+    }
+
+    /**
+     * Warm up for use with an object mapper
+     *
+     * @param objectMapper Object mapper to build serializers and deserializers on
+     * @param types        Bean classes that will be written and read
+     * @param salts        Salts of stored messages that will be read
+     * @throws EncryptionException Thrown on any error
+     */
+    void warmUp(final ObjectMapper objectMapper, final Collection<Class<?>> types, final Collection<byte[]> salts) throws EncryptionException {
+        warmUpTypes(objectMapper, types);
+        cryptoContext.preloadKeys(salts);
+        warmUpCipher();
+    }
+
+    /**
+     * Warm up for use with an object mapper on the service executor
+     *
+     * @param objectMapper Object mapper to build serializers and deserializers on
+     * @param types        Bean classes that will be written and read
+     * @param salts        Salts of stored messages that will be read
+     * @return Future completed when everything is warm, completed exceptionally on any error
+     */
+    CompletableFuture<Void> warmUpAsync(final ObjectMapper objectMapper, final Collection<Class<?>> types, final Collection<byte[]> salts) {
+        var executor = getExecutor();
+        var tasks = new ArrayList<CompletableFuture<Void>>(salts.size() + 2);
+        tasks.add(CompletableFuture.runAsync(() -> warmUpTypes(objectMapper, types), executor));
+        tasks.add(CompletableFuture.runAsync(this::warmUpCipher, executor));
+        for (var salt : salts)
+            tasks.add(CompletableFuture.runAsync(() -> cryptoContext.preloadKeys(List.of(salt)), executor));
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Set the form encrypted fields are written in. Either form is accepted when reading
+     *
+     * @param envelopeFormat Form to write
+     * @throws EncryptionException Thrown if the form is null
+     */
+    public void setEnvelopeFormat(final EnvelopeFormat envelopeFormat) throws EncryptionException {
+        if (null == envelopeFormat)
+            throw new EncryptionException("Envelope format cannot be null");
+        this.envelopeFormat = envelopeFormat;
+    }
+
+    /**
+     * Get the form encrypted fields are written in
+     *
+     * @return Form written, {@link EnvelopeFormat#OBJECT} unless set
+     */
+    public EnvelopeFormat getEnvelopeFormat() {
+        return envelopeFormat;
+    }
+
+    /**
+     * Set whether encrypted fields that are unchanged since they were read are written back as the same encrypted
+     * message, skipping encryption. The message a value was read from is remembered for as long as the value is in use,
+     * along with its plain JSON. A message is only reused if the value still writes out the same JSON and the message
+     * is as the crypto context would write it now, e.g. not under an old key. Off by default
+     *
+     * @param passThrough True to reuse unchanged messages
+     */
+    public void setPassThrough(final boolean passThrough) {
+        envelopeTable = passThrough ? new EnvelopeTable() : null;
+    }
+
+    /**
+     * Check whether unchanged encrypted fields are written back as the same encrypted message
+     *
+     * @return True if unchanged messages are reused
+     */
+    public boolean isPassThrough() {
+        return null != envelopeTable;
+    }
+
+    /**
+     * Set the listener told about encryption, decryption, key derivation and validation failures, e.g. a
+     * {@link CryptoMetrics}. The crypto context is also given the listener. Nothing is timed unless a listener is set
+     *
+     * @param listener Listener, null for none
+     */
+    public void setCryptoListener(final CryptoListener listener) {
+        this.listener = listener;
+        cryptoContext.setCryptoListener(listener);
+    }
+
+    /**
+     * Get the listener told about the work done by the service
+     *
+     * @return Listener, null if none is set
+     */
+    public CryptoListener getCryptoListener() {
+        return listener;
+    }
+
+    /**
+     * Set the executor asynchronous operations run on, e.g. one creating a virtual thread per task. Nothing in the
+     * service blocks while holding a monitor, so virtual threads are not pinned
+     *
+     * @param executor Executor to use
+     * @throws EncryptionException Thrown if the executor is null
+     */
+    public void setExecutor(final Executor executor) throws EncryptionException {
+        if (null == executor)
+            throw new EncryptionException("Executor cannot be null");
+        this.executor = executor;
+    }
+
+    /**
+     * Get the executor asynchronous operations run on. Unless set, this is a shared pool of daemon threads, one per
+     * processor
+     *
+     * @return Executor
+     */
+    public Executor getExecutor() {
+        var current = executor;
+        return null == current ? DefaultExecutor.INSTANCE : current;
+    }
+
+    /**
+     * Get the object mapper the service reads and writes JSON with
+     *
+     * @return Object mapper
+     */
+    ObjectMapper getObjectMapper() {
+        return mapper;
     }
 
     /**
@@ -139,28 +703,410 @@ public class EncryptionService {
      */
     public Object decrypt(final JsonParser parser, final JsonDeserializer<?> deserializer, final DeserializationContext context, final JavaType type) {
         try {
-            return null == deserializer ? mapper.readValue(decrypt(mapper.readValue(parser, EncryptedJson.class)), type) : deserializer.deserialize(mapper.getFactory()
-                    .createParser(decrypt(mapper.readValue(parser, EncryptedJson.class))), context);
+            var envelope = readEnvelope(parser);
+            var site = parser.getParsingContext();
+            var decrypted = decrypt(envelope, site);
+            return remember(readDecrypted(decrypted, deserializer, context, type), site, envelope, decrypted);
         } catch (Exception e) {
             throw new EncryptionException("Unable to decrypt document", e);
         }
     }
 
     /**
-     * Run the recovered encrypted json through the supplied validator and log any errors
+     * Custom decrypt for EncryptedJSON class, updating an existing object
+     *
+     * @param parser       JSON parser being used by Jackson
+     * @param deserializer Deserializer for the object
+     * @param context      Context for the process of deserialization a single root-level value
+     * @param intoValue    Object to update
+     * @return Updated object
+     */
+    @SuppressWarnings("unchecked")
+    Object decryptInto(final JsonParser parser, final JsonDeserializer<?> deserializer, final DeserializationContext context, final Object intoValue) {
+        try {
+            var envelope = readEnvelope(parser);
+            var site = parser.getParsingContext();
+            var decrypted = decrypt(envelope, site);
+            try (var decryptedParser = mapper.getFactory().createParser(decrypted)) {
+                decryptedParser.nextToken();
+                return remember(((JsonDeserializer<Object>) deserializer).deserialize(decryptedParser, context, intoValue), site, envelope, decrypted);
+            }
+        } catch (Exception e) {
+            throw new EncryptionException("Unable to decrypt document", e);
+        }
+    }
+
+    /**
+     * Read the value held in a decrypted JSON document
+     *
+     * @param decrypted    Decrypted JSON document
+     * @param deserializer Base deserializer being used by, null to use the object mapper
+     * @param context      Context for the process of deserialization a single root-level value
+     * @param type         Declared type of target
+     * @return Decrypted object
+     * @throws IOException Thrown on any error reading the document
+     */
+    Object readDecrypted(final byte[] decrypted, final JsonDeserializer<?> deserializer, final DeserializationContext context, final JavaType type) throws IOException {
+        if (null == deserializer)
+            return mapper.readValue(decrypted, type);
+        try (var decryptedParser = mapper.getFactory().createParser(decrypted)) {
+            decryptedParser.nextToken();
+            return deserializer.deserialize(decryptedParser, context);
+        }
+    }
+
+    /**
+     * Remember the message a value was read from if pass through is on
+     *
+     * @param value     Decrypted value
+     * @param owner     Bean holding the value, null if not held by a bean field
+     * @param name      Name of the field holding the value
+     * @param envelope  Encrypted message
+     * @param plainJson Decrypted JSON the value was read from, which must not be changed afterwards
+     * @return Value
+     */
+    Object remember(final Object value, final Object owner, final String name, final Envelope envelope, final byte[] plainJson) {
+        var table = envelopeTable;
+        if (null != table)
+            table.put(value, owner, name, envelope, plainJson);
+        return value;
+    }
+
+    /**
+     * Remember the message a value was read from if pass through is on
+     *
+     * @param value     Decrypted value
+     * @param site      Context the message was read in, its current value being the bean holding the field
+     * @param envelope  Encrypted message
+     * @param plainJson Decrypted JSON the value was read from, which must not be changed afterwards
+     * @return Value
+     */
+    private Object remember(final Object value, final JsonStreamContext site, final Envelope envelope, final byte[] plainJson) {
+        if ((null == envelopeTable) || (null == site) || !site.inObject())
+            return value;
+        return remember(value, site.getCurrentValue(), site.getCurrentName(), envelope, plainJson);
+    }
+
+    /**
+     * Find the message a value was read from if pass through is on, the value is being written to the field it was read
+     * from and is unchanged
+     *
+     * @param value     Value being written
+     * @param owner     Bean the value is being written from, null if not a bean field
+     * @param name      Name of the field being written
+     * @param plainJson Buffer holding the JSON the value writes out as
+     * @param offset    Offset of JSON in buffer
+     * @param length    Length of JSON in buffer
+     * @return Encrypted message to write as is, null if the value must be encrypted
+     */
+    Envelope unchanged(final Object value, final Object owner, final String name, final byte[] plainJson, final int offset, final int length) {
+        var table = envelopeTable;
+        if (null == table)
+            return null;
+        var envelope = table.get(value, owner, name, plainJson, offset, length);
+        return (null != envelope) && isCurrent(envelope) ? envelope : null;
+    }
+
+    /**
+     * Find the message a value was read from if pass through is on, the value is being written to the field it was read
+     * from and is unchanged
+     *
+     * @param value     Value being written
+     * @param site      Context the value is being written in, its current value being the bean holding the field
+     * @param plainJson Buffer holding the JSON the value writes out as
+     * @param offset    Offset of JSON in buffer
+     * @param length    Length of JSON in buffer
+     * @return Encrypted message to write as is, null if the value must be encrypted
+     */
+    Envelope unchanged(final Object value, final JsonStreamContext site, final byte[] plainJson, final int offset, final int length) {
+        if ((null == envelopeTable) || !site.inObject())
+            return null;
+        return unchanged(value, site.getCurrentValue(), site.getCurrentName(), plainJson, offset, length);
+    }
+
+    /**
+     * Decide if a message read by this service can be written out again as is, i.e. it is under the key and cipher suite
+     * the service now encrypts with
+     *
+     * @param envelope Encrypted message
+     * @return True if the message is current
+     */
+    boolean isCurrent(final Envelope envelope) {
+        return cryptoContext.isCurrent(envelope);
+    }
+
+    /**
+     * Get the table of messages remembered for pass through
+     *
+     * @return Table, null if pass through is off
+     */
+    EnvelopeTable getEnvelopeTable() {
+        return envelopeTable;
+    }
+
+    /**
+     * Write an envelope as an encrypted JSON message in the configured form
+     *
+     * @param envelope  Encrypted message
+     * @param generator Generator to write JSON message to
+     * @throws IOException Thrown on any error writing to the generator
+     */
+    void writeEnvelope(final Envelope envelope, final JsonGenerator generator) throws IOException {
+        var variant = mapper.getSerializationConfig().getBase64Variant();
+        if (EnvelopeFormat.COMPACT == envelopeFormat) {
+            var compact = envelope.toCompact();
+            generator.writeBinary(variant, compact, 0, compact.length);
+            return;
+        }
+        generator.writeStartObject();
+        if (null != envelope.keyId())
+            generator.writeStringField(EncryptedJson.KEY_ID, envelope.keyId());
+        if (null != envelope.suite())
+            generator.writeStringField(EncryptedJson.SUITE, envelope.suite().getId());
+        if (null != envelope.kdf())
+            generator.writeStringField(EncryptedJson.KDF, envelope.kdf().getId());
+        generator.writeFieldName(EncryptedJson.SALT);
+        generator.writeBinary(variant, envelope.salt(), 0, envelope.salt().length);
+        generator.writeFieldName(EncryptedJson.IV);
+        generator.writeBinary(variant, envelope.iv(), 0, envelope.iv().length);
+        generator.writeFieldName(EncryptedJson.VALUE);
+        generator.writeBinary(variant, envelope.value(), envelope.valueOffset(), envelope.valueLength());
+        generator.writeEndObject();
+    }
+
+    /**
+     * Read an encrypted JSON message, in either form, directly from the token stream. The parser is left on the last
+     * token of the message
+     *
+     * @param parser JSON parser positioned at the start of the message
+     * @return Encrypted message
+     * @throws IOException         Thrown on any error reading from the parser
+     * @throws EncryptionException Thrown if the message is not correctly structured
+     */
+    Envelope readEnvelope(final JsonParser parser) throws IOException, EncryptionException {
+        var variant = mapper.getDeserializationConfig().getBase64Variant();
+        if (parser.hasToken(JsonToken.VALUE_STRING))
+            return Envelope.ofCompact(parser.getBinaryValue(variant));
+        if (!parser.isExpectedStartObjectToken())
+            throw new EncryptionException("Encrypted JSON is invalid - expected an object or string but found " + parser.currentToken());
+        CipherSuite suite = null;
+        KeyDerivation kdf = null;
+        String keyId = null;
+        byte[] salt = null, iv = null, value = null;
+        String name;
+        while (null != (name = parser.nextFieldName())) {
+            var token = parser.nextToken();
+            if (EncryptedJson.SUITE.equals(name) || EncryptedJson.KDF.equals(name) || EncryptedJson.KEY_ID.equals(name)) {
+                if (JsonToken.VALUE_STRING != token)
+                    throw new EncryptionException("Encrypted JSON is invalid - " + name + " must be a string");
+                if (EncryptedJson.SUITE.equals(name))
+                    suite = CipherSuite.fromId(parser.getText());
+                else if (EncryptedJson.KDF.equals(name))
+                    kdf = KeyDerivation.fromId(parser.getText());
+                else
+                    keyId = parser.getText();
+                continue;
+            }
+            if ((JsonToken.VALUE_STRING != token) && (JsonToken.VALUE_NULL != token))
+                throw new EncryptionException("Encrypted JSON is invalid - " + name + " must be a base 64 string");
+            var bytes = JsonToken.VALUE_NULL == token ? null : parser.getBinaryValue(variant);
+            switch (name) {
+                case EncryptedJson.SALT:
+                    salt = bytes;
+                    break;
+                case EncryptedJson.IV:
+                    iv = bytes;
+                    break;
+                case EncryptedJson.VALUE:
+                    value = bytes;
+                    break;
+                default:
+                    throw new EncryptionException("Encrypted JSON is invalid - unknown field " + name);
+            }
+        }
+        return new Envelope(suite, kdf, keyId, salt, iv, value, 0, null == value ? 0 : value.length);
+    }
+
+    /**
+     * Check the structure of an envelope without logging any problems found
      *
-     * @param encrypted Deserialized encrypted json
-     * @throws EncryptionException Throws in any violation generated from the validator
+     * @param envelope Encrypted message
+     * @return True if the envelope could be decrypted by this service
      */
-    private void validate(final EncryptedJson encrypted) throws EncryptionException {
-        final Set<ConstraintViolation<EncryptedJson>> violations = validator.validate(encrypted);
+    boolean isValid(final Envelope envelope) {
+        try {
+            EnvelopeValidator.forEnvelope(envelope, cryptoContext).validate(envelope);
+            return true;
+        } catch (EncryptionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Validate a message, recording the outcome
+     *
+     * @param envelope Deserialized encrypted json
+     * @param site     Context of the value in the JSON stream, for recording, null if not known
+     * @throws EncryptionException Throws in any violation found
+     */
+    private void validate(final Envelope envelope, final JsonStreamContext site) throws EncryptionException {
+        var event = new ValidateEvent();
+        event.begin();
+        var valid = false;
+        try {
+            validate(envelope);
+            valid = true;
+        } finally {
+            if (event.shouldCommit()) {
+                event.setSite(site);
+                event.messages = 1;
+                event.size = envelope.valueLength();
+                event.valid = valid;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Run the recovered encrypted json through the structural checks, and the supplied validator if any, and log any
+     * errors
+     *
+     * @param envelope Deserialized encrypted json
+     * @throws EncryptionException Throws in any violation found
+     */
+    private void validate(final Envelope envelope) throws EncryptionException {
+        checkStructure(envelope, null == envelope.value() ? -1 : envelope.valueLength());
+        if (null == validator)
+            return;
+        final Set<ConstraintViolation<EncryptedJson>> violations = validator.validate(envelope.toEncryptedJson());
         if (!violations.isEmpty()) {
             String message = "Encrypted JSON is invalid" + getErrors(violations);
             logger.error(message);
+            validationFailed(message);
             throw new EncryptionException(message);
         }
     }
 
+    /**
+     * Run the structural checks on a message, and log any errors
+     *
+     * @param envelope    Encrypted message
+     * @param valueLength Cipher text length, -1 if there is no cipher text
+     * @throws EncryptionException Throws in any violation found
+     */
+    private void checkStructure(final Envelope envelope, final int valueLength) throws EncryptionException {
+        try {
+            EnvelopeValidator.forEnvelope(envelope, cryptoContext).validate(envelope, valueLength);
+        } catch (EncryptionException e) {
+            logger.error(e.getMessage());
+            validationFailed(e.getMessage());
+            throw e;
+        }
+    }
+
+    private void validationFailed(final String message) {
+        var current = listener;
+        if (null != current)
+            current.validationFailed(message);
+    }
+
+    /**
+     * Have an object mapper build and cache the root serializer and deserializer of each class. Building these runs the
+     * module's serializer and deserializer modifiers
+     *
+     * @param objectMapper Object mapper
+     * @param types        Bean classes
+     */
+    private static void warmUpTypes(final ObjectMapper objectMapper, final Collection<Class<?>> types) {
+        for (var type : types) {
+            objectMapper.writerFor(type);
+            objectMapper.readerFor(type);
+        }
+    }
+
+    /**
+     * Encrypt, validate and decrypt a few messages directly on the crypto context, so nothing is reported to a listener
+     *
+     * @throws EncryptionException Thrown on any error
+     */
+    private void warmUpCipher() throws EncryptionException {
+        var data = new byte[64];
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            var envelope = cryptoContext.encryptEnvelope(data, 0, data.length);
+            validate(envelope);
+            cryptoContext.decrypt(envelope);
+        }
+    }
+
+    /**
+     * Apply a batch operation, splitting the batch into one part per executor thread if an executor is supplied and the
+     * batch is large enough
+     *
+     * @param items        Batch
+     * @param executor     Executor to run parts of the batch on, null to run on the calling thread
+     * @param minBatchSize Smallest part of the batch to hand to another thread
+     * @param operation    Operation to apply to each part
+     * @param <T>          Type of batch item
+     * @param <R>          Type of result item
+     * @return Results, in the same order as the batch
+     * @throws EncryptionException Thrown on any error
+     */
+    private static <T, R> List<R> inBatches(final List<T> items, final Executor executor, final int minBatchSize, final Function<List<T>, List<R>> operation)
+            throws EncryptionException {
+        var batches = null == executor ? 1 : Math.min(parallelism(executor), items.size() / minBatchSize);
+        if (batches <= 1)
+            return operation.apply(items);
+        var size = (items.size() + batches - 1) / batches;
+        var futures = new ArrayList<CompletableFuture<List<R>>>(batches);
+        for (int from = 0; from < items.size(); from += size) {
+            var batch = items.subList(from, Math.min(from + size, items.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> operation.apply(batch), executor));
+        }
+        var results = new ArrayList<R>(items.size());
+        try {
+            for (var future : futures)
+                results.addAll(future.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof EncryptionException)
+                throw (EncryptionException) e.getCause();
+            throw new EncryptionException(e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Estimate how many tasks an executor runs at once
+     *
+     * @param executor Executor
+     * @return Pool size where known, otherwise the number of processors
+     */
+    static int parallelism(final Executor executor) {
+        if (executor instanceof ForkJoinPool)
+            return ((ForkJoinPool) executor).getParallelism();
+        if (executor instanceof ThreadPoolExecutor)
+            return ((ThreadPoolExecutor) executor).getMaximumPoolSize();
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Run a task on the service executor
+     *
+     * @param task Task to run
+     * @param <T>  Type of result
+     * @return Future result, completed exceptionally with any exception thrown by the task
+     */
+    private <T> CompletableFuture<T> async(final Callable<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, getExecutor());
+    }
+
     /**
      * Build an error message list of all validation errors found
      *
@@ -173,4 +1119,22 @@ public class EncryptionService {
         return sb.toString();
     }
 
+    /**
+     * Shared bounded pool for asynchronous operations, created on first use
+     */
+    private static final class DefaultExecutor {
+        private static final ExecutorService INSTANCE = create();
+
+        private static ExecutorService create() {
+            var threads = Runtime.getRuntime().availableProcessors();
+            var count = new AtomicInteger();
+            var pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+                var thread = new Thread(task, CryptoModule.ARTIFACT_ID + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
 }
@@ -0,0 +1,380 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Immutable encrypted message passed between the {@link EncryptionService}, crypto contexts and serializers. Unlike
+ * {@link EncryptedJson} no defensive copies are made, the envelope takes ownership of the arrays it is given and they
+ * must not be modified afterwards. The cipher text may be a slice of a larger buffer
+ */
+final class Envelope {
+
+    // Compact form: version, suite, kdf, salt length, salt, iv length, iv, cipher text. Version 2 adds the key id length
+    // and key id after the kdf, and is only written when there is a key id
+    static final byte COMPACT_VERSION = 1;
+    static final byte COMPACT_VERSION_KEY_ID = 2;
+    private static final int COMPACT_HEADER_LENGTH = 5;
+    // Codes for the suite and kdf in the compact form, 0 when not recorded. Never reorder
+    private static final CipherSuite[] COMPACT_SUITES = {null, CipherSuite.AES_CBC, CipherSuite.AES_GCM, CipherSuite.CHACHA20_POLY1305};
+    private static final KeyDerivation[] COMPACT_KDFS = {null, KeyDerivation.PBKDF2, KeyDerivation.HKDF_SHA256};
+
+    private final CipherSuite suite;
+    private final KeyDerivation kdf;
+    private final String keyId;
+    private final byte[] salt;
+    private final byte[] iv;
+    private final byte[] value;
+    private final int valueOffset;
+    private final int valueLength;
+
+    /**
+     * Create an envelope
+     *
+     * @param salt  Salt
+     * @param iv    Initialization vector
+     * @param value Cipher text
+     */
+    Envelope(final byte[] salt, final byte[] iv, final byte[] value) {
+        this(null, salt, iv, value);
+    }
+
+    /**
+     * Create an envelope for a named cipher suite
+     *
+     * @param suite Cipher suite, null if not recorded in the message
+     * @param salt  Salt
+     * @param iv    Initialization vector
+     * @param value Cipher text
+     */
+    Envelope(final CipherSuite suite, final byte[] salt, final byte[] iv, final byte[] value) {
+        this(suite, null, salt, iv, value);
+    }
+
+    /**
+     * Create an envelope for a named cipher suite and key derivation scheme
+     *
+     * @param suite Cipher suite, null if not recorded in the message
+     * @param kdf   Key derivation scheme, null if not recorded in the message
+     * @param salt  Salt
+     * @param iv    Initialization vector
+     * @param value Cipher text
+     */
+    Envelope(final CipherSuite suite, final KeyDerivation kdf, final byte[] salt, final byte[] iv, final byte[] value) {
+        this(suite, kdf, salt, iv, value, 0, null == value ? 0 : value.length);
+    }
+
+    /**
+     * Create an envelope where the cipher text is a slice of a buffer
+     *
+     * @param salt        Salt
+     * @param iv          Initialization vector
+     * @param value       Buffer holding the cipher text
+     * @param valueOffset Offset of cipher text in buffer
+     * @param valueLength Length of cipher text
+     */
+    Envelope(final byte[] salt, final byte[] iv, final byte[] value, final int valueOffset, final int valueLength) {
+        this(null, salt, iv, value, valueOffset, valueLength);
+    }
+
+    /**
+     * Create an envelope for a named cipher suite where the cipher text is a slice of a buffer
+     *
+     * @param suite       Cipher suite, null if not recorded in the message
+     * @param salt        Salt
+     * @param iv          Initialization vector
+     * @param value       Buffer holding the cipher text
+     * @param valueOffset Offset of cipher text in buffer
+     * @param valueLength Length of cipher text
+     */
+    Envelope(final CipherSuite suite, final byte[] salt, final byte[] iv, final byte[] value, final int valueOffset, final int valueLength) {
+        this(suite, null, salt, iv, value, valueOffset, valueLength);
+    }
+
+    /**
+     * Create an envelope for a named cipher suite and key derivation scheme where the cipher text is a slice of a buffer
+     *
+     * @param suite       Cipher suite, null if not recorded in the message
+     * @param kdf         Key derivation scheme, null if not recorded in the message
+     * @param salt        Salt
+     * @param iv          Initialization vector
+     * @param value       Buffer holding the cipher text
+     * @param valueOffset Offset of cipher text in buffer
+     * @param valueLength Length of cipher text
+     */
+    Envelope(final CipherSuite suite, final KeyDerivation kdf, final byte[] salt, final byte[] iv, final byte[] value, final int valueOffset,
+             final int valueLength) {
+        this(suite, kdf, null, salt, iv, value, valueOffset, valueLength);
+    }
+
+    /**
+     * Create an envelope for a named cipher suite, key derivation scheme and key where the cipher text is a slice of a
+     * buffer
+     *
+     * @param suite       Cipher suite, null if not recorded in the message
+     * @param kdf         Key derivation scheme, null if not recorded in the message
+     * @param keyId       Identifier of the key in a key ring, null if not recorded in the message
+     * @param salt        Salt
+     * @param iv          Initialization vector
+     * @param value       Buffer holding the cipher text
+     * @param valueOffset Offset of cipher text in buffer
+     * @param valueLength Length of cipher text
+     */
+    Envelope(final CipherSuite suite, final KeyDerivation kdf, final String keyId, final byte[] salt, final byte[] iv, final byte[] value,
+             final int valueOffset, final int valueLength) {
+        this.suite = suite;
+        this.kdf = kdf;
+        this.keyId = keyId;
+        this.salt = salt;
+        this.iv = iv;
+        this.value = value;
+        this.valueOffset = valueOffset;
+        this.valueLength = valueLength;
+    }
+
+    /**
+     * Wrap the contents of an encrypted JSON message without copying
+     *
+     * @param encrypted Encrypted JSON message
+     * @return Envelope
+     */
+    static Envelope of(final EncryptedJson encrypted) {
+        var suite = null == encrypted.getSuite() ? null : CipherSuite.fromId(encrypted.getSuite());
+        var kdf = null == encrypted.getKdf() ? null : KeyDerivation.fromId(encrypted.getKdf());
+        var value = encrypted.value();
+        return new Envelope(suite, kdf, encrypted.getKid(), encrypted.salt(), encrypted.iv(), value, 0, null == value ? 0 : value.length);
+    }
+
+    /**
+     * Read an envelope from its compact form. The cipher text is a slice of the supplied array, which must not be
+     * modified afterwards
+     *
+     * @param compact Compact form
+     * @return Envelope
+     * @throws EncryptionException Thrown if the compact form is not correctly structured
+     */
+    static Envelope ofCompact(final byte[] compact) throws EncryptionException {
+        var buffer = ByteBuffer.wrap(compact);
+        var header = readCompactHeader(buffer);
+        return new Envelope(header.suite, header.kdf, header.keyId, header.salt, header.iv, compact, buffer.position(), buffer.remaining());
+    }
+
+    /**
+     * Read the header of the compact form, leaving the buffer positioned at the cipher text, which is the rest of the
+     * buffer. The envelope returned has no cipher text
+     *
+     * @param source Buffer holding the compact form
+     * @return Envelope without cipher text
+     * @throws EncryptionException Thrown if the header is not correctly structured
+     */
+    static Envelope readCompactHeader(final ByteBuffer source) throws EncryptionException {
+        if (!source.hasRemaining())
+            throw new EncryptionException("Encrypted JSON is invalid - empty");
+        var version = source.get();
+        if ((COMPACT_VERSION != version) && (COMPACT_VERSION_KEY_ID != version))
+            throw new EncryptionException("Encrypted JSON is invalid - unsupported compact version " + version);
+        if (source.remaining() < COMPACT_HEADER_LENGTH - 1)
+            throw new EncryptionException("Encrypted JSON is invalid - compact value is truncated");
+        var suite = compactCode(COMPACT_SUITES, source.get(), "cipher suite");
+        var kdf = compactCode(COMPACT_KDFS, source.get(), "key derivation");
+        String keyId = null;
+        if (COMPACT_VERSION_KEY_ID == version) {
+            var keyIdBytes = new byte[source.get() & 0xFF];
+            if (keyIdBytes.length + 2 > source.remaining())
+                throw new EncryptionException("Encrypted JSON is invalid - compact value is truncated");
+            source.get(keyIdBytes);
+            keyId = new String(keyIdBytes, StandardCharsets.UTF_8);
+        }
+        var salt = new byte[source.get() & 0xFF];
+        if (salt.length + 1 > source.remaining())
+            throw new EncryptionException("Encrypted JSON is invalid - compact value is truncated");
+        source.get(salt);
+        var iv = new byte[source.get() & 0xFF];
+        if (iv.length > source.remaining())
+            throw new EncryptionException("Encrypted JSON is invalid - compact value is truncated");
+        source.get(iv);
+        return new Envelope(suite, kdf, keyId, salt, iv, null, 0, 0);
+    }
+
+    /**
+     * Convert to the compact form
+     *
+     * @return Compact form
+     * @throws EncryptionException Thrown if the key id, salt or iv are too long to be recorded
+     */
+    byte[] toCompact() throws EncryptionException {
+        var compact = new byte[compactHeaderLength() + valueLength];
+        toCompact(compact);
+        return compact;
+    }
+
+    /**
+     * Write the compact form to the start of an array
+     *
+     * @param target Array to write to, with room for at least {@link #compactHeaderLength()} plus the cipher text
+     * @return Number of bytes written
+     * @throws EncryptionException Thrown if the key id, salt or iv are too long to be recorded
+     */
+    int toCompact(final byte[] target) throws EncryptionException {
+        var compact = ByteBuffer.wrap(target);
+        writeCompactHeader(compact);
+        compact.put(value, valueOffset, valueLength);
+        return compact.position();
+    }
+
+    /**
+     * Get the length of the header of the compact form, i.e. everything before the cipher text
+     *
+     * @return Header length in bytes
+     * @throws EncryptionException Thrown if the key id, salt or iv are too long to be recorded
+     */
+    int compactHeaderLength() throws EncryptionException {
+        return compactHeaderLength(keyId, salt.length, iv.length);
+    }
+
+    /**
+     * Get the length of the header of the compact form for a message not yet started
+     *
+     * @param keyId      Identifier of the key in a key ring, null for none
+     * @param saltLength Length of the salt in bytes
+     * @param ivLength   Length of the iv or nonce in bytes
+     * @return Header length in bytes
+     * @throws EncryptionException Thrown if the key id, salt or iv are too long to be recorded
+     */
+    static int compactHeaderLength(final String keyId, final int saltLength, final int ivLength) throws EncryptionException {
+        var keyIdLength = null == keyId ? 0 : 1 + keyId.getBytes(StandardCharsets.UTF_8).length;
+        if ((saltLength > 0xFF) || (ivLength > 0xFF) || (keyIdLength > 0x100))
+            throw new EncryptionException("Key id, salt and iv must be at most 255 bytes for the compact form");
+        return COMPACT_HEADER_LENGTH + keyIdLength + saltLength + ivLength;
+    }
+
+    /**
+     * Write the header of the compact form, i.e. everything before the cipher text
+     *
+     * @param target Buffer to write to, with at least {@link #compactHeaderLength()} bytes remaining
+     * @throws EncryptionException Thrown if the key id, salt or iv are too long to be recorded
+     */
+    void writeCompactHeader(final ByteBuffer target) throws EncryptionException {
+        compactHeaderLength();
+        target.put(null == keyId ? COMPACT_VERSION : COMPACT_VERSION_KEY_ID);
+        target.put((byte) Arrays.asList(COMPACT_SUITES).indexOf(suite));
+        target.put((byte) Arrays.asList(COMPACT_KDFS).indexOf(kdf));
+        if (null != keyId) {
+            var keyIdBytes = keyId.getBytes(StandardCharsets.UTF_8);
+            target.put((byte) keyIdBytes.length);
+            target.put(keyIdBytes);
+        }
+        target.put((byte) salt.length);
+        target.put(salt);
+        target.put((byte) iv.length);
+        target.put(iv);
+    }
+
+    /**
+     * Copy the envelope, recording the key it was encrypted with. Arrays are shared, not copied
+     *
+     * @param keyId Identifier of the key in a key ring
+     * @return Envelope with key id
+     */
+    Envelope withKeyId(final String keyId) {
+        return new Envelope(suite, kdf, keyId, salt, iv, value, valueOffset, valueLength);
+    }
+
+    /**
+     * Convert to the public encrypted JSON message form. Only a sliced cipher text is copied
+     *
+     * @return Encrypted JSON message
+     */
+    EncryptedJson toEncryptedJson() {
+        var encrypted = new EncryptedJson(salt, iv, isSlice() ? Arrays.copyOfRange(value, valueOffset, valueOffset + valueLength) : value);
+        if (null != suite)
+            encrypted.setSuite(suite.getId());
+        if (null != kdf)
+            encrypted.setKdf(kdf.getId());
+        if (null != keyId)
+            encrypted.setKid(keyId);
+        return encrypted;
+    }
+
+    /**
+     * Get the cipher suite recorded in the message
+     *
+     * @return Cipher suite, null if not recorded
+     */
+    CipherSuite suite() {
+        return suite;
+    }
+
+    /**
+     * Get the key derivation scheme recorded in the message
+     *
+     * @return Key derivation scheme, null if not recorded
+     */
+    KeyDerivation kdf() {
+        return kdf;
+    }
+
+    /**
+     * Get the identifier of the key in a key ring recorded in the message
+     *
+     * @return Key id, null if not recorded
+     */
+    String keyId() {
+        return keyId;
+    }
+
+    byte[] salt() {
+        return salt;
+    }
+
+    byte[] iv() {
+        return iv;
+    }
+
+    byte[] value() {
+        return value;
+    }
+
+    int valueOffset() {
+        return valueOffset;
+    }
+
+    int valueLength() {
+        return valueLength;
+    }
+
+    private static <T> T compactCode(final T[] values, final byte code, final String name) throws EncryptionException {
+        if ((code < 0) || (code >= values.length))
+            throw new EncryptionException("Encrypted JSON is invalid - unknown " + name + " code " + code);
+        return values[code];
+    }
+
+    private boolean isSlice() {
+        return (null != value) && ((0 != valueOffset) || (value.length != valueLength));
+    }
+}
@@ -0,0 +1,167 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Side table from decrypted values to the encrypted messages they were read from. Values are held by identity and
+ * weakly, so an entry goes when its value is garbage collected and a value replaced by an equal copy is not found
+ * <p>
+ * Each message is bound to the field it was read from, i.e. the bean holding the value, also by identity and weakly, and
+ * the field name. A message is only handed back to write that same field, so a value copied into another field, in the
+ * same bean or any other, is encrypted afresh and the output does not show the two fields are equal. Values read from
+ * anywhere other than a bean field, e.g. collection elements, are not remembered
+ * <p>
+ * The plain JSON of each value is kept with its message. A message is only handed back while the value still writes
+ * out the same JSON, so values changed in place are encrypted afresh
+ * <p>
+ * A message must never be handed back for a value that other fields may hold too, as the output would then show the
+ * fields are equal. Known shared values are not remembered, and an instance read from two different messages is taken
+ * to be shared, e.g. a canonical instance handed out by a deserializer, and is never handed back
+ */
+final class EnvelopeTable {
+
+    // Entry for a value read from more than one message
+    private static final Entry SHARED = new Entry(null, null, null, new byte[0]);
+
+    private final ConcurrentHashMap<IdentityKey, Entry> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    /**
+     * Remember the message a value was read from
+     *
+     * @param value     Decrypted value
+     * @param owner     Bean holding the value, null if not held by a bean field
+     * @param name      Name of the field holding the value
+     * @param envelope  Encrypted message
+     * @param plainJson Decrypted JSON the value was read from, kept by the table so must not be changed afterwards
+     */
+    void put(final Object value, final Object owner, final String name, final Envelope envelope, final byte[] plainJson) {
+        expunge();
+        if (isShared(value) || (null == owner) || (null == name))
+            return;
+        entries.merge(new IdentityKey(value, queue), new Entry(envelope, new WeakReference<>(owner), name, plainJson),
+                (previous, entry) -> previous.envelope == entry.envelope ? entry : SHARED);
+    }
+
+    /**
+     * Find the message a value was read from, if it is being written to the field it was read from and is unchanged since
+     *
+     * @param value     Value being written
+     * @param owner     Bean the value is being written from, null if not a bean field
+     * @param name      Name of the field being written
+     * @param plainJson Buffer holding the JSON the value writes out as
+     * @param offset    Offset of JSON in buffer
+     * @param length    Length of JSON in buffer
+     * @return Encrypted message, null if not known, written to another field or the value has changed
+     */
+    Envelope get(final Object value, final Object owner, final String name, final byte[] plainJson, final int offset, final int length) {
+        expunge();
+        if ((null == value) || (null == owner))
+            return null;
+        var entry = entries.get(new IdentityKey(value, null));
+        if ((null == entry) || (SHARED == entry) || (entry.owner.get() != owner) || !entry.name.equals(name) ||
+                !Arrays.equals(entry.plainJson, 0, entry.plainJson.length, plainJson, offset, offset + length))
+            return null;
+        return entry.envelope;
+    }
+
+    /**
+     * Get the number of values held
+     *
+     * @return Number of entries
+     */
+    int size() {
+        expunge();
+        return entries.size();
+    }
+
+    // Internal functionality
+
+    /**
+     * Decide if a value may be the same instance as other, unrelated, values, e.g. cached boxed numbers, enums and the
+     * empty string, which the parser hands out for every empty string value. These are not remembered, as their messages
+     * would be reused for every field holding the same value
+     *
+     * @param value Decrypted value
+     * @return True if the value may be shared
+     */
+    private static boolean isShared(final Object value) {
+        return (null == value) || (value instanceof Number) || (value instanceof Boolean) || (value instanceof Character) || (value instanceof Enum) ||
+                ((value instanceof String) && ((String) value).isEmpty());
+    }
+
+    private void expunge() {
+        Reference<?> reference;
+        while (null != (reference = queue.poll()))
+            entries.remove(reference);
+    }
+
+    /**
+     * Weak reference compared by the identity of its referent
+     */
+    private static final class IdentityKey extends WeakReference<Object> {
+        private final int hash;
+
+        private IdentityKey(final Object value, final ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.hash = System.identityHashCode(value);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other)
+                return true;
+            if (!(other instanceof IdentityKey))
+                return false;
+            var value = get();
+            return (null != value) && (value == ((IdentityKey) other).get());
+        }
+    }
+
+    private static final class Entry {
+        private final Envelope envelope;
+        private final WeakReference<Object> owner;
+        private final String name;
+        private final byte[] plainJson;
+
+        private Entry(final Envelope envelope, final WeakReference<Object> owner, final String name, final byte[] plainJson) {
+            this.envelope = envelope;
+            this.owner = owner;
+            this.name = name;
+            this.plainJson = plainJson;
+        }
+    }
+}
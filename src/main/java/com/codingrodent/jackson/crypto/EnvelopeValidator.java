@@ -0,0 +1,152 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Structural check of an encrypted JSON message against what a crypto context is able to decrypt. A handful of length
+ * comparisons rather than reflective bean validation
+ */
+final class EnvelopeValidator {
+
+    static final int MIN_SALT_LENGTH = 8;
+
+    private static final Map<CipherSuite, EnvelopeValidator> SUITES = new EnumMap<>(CipherSuite.class);
+
+    static {
+        for (var suite : CipherSuite.values())
+            SUITES.put(suite, new EnvelopeValidator(suite.getIvLength(), suite.getBlockSize(), suite.getTagLength()));
+    }
+
+    private final int ivLength;
+    private final int blockSize;
+    private final int minValueLength;
+
+    /**
+     * Create a validator
+     *
+     * @param ivLength  Expected initialization vector length
+     * @param blockSize Block size that cipher text lengths must be a multiple of, 0 if not block aligned
+     */
+    EnvelopeValidator(final int ivLength, final int blockSize) {
+        this(ivLength, blockSize, 0);
+    }
+
+    /**
+     * Create a validator
+     *
+     * @param ivLength       Expected initialization vector length
+     * @param blockSize      Block size that cipher text lengths must be a multiple of, 0 if not block aligned
+     * @param minValueLength Minimum cipher text length, e.g. the authentication tag length
+     */
+    EnvelopeValidator(final int ivLength, final int blockSize, final int minValueLength) {
+        this.ivLength = ivLength;
+        this.blockSize = blockSize;
+        this.minValueLength = minValueLength;
+    }
+
+    /**
+     * Create a validator matching a crypto context. Messages that record a cipher suite are checked against that suite,
+     * others against the context
+     *
+     * @param cryptoContext Context that will decrypt the messages
+     * @return Validator
+     */
+    static EnvelopeValidator forContext(final ICryptoContext cryptoContext) {
+        var suite = cryptoContext.getCipherSuite();
+        // Messages written before suites were recorded are AES/CBC
+        if (null != suite)
+            return SUITES.get(CipherSuite.AES_CBC);
+        return new EnvelopeValidator(cryptoContext.getIv().length, cryptoContext.getBlockSize());
+    }
+
+    /**
+     * Get the validator for a message. Messages that record a cipher suite are checked against that suite, others
+     * against the context that will decrypt them, as it is at the time. The rules are not fixed up front, as the context
+     * may change, e.g. the active key of a key ring
+     *
+     * @param envelope      Encrypted message
+     * @param cryptoContext Context that will decrypt the message
+     * @return Validator
+     * @throws EncryptionException Thrown if no context can decrypt the message, e.g. its key is unknown
+     */
+    static EnvelopeValidator forEnvelope(final Envelope envelope, final ICryptoContext cryptoContext) throws EncryptionException {
+        if (null != envelope.suite())
+            return SUITES.get(envelope.suite());
+        return forContext(cryptoContext.readerFor(envelope));
+    }
+
+    /**
+     * Check the fields of an envelope
+     *
+     * @param envelope Encrypted message
+     * @throws EncryptionException Thrown listing every problem found
+     */
+    void validate(final Envelope envelope) throws EncryptionException {
+        validate(envelope, null == envelope.value() ? -1 : envelope.valueLength());
+    }
+
+    /**
+     * Check the fields of an envelope whose cipher text is held elsewhere, e.g. in a buffer
+     *
+     * @param envelope    Encrypted message
+     * @param valueLength Cipher text length, -1 if there is no cipher text
+     * @throws EncryptionException Thrown listing every problem found
+     */
+    void validate(final Envelope envelope, final int valueLength) throws EncryptionException {
+        var validator = null == envelope.suite() ? this : SUITES.get(envelope.suite());
+        validator.validate(envelope.salt(), envelope.iv(), valueLength);
+    }
+
+    /**
+     * Check the fields of an encrypted JSON message
+     *
+     * @param salt        Salt
+     * @param iv          Initialization vector
+     * @param valueLength Cipher text length, -1 if there is no cipher text
+     * @throws EncryptionException Thrown listing every problem found
+     */
+    void validate(final byte[] salt, final byte[] iv, final int valueLength) throws EncryptionException {
+        var errors = new StringBuilder();
+        if (null == salt)
+            errors.append(" - salt must not be null");
+        else if (salt.length < MIN_SALT_LENGTH)
+            errors.append(" - salt must be at least ").append(MIN_SALT_LENGTH).append(" bytes");
+        if (null == iv)
+            errors.append(" - iv must not be null");
+        else if (iv.length != ivLength)
+            errors.append(" - iv must be ").append(ivLength).append(" bytes");
+        if (valueLength < 0)
+            errors.append(" - value must not be null");
+        else if ((0 == valueLength) || ((blockSize > 0) && (0 != valueLength % blockSize)))
+            errors.append(" - value must be a non empty multiple of ").append(Math.max(blockSize, 1)).append(" bytes");
+        else if (valueLength < minValueLength)
+            errors.append(" - value must be at least ").append(minValueLength).append(" bytes");
+        if (errors.length() > 0)
+            throw new EncryptionException("Encrypted JSON is invalid" + errors);
+    }
+}
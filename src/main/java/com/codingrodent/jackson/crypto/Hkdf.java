@@ -0,0 +1,74 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+
+/**
+ * HMAC based extract and expand key derivation function, HKDF, using HMAC-SHA256 as described in RFC 5869
+ */
+final class Hkdf {
+
+    static final String ALGORITHM = "HmacSHA256";
+    private static final int HASH_LENGTH = 32;
+
+    private Hkdf() {
+    }
+
+    /**
+     * Derive key material
+     *
+     * @param ikm    Input key material, e.g. a master key
+     * @param salt   Salt
+     * @param info   Context specific information, may be empty
+     * @param length Length of key material to derive, at most 255 * 32 bytes
+     * @return Derived key material
+     * @throws GeneralSecurityException HMAC-SHA256 not available
+     */
+    static byte[] derive(final byte[] ikm, final byte[] salt, final byte[] info, final int length) throws GeneralSecurityException {
+        if ((length < 1) || (length > 255 * HASH_LENGTH))
+            throw new EncryptionException("HKDF length must be between 1 and " + 255 * HASH_LENGTH + " bytes");
+        var mac = Mac.getInstance(ALGORITHM);
+        // Extract
+        mac.init(new SecretKeySpec((null == salt) || (0 == salt.length) ? new byte[HASH_LENGTH] : salt, ALGORITHM));
+        var prk = mac.doFinal(ikm);
+        // Expand
+        mac.init(new SecretKeySpec(prk, ALGORITHM));
+        var result = new byte[length];
+        var block = new byte[0];
+        for (int offset = 0, counter = 1; offset < length; counter++) {
+            mac.update(block);
+            mac.update(info);
+            mac.update((byte) counter);
+            block = mac.doFinal();
+            var count = Math.min(block.length, length - offset);
+            System.arraycopy(block, 0, result, offset, count);
+            offset += count;
+        }
+        return result;
+    }
+}
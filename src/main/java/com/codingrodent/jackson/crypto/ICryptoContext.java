@@ -24,6 +24,9 @@ THE SOFTWARE.
 
 package com.codingrodent.jackson.crypto;
 
+import java.nio.ByteBuffer;
+import java.util.*;
+
 /**
  * Interface defining required core crypto functionality
  */
@@ -37,6 +40,16 @@ interface ICryptoContext {
      */
     byte[] decrypt(EncryptedJson value);
 
+    /**
+     * Decrypt an envelope
+     *
+     * @param envelope Encrypted message
+     * @return Decrypted byte array
+     */
+    default byte[] decrypt(Envelope envelope) {
+        return decrypt(envelope.toEncryptedJson());
+    }
+
     /**
      * Encrypted a string as a byte array and encode using base 64
      *
@@ -45,6 +58,70 @@ interface ICryptoContext {
      */
     byte[] encrypt(byte[] source);
 
+    /**
+     * Encrypt part of a byte array
+     *
+     * @param source Byte array holding data to be encrypted
+     * @param offset Offset of data in source
+     * @param length Length of data in source
+     * @return Encrypted data
+     */
+    default byte[] encrypt(byte[] source, int offset, int length) {
+        return encrypt(Arrays.copyOfRange(source, offset, offset + length));
+    }
+
+    /**
+     * Encrypt part of a byte array into an envelope holding everything needed to decrypt it again
+     *
+     * @param source Byte array holding data to be encrypted
+     * @param offset Offset of data in source
+     * @param length Length of data in source
+     * @return Encrypted message
+     */
+    default Envelope encryptEnvelope(byte[] source, int offset, int length) {
+        return new Envelope(getSalt(), getIv(), encrypt(source, offset, length));
+    }
+
+    /**
+     * Encrypt part of a byte array into an envelope, writing the cipher text to the start of the target array if it is
+     * large enough. Unless overridden, a new array is always used
+     *
+     * @param source Byte array holding data to be encrypted
+     * @param offset Offset of data in source
+     * @param length Length of data in source
+     * @param target Array to write the cipher text to
+     * @return Encrypted message, only valid until the target array is reused
+     */
+    default Envelope encryptEnvelope(byte[] source, int offset, int length, byte[] target) {
+        return encryptEnvelope(source, offset, length);
+    }
+
+    /**
+     * Encrypt a batch of byte arrays into envelopes
+     *
+     * @param sources Byte arrays to be encrypted
+     * @return Encrypted messages, in the same order as the sources
+     */
+    default List<Envelope> encryptEnvelopes(List<byte[]> sources) {
+        var envelopes = new ArrayList<Envelope>(sources.size());
+        for (var source : sources)
+            envelopes.add(encryptEnvelope(source, 0, source.length));
+        return envelopes;
+    }
+
+    /**
+     * Decrypt a batch of envelopes
+     *
+     * @param envelopes Encrypted messages
+     * @return Decrypted byte arrays, in the same order as the envelopes
+     */
+    default List<byte[]> decryptEnvelopes(List<Envelope> envelopes) {
+        var results = new ArrayList<byte[]>(envelopes.size());
+        for (var envelope : envelopes)
+            results.add(decrypt(envelope));
+        return results;
+    }
+
     /**
      * Get the initialization vector
      *
@@ -59,4 +136,113 @@ interface ICryptoContext {
      */
     byte[] getSalt();
 
+    /**
+     * Get the block size that cipher text lengths are always a multiple of
+     *
+     * @return Block size in bytes, 0 if cipher text is not block aligned
+     */
+    default int getBlockSize() {
+        return 0;
+    }
+
+    /**
+     * Get the cipher suite used to encrypt
+     *
+     * @return Cipher suite, null if a custom cipher is used
+     */
+    default CipherSuite getCipherSuite() {
+        return null;
+    }
+
+    /**
+     * Get the context that decrypts a message, e.g. the member of a key ring holding its key
+     *
+     * @param envelope Encrypted message
+     * @return Context, this one unless overridden
+     * @throws EncryptionException Thrown if no context can decrypt the message
+     */
+    default ICryptoContext readerFor(Envelope envelope) throws EncryptionException {
+        return this;
+    }
+
+    /**
+     * Decide if a message read by this context is still as it would be written now, i.e. it would be decrypted by the
+     * same key the context encrypts with, using the same cipher suite and key derivation. Such a message can be written
+     * out again as is rather than encrypting the value afresh
+     *
+     * @param envelope Encrypted message read by this context
+     * @return True if the message is current, false if unknown
+     */
+    default boolean isCurrent(Envelope envelope) {
+        return false;
+    }
+
+    /**
+     * Set the listener told about key derivations made by the context
+     *
+     * @param listener Listener, null for none
+     */
+    default void setCryptoListener(CryptoListener listener) {
+    }
+
+    /**
+     * Derive ahead of time the keys needed to read messages written by this context's settings with the given salts, so
+     * the first read of each does not pay for key derivation
+     *
+     * @param salts Salts of messages expected to be read
+     * @throws EncryptionException Thrown on any error
+     */
+    default void preloadKeys(Collection<byte[]> salts) throws EncryptionException {
+    }
+
+    /**
+     * Start a new message, choosing the salt and iv or nonce it is encrypted with
+     *
+     * @return Envelope without cipher text, to pass to {@link #encrypt(Envelope, ByteBuffer, ByteBuffer)}
+     * @throws EncryptionException Thrown if the context cannot encrypt buffers
+     */
+    default Envelope newHeader() throws EncryptionException {
+        throw new EncryptionException("Crypto context does not support encrypting buffers");
+    }
+
+    /**
+     * Get the length of the compact header of messages started by {@link #newHeader()}, without starting one
+     *
+     * @param keyId Identifier of the key in a key ring recorded in the header, null for none
+     * @return Header length in bytes
+     * @throws EncryptionException Thrown if the context cannot encrypt buffers
+     */
+    default int compactHeaderLength(String keyId) throws EncryptionException {
+        throw new EncryptionException("Crypto context does not support encrypting buffers");
+    }
+
+    /**
+     * Encrypt the remaining bytes of a buffer into another
+     *
+     * @param header Message started by {@link #newHeader()}
+     * @param source Buffer holding the data to encrypt
+     * @param target Buffer to write the cipher text to
+     * @return Number of bytes written
+     * @throws EncryptionException Thrown on any error
+     */
+    default int encrypt(Envelope header, ByteBuffer source, ByteBuffer target) throws EncryptionException {
+        throw new EncryptionException("Crypto context does not support encrypting buffers");
+    }
+
+    /**
+     * Decrypt the remaining bytes of a buffer into another. Unless overridden, the cipher text is copied to the heap
+     *
+     * @param header Message header read from the buffer
+     * @param source Buffer holding the cipher text
+     * @param target Buffer to write the decrypted data to
+     * @return Number of bytes written
+     * @throws EncryptionException Thrown on any error
+     */
+    default int decrypt(Envelope header, ByteBuffer source, ByteBuffer target) throws EncryptionException {
+        var value = new byte[source.remaining()];
+        source.get(value);
+        var decrypted = decrypt(new Envelope(header.suite(), header.kdf(), header.keyId(), header.salt(), header.iv(), value, 0, value.length));
+        target.put(decrypted);
+        return decrypted.length;
+    }
 }
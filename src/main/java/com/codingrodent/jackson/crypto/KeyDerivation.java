@@ -0,0 +1,72 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+/**
+ * Schemes used to derive the key for a message from a password and the message salt
+ */
+public enum KeyDerivation {
+
+    /**
+     * Password stretched with the context's key algorithm, e.g. PBKDF2WithHmacSHA512, for every salt. The original
+     * scheme, assumed when the encrypted JSON does not record one
+     */
+    PBKDF2("PBKDF2"),
+    /**
+     * Password stretched once per context, with a shared master salt, into a master key. Keys for each salt are then
+     * derived from the master key with HKDF-SHA256 (RFC 5869), which is cheap
+     */
+    HKDF_SHA256("HKDF-SHA256");
+
+    private final String id;
+
+    KeyDerivation(final String id) {
+        this.id = id;
+    }
+
+    /**
+     * Find the scheme with the identifier written to encrypted JSON
+     *
+     * @param id Scheme identifier, e.g. HKDF-SHA256
+     * @return Key derivation scheme
+     * @throws EncryptionException Thrown if the identifier is not recognised
+     */
+    public static KeyDerivation fromId(final String id) throws EncryptionException {
+        for (var kdf : values()) {
+            if (kdf.id.equals(id))
+                return kdf;
+        }
+        throw new EncryptionException("Unknown key derivation " + id);
+    }
+
+    /**
+     * Get the identifier written to encrypted JSON
+     *
+     * @return Identifier, e.g. HKDF-SHA256
+     */
+    public String getId() {
+        return id;
+    }
+}
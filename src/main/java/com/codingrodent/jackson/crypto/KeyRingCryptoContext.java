@@ -0,0 +1,456 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Crypto context holding several keys, each a crypto context of its own, identified by a key id. Messages are encrypted
+ * with the active key and record its id, so when decrypting the key is found with a single lookup rather than by trying
+ * each key in turn. This allows keys to be rotated while data written with older keys is still read at full speed
+ * <p>
+ * Each key keeps its own derived keys and ciphers, so they stay warm across rotations. Messages that do not record a key
+ * id, e.g. those written before a key ring was used, are decrypted with the key the ring was created with, whichever key
+ * is active later. Lookups do not lock, changes to the ring replace it as a whole
+ */
+public class KeyRingCryptoContext implements ICryptoContext {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Ring ring;
+    // guarded by lock
+    private CryptoListener listener;
+
+    /**
+     * Create a key ring holding a single, active, key. This key is also used for messages that do not record a key id
+     *
+     * @param keyId   Identifier of the key
+     * @param context Crypto context for the key
+     * @throws EncryptionException Thrown if the key id or context are not valid
+     */
+    public KeyRingCryptoContext(final String keyId, final ICryptoContext context) throws EncryptionException {
+        checkKey(keyId, context);
+        this.ring = new Ring(Map.of(keyId, context), keyId, keyId);
+    }
+
+    /**
+     * Add a key to the ring, or replace a key with the same id. The active key is unchanged unless it is the key replaced
+     *
+     * @param keyId   Identifier of the key
+     * @param context Crypto context for the key
+     * @return Updated key ring
+     * @throws EncryptionException Thrown if the key id or context are not valid
+     */
+    public KeyRingCryptoContext addKey(final String keyId, final ICryptoContext context) throws EncryptionException {
+        checkKey(keyId, context);
+        lock.lock();
+        try {
+            var keys = new HashMap<>(ring.keys);
+            keys.put(keyId, context);
+            if (null != listener)
+                context.setCryptoListener(listener);
+            ring = new Ring(Map.copyOf(keys), ring.activeKeyId, ring.defaultKeyId);
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * Remove a key from the ring. Data encrypted with the key can no longer be read, nor can messages without a key id if
+     * it is the key the ring was created with
+     *
+     * @param keyId Identifier of the key
+     * @return Updated key ring
+     * @throws EncryptionException Thrown if the key is not in the ring or is the active key
+     */
+    public KeyRingCryptoContext removeKey(final String keyId) throws EncryptionException {
+        lock.lock();
+        try {
+            if (!ring.keys.containsKey(keyId))
+                throw new EncryptionException("Unknown key id " + keyId);
+            if (ring.activeKeyId.equals(keyId))
+                throw new EncryptionException("Active key cannot be removed");
+            var keys = new HashMap<>(ring.keys);
+            keys.remove(keyId);
+            ring = new Ring(Map.copyOf(keys), ring.activeKeyId, ring.defaultKeyId);
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * Set the key used to encrypt
+     *
+     * @param keyId Identifier of the key
+     * @throws EncryptionException Thrown if the key is not in the ring
+     */
+    public void setActiveKey(final String keyId) throws EncryptionException {
+        lock.lock();
+        try {
+            if (!ring.keys.containsKey(keyId))
+                throw new EncryptionException("Unknown key id " + keyId);
+            ring = new Ring(ring.keys, keyId, ring.defaultKeyId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the identifier of the key used to encrypt
+     *
+     * @return Key id
+     */
+    public String getActiveKeyId() {
+        return ring.activeKeyId;
+    }
+
+    /**
+     * Get the identifier of the key used for messages that do not record a key id, i.e. the key the ring was created with
+     *
+     * @return Key id
+     */
+    public String getDefaultKeyId() {
+        return ring.defaultKeyId;
+    }
+
+    /**
+     * Get the identifiers of all keys in the ring
+     *
+     * @return Key ids
+     */
+    public Set<String> getKeyIds() {
+        return ring.keys.keySet();
+    }
+
+    /**
+     * Decrypt an encrypted JSON object. Contains salt and iv as fields
+     *
+     * @param value JSON data
+     * @return Decrypted byte array
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public byte[] decrypt(final EncryptedJson value) throws EncryptionException {
+        return decrypt(Envelope.of(value));
+    }
+
+    /**
+     * Decrypt an envelope with the key it records, or the default key if it records none
+     *
+     * @param envelope Encrypted message
+     * @return Decrypted byte array
+     * @throws EncryptionException Thrown if the key is not in the ring or decryption fails
+     */
+    @Override
+    public byte[] decrypt(final Envelope envelope) throws EncryptionException {
+        return ring.contextFor(envelope).decrypt(envelope);
+    }
+
+    /**
+     * Get the key that decrypts a message, i.e. the key it records, or the default key if it records none
+     *
+     * @param envelope Encrypted message
+     * @return Context for the key
+     * @throws EncryptionException Thrown if the key is not in the ring
+     */
+    @Override
+    public ICryptoContext readerFor(final Envelope envelope) throws EncryptionException {
+        return ring.contextFor(envelope);
+    }
+
+    /**
+     * Decrypt a batch of envelopes. Each run of messages with the same key is passed to that key as a batch
+     *
+     * @param envelopes Encrypted messages
+     * @return Decrypted byte arrays, in the same order as the envelopes
+     * @throws EncryptionException Thrown if a key is not in the ring or decryption fails
+     */
+    @Override
+    public List<byte[]> decryptEnvelopes(final List<Envelope> envelopes) throws EncryptionException {
+        var current = ring;
+        var results = new ArrayList<byte[]>(envelopes.size());
+        var from = 0;
+        while (from < envelopes.size()) {
+            var keyId = envelopes.get(from).keyId();
+            var to = from + 1;
+            while ((to < envelopes.size()) && Objects.equals(keyId, envelopes.get(to).keyId()))
+                to++;
+            results.addAll(current.contextFor(envelopes.get(from)).decryptEnvelopes(envelopes.subList(from, to)));
+            from = to;
+        }
+        return results;
+    }
+
+    /**
+     * Encrypt with the active key. The result does not record the key, so encrypt to an envelope where possible
+     *
+     * @param source Byte array to be encrypted
+     * @return Encrypted data
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public byte[] encrypt(final byte[] source) throws EncryptionException {
+        return ring.active.encrypt(source);
+    }
+
+    /**
+     * Encrypt part of a byte array with the active key. The result does not record the key, so encrypt to an envelope
+     * where possible
+     *
+     * @param source Byte array holding data to be encrypted
+     * @param offset Offset of data in source
+     * @param length Length of data in source
+     * @return Encrypted data
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public byte[] encrypt(final byte[] source, final int offset, final int length) throws EncryptionException {
+        return ring.active.encrypt(source, offset, length);
+    }
+
+    /**
+     * Encrypt part of a byte array into an envelope with the active key, recording its key id
+     *
+     * @param source Byte array holding data to be encrypted
+     * @param offset Offset of data in source
+     * @param length Length of data in source
+     * @return Encrypted message
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public Envelope encryptEnvelope(final byte[] source, final int offset, final int length) throws EncryptionException {
+        var current = ring;
+        return current.active.encryptEnvelope(source, offset, length).withKeyId(current.activeKeyId);
+    }
+
+    /**
+     * Encrypt part of a byte array into an envelope with the active key, recording its key id. The cipher text is written
+     * to the start of the target array if it is large enough
+     *
+     * @param source Byte array holding data to be encrypted
+     * @param offset Offset of data in source
+     * @param length Length of data in source
+     * @param target Array to write the cipher text to
+     * @return Encrypted message, only valid until the target array is reused
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public Envelope encryptEnvelope(final byte[] source, final int offset, final int length, final byte[] target) throws EncryptionException {
+        var current = ring;
+        return current.active.encryptEnvelope(source, offset, length, target).withKeyId(current.activeKeyId);
+    }
+
+    /**
+     * Encrypt a batch of byte arrays into envelopes with the active key, recording its key id
+     *
+     * @param sources Byte arrays to be encrypted
+     * @return Encrypted messages, in the same order as the sources
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public List<Envelope> encryptEnvelopes(final List<byte[]> sources) throws EncryptionException {
+        var current = ring;
+        var envelopes = current.active.encryptEnvelopes(sources);
+        var results = new ArrayList<Envelope>(envelopes.size());
+        for (var envelope : envelopes)
+            results.add(envelope.withKeyId(current.activeKeyId));
+        return results;
+    }
+
+    /**
+     * Get the initialization vector of the active key
+     *
+     * @return Vector as byte array
+     */
+    @Override
+    public byte[] getIv() {
+        return ring.active.getIv();
+    }
+
+    /**
+     * Get the salt of the active key
+     *
+     * @return Salt as byte array
+     */
+    @Override
+    public byte[] getSalt() {
+        return ring.active.getSalt();
+    }
+
+    /**
+     * Get the block size of the active key
+     *
+     * @return Block size in bytes, 0 if cipher text is not block aligned
+     */
+    @Override
+    public int getBlockSize() {
+        return ring.active.getBlockSize();
+    }
+
+    /**
+     * Get the cipher suite of the active key
+     *
+     * @return Cipher suite, null if a custom cipher is used
+     */
+    @Override
+    public CipherSuite getCipherSuite() {
+        return ring.active.getCipherSuite();
+    }
+
+    /**
+     * Decide if a message is as this context would write it, i.e. it was encrypted with the active key and is current
+     * for that key's context
+     *
+     * @param envelope Encrypted message read by this context
+     * @return True if the message is current
+     */
+    @Override
+    public boolean isCurrent(final Envelope envelope) {
+        var current = ring;
+        return current.activeKeyId.equals(envelope.keyId()) && current.active.isCurrent(envelope.withKeyId(null));
+    }
+
+    /**
+     * Set the listener told about key derivations made by any key in the ring, including keys added later
+     *
+     * @param listener Listener, null for none
+     */
+    @Override
+    public void setCryptoListener(final CryptoListener listener) {
+        lock.lock();
+        try {
+            this.listener = listener;
+            ring.keys.values().forEach(context -> context.setCryptoListener(listener));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Derive ahead of time the read keys for the given salts in every key of the ring, as a salt does not say which key
+     * it belongs to
+     *
+     * @param salts Salts of messages expected to be read
+     * @throws EncryptionException Thrown on any error
+     */
+    @Override
+    public void preloadKeys(final Collection<byte[]> salts) throws EncryptionException {
+        for (var context : ring.keys.values())
+            context.preloadKeys(salts);
+    }
+
+    /**
+     * Start a new message with the active key, recording its id
+     *
+     * @return Envelope without cipher text
+     * @throws EncryptionException Thrown if the active key cannot encrypt buffers
+     */
+    @Override
+    public Envelope newHeader() throws EncryptionException {
+        var current = ring;
+        return current.active.newHeader().withKeyId(current.activeKeyId);
+    }
+
+    /**
+     * Get the length of the compact header of a new message with the active key, recording its id
+     *
+     * @param keyId Ignored, as the id of the active key is always recorded
+     * @return Header length in bytes
+     * @throws EncryptionException Thrown if the active key cannot encrypt buffers
+     */
+    @Override
+    public int compactHeaderLength(final String keyId) throws EncryptionException {
+        var current = ring;
+        return current.active.compactHeaderLength(current.activeKeyId);
+    }
+
+    /**
+     * Encrypt the remaining bytes of a buffer into another with the key the message was started with
+     *
+     * @param header Message started by {@link #newHeader()}
+     * @param source Buffer holding the data to encrypt
+     * @param target Buffer to write the cipher text to
+     * @return Number of bytes written
+     * @throws EncryptionException Thrown on any error, or if the key has been removed
+     */
+    @Override
+    public int encrypt(final Envelope header, final ByteBuffer source, final ByteBuffer target) throws EncryptionException {
+        return ring.contextFor(header).encrypt(header, source, target);
+    }
+
+    /**
+     * Decrypt the remaining bytes of a buffer into another with the key recorded in the message
+     *
+     * @param header Message header read from the buffer
+     * @param source Buffer holding the cipher text
+     * @param target Buffer to write the decrypted data to
+     * @return Number of bytes written
+     * @throws EncryptionException Thrown on any error, or if the key id is unknown
+     */
+    @Override
+    public int decrypt(final Envelope header, final ByteBuffer source, final ByteBuffer target) throws EncryptionException {
+        return ring.contextFor(header).decrypt(header, source, target);
+    }
+
+    // Internal functionality
+
+    private void checkKey(final String keyId, final ICryptoContext context) throws EncryptionException {
+        if ((null == keyId) || keyId.isEmpty() || (keyId.getBytes(StandardCharsets.UTF_8).length > 0xFF))
+            throw new EncryptionException("Key id must be between 1 and 255 bytes");
+        if (null == context)
+            throw new EncryptionException("Crypto context cannot be null");
+        if (this == context)
+            throw new EncryptionException("Key ring cannot hold itself");
+    }
+
+    /**
+     * Immutable keys, active key and key for messages without a key id
+     */
+    private static final class Ring {
+        private final Map<String, ICryptoContext> keys;
+        private final String activeKeyId;
+        private final String defaultKeyId;
+        private final ICryptoContext active;
+
+        private Ring(final Map<String, ICryptoContext> keys, final String activeKeyId, final String defaultKeyId) {
+            this.keys = keys;
+            this.activeKeyId = activeKeyId;
+            this.defaultKeyId = defaultKeyId;
+            this.active = keys.get(activeKeyId);
+        }
+
+        private ICryptoContext contextFor(final Envelope envelope) throws EncryptionException {
+            var keyId = null == envelope.keyId() ? defaultKeyId : envelope.keyId();
+            var context = keys.get(keyId);
+            if (null == context)
+                throw new EncryptionException("Unknown key id " + keyId);
+            return context;
+        }
+    }
+}
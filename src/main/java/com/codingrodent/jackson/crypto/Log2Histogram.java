@@ -0,0 +1,116 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of non negative values, e.g. nanosecond timings, in power of two buckets. Recording is one striped
+ * counter increment, so many threads can record at once without contending. Percentiles are accurate to within a factor
+ * of two, which is plenty to tell a cipher call from a key derivation
+ */
+final class Log2Histogram {
+
+    private static final int BUCKETS = Long.SIZE;
+
+    // bucket i counts values v where 2^(i-1) <= v < 2^i, bucket 0 counts zero
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    Log2Histogram() {
+        for (int i = 0; i < BUCKETS; i++)
+            buckets[i] = new LongAdder();
+    }
+
+    /**
+     * Record a value
+     *
+     * @param value Value, negative values are recorded as zero
+     */
+    void record(final long value) {
+        var recorded = Math.max(value, 0);
+        buckets[Long.SIZE - Long.numberOfLeadingZeros(recorded)].increment();
+        count.increment();
+        total.add(recorded);
+        max.accumulate(recorded);
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getTotal() {
+        return total.sum();
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Get the mean of the values recorded
+     *
+     * @return Mean, 0 if nothing is recorded
+     */
+    long getMean() {
+        var n = count.sum();
+        return 0 == n ? 0 : total.sum() / n;
+    }
+
+    /**
+     * Get an upper bound for a percentile of the values recorded
+     *
+     * @param percentile Percentile, e.g. 99.0
+     * @return Upper bound of the bucket holding the percentile, never more than the maximum recorded, 0 if nothing is
+     * recorded
+     */
+    long getPercentile(final double percentile) {
+        var counts = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            n += counts[i] = buckets[i].sum();
+        if (0 == n)
+            return 0;
+        var rank = (long) Math.ceil(n * Math.min(Math.max(percentile, 0), 100) / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if ((seen >= rank) && (counts[i] > 0))
+                return Math.min((1L << i) - 1, max.get());
+        }
+        return max.get();
+    }
+
+    void reset() {
+        for (var bucket : buckets)
+            bucket.reset();
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+}
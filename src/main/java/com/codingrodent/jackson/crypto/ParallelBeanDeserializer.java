@@ -0,0 +1,152 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import com.codingrodent.jackson.crypto.EncryptedDeserializerModifier.DeferredProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Bean deserializer wrapper that decrypts all the {@link Encrypt} marked fields of a bean in parallel once the bean has
+ * been read. While the bean is read its marked properties only collect their encrypted messages, held as a
+ * deserialization context attribute. The values are then decrypted on the executor, and read and set on the calling
+ * thread in the order they appeared
+ */
+final class ParallelBeanDeserializer extends DelegatingDeserializer {
+
+    private static final long serialVersionUID = 1L;
+    // Fields of a bean may be decrypted together on a single thread
+    private static final int MIN_BATCH_SIZE = 1;
+
+    private final transient Executor executor;
+
+    /**
+     * Create a deserializer
+     *
+     * @param delegate Bean deserializer to wrap
+     * @param executor Executor to decrypt fields on
+     */
+    ParallelBeanDeserializer(final JsonDeserializer<?> delegate, final Executor executor) {
+        super(delegate);
+        this.executor = executor;
+    }
+
+    /**
+     * Get the collected fields of the bean being read
+     *
+     * @param context Deserialization context
+     * @return Fields, null if no bean is being read by this deserializer
+     */
+    static DeferredFields deferred(final DeserializationContext context) {
+        return (DeferredFields) context.getAttribute(DeferredFields.class);
+    }
+
+    @Override
+    protected JsonDeserializer<?> newDelegatingInstance(final JsonDeserializer<?> newDelegatee) {
+        return new ParallelBeanDeserializer(newDelegatee, executor);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Read the bean and then decrypt and set the marked fields
+     */
+    @Override
+    public Object deserialize(final JsonParser parser, final DeserializationContext context) throws IOException {
+        var fields = new DeferredFields();
+        var previous = context.getAttribute(DeferredFields.class);
+        context.setAttribute(DeferredFields.class, fields);
+        Object bean;
+        try {
+            bean = _delegatee.deserialize(parser, context);
+        } finally {
+            context.setAttribute(DeferredFields.class, previous);
+        }
+        fields.decrypt(context, executor);
+        return bean;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Update the bean and then decrypt and set the marked fields
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object deserialize(final JsonParser parser, final DeserializationContext context, final Object intoValue) throws IOException {
+        var fields = new DeferredFields();
+        var previous = context.getAttribute(DeferredFields.class);
+        context.setAttribute(DeferredFields.class, fields);
+        Object bean;
+        try {
+            bean = ((JsonDeserializer<Object>) _delegatee).deserialize(parser, context, intoValue);
+        } finally {
+            context.setAttribute(DeferredFields.class, previous);
+        }
+        fields.decrypt(context, executor);
+        return bean;
+    }
+
+    /**
+     * Encrypted fields collected while a bean is read
+     */
+    static final class DeferredFields {
+        private final List<DeferredProperty> properties = new ArrayList<>();
+        private final List<Object> instances = new ArrayList<>();
+        private final List<Envelope> envelopes = new ArrayList<>();
+
+        void add(final DeferredProperty property, final Object instance, final Envelope envelope) {
+            properties.add(property);
+            instances.add(instance);
+            envelopes.add(envelope);
+        }
+
+        /**
+         * Decrypt all the fields on an executor and set them in the order they were read
+         *
+         * @param context  Deserialization context
+         * @param executor Executor to decrypt fields on
+         * @throws EncryptionException Thrown on any error
+         */
+        private void decrypt(final DeserializationContext context, final Executor executor) throws EncryptionException {
+            if (envelopes.isEmpty())
+                return;
+            try {
+                var decrypted = properties.get(0).getEncryptionService().decryptEnvelopes(envelopes, executor, MIN_BATCH_SIZE, instances.get(0).getClass());
+                for (int i = 0; i < decrypted.size(); i++)
+                    properties.get(i).setDecrypted(instances.get(i), envelopes.get(i), decrypted.get(i), context);
+            } catch (Exception e) {
+                throw new EncryptionException("Unable to decrypt document", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import com.codingrodent.jackson.crypto.EncryptedSerializerModifier.EncryptedPropertyWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Bean serializer wrapper that encrypts all the {@link Encrypt} marked fields of a bean in parallel before the bean is
+ * written. The plain JSON of each field is still written on the calling thread, only the cipher work is handed to the
+ * executor. The envelopes are kept as a serializer provider attribute for the field writers to pick up, so the output
+ * is the same as when each field is encrypted as it is written
+ * <p>
+ * Only fields written in the active view are encrypted ahead of time. A bean with a property filter decides its fields
+ * as it is written, so its fields are encrypted as they are written instead
+ */
+final class ParallelBeanSerializer extends DelegatingBeanSerializer {
+
+    // Fields of a bean may be encrypted together on a single thread
+    private static final int MIN_BATCH_SIZE = 1;
+
+    private final Executor executor;
+    private final boolean filtered;
+    private final List<EncryptedPropertyWriter> writers;
+    private final ConcurrentHashMap<Class<?>, List<EncryptedPropertyWriter>> viewWriters = new ConcurrentHashMap<>();
+
+    /**
+     * Create a serializer
+     *
+     * @param delegate Bean serializer to wrap
+     * @param executor Executor to encrypt fields on
+     * @param filtered True if the bean has a property filter, which decides the fields written as the bean is written
+     */
+    ParallelBeanSerializer(final JsonSerializer<?> delegate, final Executor executor, final boolean filtered) {
+        super(delegate);
+        this.executor = executor;
+        this.filtered = filtered;
+        this.writers = encryptedWriters(delegate);
+    }
+
+    /**
+     * Find the field writers of a bean serializer that encrypt
+     *
+     * @param serializer Bean serializer
+     * @return Writers for {@link Encrypt} marked fields
+     */
+    static List<EncryptedPropertyWriter> encryptedWriters(final JsonSerializer<?> serializer) {
+        var writers = new ArrayList<EncryptedPropertyWriter>();
+        var it = serializer.properties();
+        while (it.hasNext()) {
+            var property = it.next();
+            if (property instanceof EncryptedPropertyWriter)
+                writers.add((EncryptedPropertyWriter) property);
+        }
+        return writers;
+    }
+
+    /**
+     * Get the envelope encrypted ahead of time for a field of the bean being written
+     *
+     * @param bean     Bean holding the field
+     * @param writer   Field writer
+     * @param provider Serializer provider
+     * @return Encrypted message, null if the field was not encrypted ahead of time
+     */
+    static Envelope encrypted(final Object bean, final BeanPropertyWriter writer, final SerializerProvider provider) {
+        var fields = (EncryptedFields) provider.getAttribute(EncryptedFields.class);
+        return ((null == fields) || (fields.bean != bean)) ? null : fields.envelopes.get(writer);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Encrypt the marked fields and then write the bean
+     */
+    @Override
+    public void serialize(final Object value, final JsonGenerator generator, final SerializerProvider provider) throws IOException {
+        var previous = provider.getAttribute(EncryptedFields.class);
+        provider.setAttribute(EncryptedFields.class, filtered ? null : encryptFields(value, generator, provider));
+        try {
+            delegate.serialize(value, generator, provider);
+        } finally {
+            provider.setAttribute(EncryptedFields.class, previous);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Encrypt the marked fields and then write the bean with type information
+     */
+    @Override
+    public void serializeWithType(final Object value, final JsonGenerator generator, final SerializerProvider provider, final TypeSerializer typeSerializer)
+            throws IOException {
+        var previous = provider.getAttribute(EncryptedFields.class);
+        provider.setAttribute(EncryptedFields.class, filtered ? null : encryptFields(value, generator, provider));
+        try {
+            delegate.serializeWithType(value, generator, provider, typeSerializer);
+        } finally {
+            provider.setAttribute(EncryptedFields.class, previous);
+        }
+    }
+
+    @Override
+    protected JsonSerializer<?> withDelegate(final JsonSerializer<?> delegate) {
+        return new ParallelBeanSerializer(delegate, executor, filtered);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A property may give the bean a property filter of its own
+     */
+    @Override
+    public JsonSerializer<?> createContextual(final SerializerProvider provider, final BeanProperty property) throws JsonMappingException {
+        var contextual = super.createContextual(provider, property);
+        if (filtered || (null == property) || (null == property.getMember()) || (null == provider.getAnnotationIntrospector().findFilterId(property.getMember())))
+            return contextual;
+        return new ParallelBeanSerializer(((DelegatingBeanSerializer) contextual).delegate, executor, true);
+    }
+
+    // Internal functionality
+
+    /**
+     * Find the marked fields written in a view, as the bean serializer decides them
+     *
+     * @param view     Active view, null if none
+     * @param provider Serializer provider
+     * @return Field writers
+     */
+    private List<EncryptedPropertyWriter> writers(final Class<?> view, final SerializerProvider provider) {
+        if (null == view)
+            return writers;
+        return viewWriters.computeIfAbsent(view, v -> {
+            var includeByDefault = provider.isEnabled(MapperFeature.DEFAULT_VIEW_INCLUSION);
+            var inView = new ArrayList<EncryptedPropertyWriter>(writers.size());
+            for (var writer : writers) {
+                var views = writer.getViews();
+                if (((null == views) || (0 == views.length)) ? includeByDefault : Arrays.stream(views).anyMatch(w -> w.isAssignableFrom(v)))
+                    inView.add(writer);
+            }
+            return inView;
+        });
+    }
+
+    /**
+     * Write the plain JSON of each marked field written in the active view and encrypt them all on the executor
+     *
+     * @param bean      Bean being written
+     * @param generator Generator the bean is being written to
+     * @param provider  Serializer provider
+     * @return Encrypted fields
+     * @throws IOException Thrown on any error writing a field value
+     */
+    private EncryptedFields encryptFields(final Object bean, final JsonGenerator generator, final SerializerProvider provider) throws IOException {
+        var written = writers(provider.getActiveView(), provider);
+        var encrypting = new ArrayList<EncryptedPropertyWriter>(written.size());
+        var plain = new ArrayList<byte[]>(written.size());
+        var fields = new EncryptedFields(bean);
+        for (var writer : written) {
+            byte[] data;
+            Envelope unchanged;
+            try {
+                var value = writer.get(bean);
+                data = writer.serializePlain(bean, value, generator, provider);
+                unchanged = null == data ? null : writer.unchanged(bean, value, data);
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw JsonMappingException.from(provider, "Unable to read property " + writer.getName(), e);
+            }
+            if (null != unchanged) {
+                fields.envelopes.put(writer, unchanged);
+            } else if (null != data) {
+                encrypting.add(writer);
+                plain.add(data);
+            }
+        }
+        if (!plain.isEmpty()) {
+            var envelopes = encrypting.get(0).getEncryptionService().encryptEnvelopes(plain, executor, MIN_BATCH_SIZE, bean.getClass());
+            for (int i = 0; i < envelopes.size(); i++)
+                fields.envelopes.put(encrypting.get(i), envelopes.get(i));
+        }
+        return fields;
+    }
+
+    /**
+     * Envelopes for the fields of a bean, by field writer
+     */
+    private static final class EncryptedFields {
+        private final Object bean;
+        private final Map<BeanPropertyWriter, Envelope> envelopes = new IdentityHashMap<>();
+
+        private EncryptedFields(final Object bean) {
+            this.bean = bean;
+        }
+    }
+}
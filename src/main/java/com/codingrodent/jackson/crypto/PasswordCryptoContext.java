@@ -52,6 +52,28 @@ public class PasswordCryptoContext extends BaseCryptoContext {
             throw new EncryptionException("Minimum password length is " + MIN_PASSWORD_LENGTH + " characters");
     }
 
+    /**
+     * Flexible constructor allowing customization of all parameters in the context, with keys derived from a master key
+     * using HKDF-SHA256
+     *
+     * @param readPassword   Password for decrypting fields
+     * @param writePassword  Password for encrypting fields
+     * @param cipherName     Cipher to be employed, e.g. AES/CBC/PKCS5Padding
+     * @param keyName        Key generator to be employed, e.g. PBKDF2WithHmacSHA512
+     * @param iterationCount the iteration count e.g. 5000
+     * @param keyLength      the to-be-derived key length e.g. 64
+     * @param algorithmType  Name of algorithm type e.g. DES
+     * @param masterSalt     Salt for the master key, shared by all contexts reading the data
+     * @throws EncryptionException Thrown if unable to make context
+     */
+    public PasswordCryptoContext(final String readPassword, final String writePassword, final String cipherName,
+                                 final String keyName, int iterationCount, int keyLength,
+                                 final String algorithmType, final byte[] masterSalt) throws EncryptionException {
+        super(readPassword, writePassword, cipherName, keyName, iterationCount, keyLength, algorithmType, masterSalt);
+        if ((readPassword.length() < MIN_PASSWORD_LENGTH) || (writePassword.length() < MIN_PASSWORD_LENGTH))
+            throw new EncryptionException("Minimum password length is " + MIN_PASSWORD_LENGTH + " characters");
+    }
+
     /**
      * Flexible constructor allowing customization of all parameters in the context
      *
@@ -70,6 +92,31 @@ public class PasswordCryptoContext extends BaseCryptoContext {
             throw new EncryptionException("Minimum password length is " + MIN_PASSWORD_LENGTH + " characters");
     }
 
+    /**
+     * Constructor using a specific cipher suite
+     *
+     * @param readPassword  Password for decrypting fields
+     * @param writePassword Password for encrypting fields
+     * @param suite         Cipher suite to encrypt with
+     * @throws EncryptionException Thrown if unable to make context
+     */
+    public PasswordCryptoContext(final String readPassword, final String writePassword, final CipherSuite suite) throws EncryptionException {
+        this(readPassword, writePassword, suite.getCipherName(), KEY_NAME);
+    }
+
+    /**
+     * Constructor using a specific cipher suite, with keys derived from a master key using HKDF-SHA256
+     *
+     * @param readPassword  Password for decrypting fields
+     * @param writePassword Password for encrypting fields
+     * @param suite         Cipher suite to encrypt with
+     * @param masterSalt    Salt for the master key, shared by all contexts reading the data
+     * @throws EncryptionException Thrown if unable to make context
+     */
+    public PasswordCryptoContext(final String readPassword, final String writePassword, final CipherSuite suite, final byte[] masterSalt) throws EncryptionException {
+        this(readPassword, writePassword, suite.getCipherName(), KEY_NAME, DEFAULT_ITERATION_COUNT, DEFAULT_KEY_LENGTH, DEFAULT_ALGORITHM_TYPE, masterSalt);
+    }
+
     public PasswordCryptoContext(final String readPassword, final String writePassword) throws EncryptionException {
         this(readPassword, writePassword, CIPHER_NAME, KEY_NAME);
     }
@@ -0,0 +1,455 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Streaming re-encryption of JSON documents, e.g. to move data to a new password or cipher suite. Every encrypted JSON
+ * message found is decrypted with one encryption service and encrypted again with another. All other tokens are copied
+ * through unchanged, so no classes describing the data are needed
+ * <p>
+ * The input is split into records, either the elements of a top level array or a sequence of root values such as
+ * NDJSON. Records are re-encrypted in parallel and written in their original order. Only a bounded number of records
+ * are held in memory at once, so memory use depends on the record size rather than the input size
+ */
+public class ReEncryptor {
+
+    public static final String OLD_PASSWORD = "REENCRYPT_OLD_PASSWORD";
+    public static final String NEW_PASSWORD = "REENCRYPT_NEW_PASSWORD";
+
+    private static final Set<String> ENVELOPE_FIELDS = Set.of(EncryptedJson.KEY_ID, EncryptedJson.SUITE, EncryptedJson.KDF, EncryptedJson.SALT, EncryptedJson.IV,
+            EncryptedJson.VALUE);
+
+    private final EncryptionService source;
+    private final EncryptionService target;
+    private final ObjectMapper mapper;
+    private volatile Executor executor;
+    private volatile boolean readCompact;
+
+    /**
+     * Create a re-encryptor. Records are processed on the executor of the target service
+     *
+     * @param source Service to decrypt existing messages with
+     * @param target Service to encrypt new messages with, including the envelope format to write
+     * @throws EncryptionException Thrown if either service is missing
+     */
+    public ReEncryptor(final EncryptionService source, final EncryptionService target) throws EncryptionException {
+        if ((null == source) || (null == target))
+            throw new EncryptionException("Source and target encryption services cannot be null");
+        this.source = source;
+        this.target = target;
+        this.mapper = source.getObjectMapper();
+        this.executor = target.getExecutor();
+    }
+
+    /**
+     * Set the executor records are re-encrypted on
+     *
+     * @param executor Executor
+     * @throws EncryptionException Thrown if the executor is null
+     */
+    public void setExecutor(final Executor executor) throws EncryptionException {
+        if (null == executor)
+            throw new EncryptionException("Executor cannot be null");
+        this.executor = executor;
+    }
+
+    /**
+     * Set whether strings holding compact envelopes are also re-encrypted. Off by default, as any string that happens
+     * to decode as a valid envelope would be treated as one
+     *
+     * @param readCompact True to re-encrypt compact envelopes
+     */
+    public void setReadCompact(final boolean readCompact) {
+        this.readCompact = readCompact;
+    }
+
+    /**
+     * Re-encrypt a JSON document or stream of documents. The output has the same layout as the input
+     *
+     * @param in  JSON input, not closed
+     * @param out JSON output, flushed but not closed
+     * @return Number of records processed
+     * @throws IOException         Thrown on any error reading or writing
+     * @throws EncryptionException Thrown if any message cannot be re-encrypted
+     */
+    public long reEncrypt(final InputStream in, final OutputStream out) throws IOException, EncryptionException {
+        var window = 2 * EncryptionService.parallelism(executor);
+        var pending = new ArrayDeque<CompletableFuture<byte[]>>(window);
+        long records = 0, written = 0;
+        try (var parser = mapper.getFactory().createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            var array = JsonToken.START_ARRAY == parser.nextToken();
+            if (array) {
+                out.write('[');
+                parser.nextToken();
+            }
+            while ((null != parser.currentToken()) && !(array && parser.hasToken(JsonToken.END_ARRAY))) {
+                // Floating point numbers are held as decimals so their values are copied exactly
+                var buffer = new TokenBuffer(parser).forceUseOfBigDecimal(true);
+                buffer.copyCurrentStructure(parser);
+                var record = records++;
+                pending.add(CompletableFuture.supplyAsync(() -> reEncrypt(buffer, record), executor));
+                if (pending.size() >= window)
+                    write(pending.remove(), out, array, 0 == written++);
+                parser.nextToken();
+            }
+            while (!pending.isEmpty())
+                write(pending.remove(), out, array, 0 == written++);
+            if (array)
+                out.write(']');
+        } finally {
+            pending.forEach(future -> future.cancel(false));
+        }
+        out.flush();
+        return records;
+    }
+
+    /**
+     * Command line entry point
+     * <p>
+     * Usage: ReEncryptor [--suite id] [--compact] [--read-compact] [--threads n] input output
+     * <p>
+     * Input and output are file paths, or - for standard input and output. The old and new passwords are read from the
+     * {@value #OLD_PASSWORD} and {@value #NEW_PASSWORD} environment variables so they do not appear in the process list
+     *
+     * @param args Command line arguments
+     */
+    public static void main(final String[] args) {
+        var status = run(args, System.getenv(), System.in, System.out, System.err);
+        if (0 != status)
+            System.exit(status);
+    }
+
+    /**
+     * Run the command line tool
+     *
+     * @param args        Command line arguments
+     * @param environment Environment holding the passwords
+     * @param in          Standard input
+     * @param out         Standard output
+     * @param err         Standard error
+     * @return Exit status, 0 on success
+     */
+    static int run(final String[] args, final Map<String, String> environment, final InputStream in, final OutputStream out, final PrintStream err) {
+        var suite = CipherSuite.AES_CBC;
+        var format = EnvelopeFormat.OBJECT;
+        var readCompact = false;
+        var threads = 0;
+        var files = new ArrayList<String>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--suite":
+                        suite = CipherSuite.fromId(option(args, ++i));
+                        if (null == suite)
+                            throw new IllegalArgumentException("Unknown cipher suite " + args[i]);
+                        break;
+                    case "--compact":
+                        format = EnvelopeFormat.COMPACT;
+                        break;
+                    case "--read-compact":
+                        readCompact = true;
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(option(args, ++i));
+                        if (threads < 1)
+                            throw new IllegalArgumentException("Thread count must be at least 1");
+                        break;
+                    default:
+                        files.add(args[i]);
+                }
+            }
+            if (2 != files.size())
+                throw new IllegalArgumentException("Input and output must be given");
+            if (!"-".equals(files.get(0)) && files.get(0).equals(files.get(1)))
+                throw new IllegalArgumentException("Input and output must be different files");
+            var oldPassword = environment.get(OLD_PASSWORD);
+            var newPassword = environment.get(NEW_PASSWORD);
+            if ((null == oldPassword) || (null == newPassword))
+                throw new IllegalArgumentException(OLD_PASSWORD + " and " + NEW_PASSWORD + " must be set");
+            var mapper = new ObjectMapper();
+            var target = new EncryptionService(mapper, new PasswordCryptoContext(newPassword, newPassword, suite));
+            target.setEnvelopeFormat(format);
+            var reEncryptor = new ReEncryptor(new EncryptionService(mapper, new PasswordCryptoContext(oldPassword)), target);
+            reEncryptor.setReadCompact(readCompact);
+            ExecutorService pool = null;
+            if (threads > 0)
+                reEncryptor.setExecutor(pool = Executors.newFixedThreadPool(threads));
+            try {
+                // standard input is left open, it is not ours to close
+                if ("-".equals(files.get(0))) {
+                    reEncrypt(reEncryptor, in, files.get(1), out, err);
+                } else {
+                    try (var input = new BufferedInputStream(Files.newInputStream(Paths.get(files.get(0))))) {
+                        reEncrypt(reEncryptor, input, files.get(1), out, err);
+                    }
+                }
+            } finally {
+                if (null != pool)
+                    pool.shutdown();
+            }
+            return 0;
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println("Usage: ReEncryptor [--suite id] [--compact] [--read-compact] [--threads n] input output");
+            return 2;
+        } catch (Exception e) {
+            err.println("Re-encryption failed: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    // Internal functionality
+
+    /**
+     * Re-encrypt an input to a file or standard output. Standard output is buffered and flushed, but left open
+     *
+     * @param reEncryptor Re-encryptor to use
+     * @param input       Input
+     * @param file        Output file name, - for standard output
+     * @param out         Standard output
+     * @param err         Standard error
+     * @throws IOException         Thrown on any error reading or writing
+     * @throws EncryptionException Thrown if a record could not be re-encrypted
+     */
+    private static void reEncrypt(final ReEncryptor reEncryptor, final InputStream input, final String file, final OutputStream out, final PrintStream err)
+            throws IOException, EncryptionException {
+        try (var output = new BufferedOutputStream("-".equals(file) ? new UnclosedOutputStream(out) : Files.newOutputStream(Paths.get(file)))) {
+            var records = reEncryptor.reEncrypt(input, output);
+            err.println("Re-encrypted " + records + " records");
+        }
+    }
+
+    /**
+     * Get the value of a command line option
+     *
+     * @param args  Command line arguments
+     * @param index Index of the value
+     * @return Option value
+     * @throws IllegalArgumentException Thrown if the value is missing
+     */
+    private static String option(final String[] args, final int index) throws IllegalArgumentException {
+        if (index >= args.length)
+            throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+        return args[index];
+    }
+
+    /**
+     * Re-encrypt a single record
+     *
+     * @param buffer Tokens of the record
+     * @param record Record number, from 0
+     * @return Re-encrypted record as UTF-8 JSON
+     * @throws EncryptionException Thrown if the record cannot be re-encrypted
+     */
+    private byte[] reEncrypt(final TokenBuffer buffer, final long record) throws EncryptionException {
+        try (var bytes = new ByteArrayBuilder(); var parser = buffer.asParser(); var generator = mapper.getFactory().createGenerator(bytes)) {
+            while (null != parser.nextToken())
+                copy(parser, generator);
+            generator.flush();
+            return bytes.toByteArray();
+        } catch (Exception e) {
+            throw new EncryptionException("Unable to re-encrypt record " + record, e);
+        }
+    }
+
+    /**
+     * Copy the current token to the generator. Objects and strings that hold encrypted messages are re-encrypted
+     *
+     * @param parser    Parser positioned on the token to copy
+     * @param generator Generator to copy to
+     * @throws IOException Thrown on any error reading or writing
+     */
+    private void copy(final JsonParser parser, final JsonGenerator generator) throws IOException {
+        if (parser.hasToken(JsonToken.START_OBJECT)) {
+            copyObject(parser, generator);
+            return;
+        }
+        var envelope = readCompact && parser.hasToken(JsonToken.VALUE_STRING) ? compact(parser) : null;
+        if (null != envelope)
+            reEncrypt(envelope, generator);
+        else
+            generator.copyCurrentEvent(parser);
+    }
+
+    /**
+     * Copy an object. Fields are held back while they could still form an encrypted message. As soon as a field rules
+     * that out, the held fields are written and the rest of the object is left to the caller to copy. An object with the
+     * fields of a message that does not pass the source service's checks is copied unchanged
+     *
+     * @param parser    Parser positioned on the start of the object
+     * @param generator Generator to copy to
+     * @throws IOException Thrown on any error reading or writing
+     */
+    private void copyObject(final JsonParser parser, final JsonGenerator generator) throws IOException {
+        var fields = new LinkedHashMap<String, String>();
+        String name;
+        while (null != (name = parser.nextFieldName())) {
+            if (!ENVELOPE_FIELDS.contains(name) || fields.containsKey(name)) {
+                writeFields(fields, generator);
+                generator.writeFieldName(name);
+                return;
+            }
+            if (JsonToken.VALUE_STRING != parser.nextToken()) {
+                writeFields(fields, generator);
+                generator.writeFieldName(name);
+                copy(parser, generator);
+                return;
+            }
+            fields.put(name, parser.getText());
+        }
+        var envelope = fields.containsKey(EncryptedJson.SALT) && fields.containsKey(EncryptedJson.IV) && fields.containsKey(EncryptedJson.VALUE) ? envelope(fields) : null;
+        if (null != envelope) {
+            reEncrypt(envelope, generator);
+        } else {
+            writeFields(fields, generator);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Decrypt an envelope and write it encrypted with the target service
+     *
+     * @param envelope  Encrypted message
+     * @param generator Generator to write to
+     * @throws IOException Thrown on any error writing
+     */
+    private void reEncrypt(final Envelope envelope, final JsonGenerator generator) throws IOException {
+        var clear = source.decrypt(envelope, null);
+        target.writeEncrypted(clear, 0, clear.length, generator);
+        Arrays.fill(clear, (byte) 0);
+    }
+
+    /**
+     * Read the envelope held in the fields of an object
+     *
+     * @param fields Field names and values
+     * @return Encrypted message, null if the fields are not a message the source service could decrypt
+     */
+    private Envelope envelope(final Map<String, String> fields) {
+        var buffer = new TokenBuffer(mapper, false);
+        try (var parser = buffer.asParser()) {
+            buffer.writeStartObject();
+            for (var field : fields.entrySet())
+                buffer.writeStringField(field.getKey(), field.getValue());
+            buffer.writeEndObject();
+            parser.nextToken();
+            var envelope = source.readEnvelope(parser);
+            return source.isValid(envelope) ? envelope : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Read a compact envelope from a string
+     *
+     * @param parser Parser positioned on a string
+     * @return Encrypted message, null if the string is not a compact envelope
+     */
+    private Envelope compact(final JsonParser parser) {
+        try {
+            var envelope = source.readEnvelope(parser);
+            return source.isValid(envelope) ? envelope : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Write the held fields of an object that is not an encrypted message
+     *
+     * @param fields    Field names and values
+     * @param generator Generator to write to
+     * @throws IOException Thrown on any error writing
+     */
+    private static void writeFields(final Map<String, String> fields, final JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        for (var field : fields.entrySet())
+            generator.writeStringField(field.getKey(), field.getValue());
+    }
+
+    /**
+     * Wait for a record and write it out. Array elements are separated by commas, other records are each followed by a
+     * new line
+     *
+     * @param record Re-encrypted record
+     * @param out    Output
+     * @param array  True if the record is an array element
+     * @param first  True if this is the first record
+     * @throws IOException         Thrown on any error writing
+     * @throws EncryptionException Thrown if the record could not be re-encrypted
+     */
+    private static void write(final CompletableFuture<byte[]> record, final OutputStream out, final boolean array, final boolean first)
+            throws IOException, EncryptionException {
+        byte[] bytes;
+        try {
+            bytes = record.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof EncryptionException)
+                throw (EncryptionException) e.getCause();
+            throw new EncryptionException(e.getCause());
+        }
+        if (array && !first)
+            out.write(',');
+        out.write(bytes);
+        if (!array)
+            out.write('\n');
+    }
+
+    /**
+     * Output stream that is flushed rather than closed, so standard output stays open. Arrays are passed through whole
+     * rather than a byte at a time
+     */
+    private static final class UnclosedOutputStream extends FilterOutputStream {
+
+        private UnclosedOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
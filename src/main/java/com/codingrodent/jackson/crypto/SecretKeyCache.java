@@ -0,0 +1,208 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, least recently used, cache of derived secret keys keyed by algorithm, password and salt. Key derivation is deliberately
+ * expensive so this stops the same password / salt pair being stretched again for every field decrypted
+ */
+final class SecretKeyCache {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<CacheKey, SecretKeySpec> keys = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<CacheKey, CompletableFuture<SecretKeySpec>> deriving = new HashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile int maxSize;
+
+    /**
+     * Create a cache
+     *
+     * @param maxSize Maximum number of keys to hold, 0 to disable caching
+     */
+    SecretKeyCache(final int maxSize) {
+        setMaxSize(maxSize);
+    }
+
+    /**
+     * Get a key from the cache, deriving and caching it if not present. Derivation happens outside of the lock so a slow
+     * derivation does not hold up lookups for other salts. Concurrent requests for a key being derived wait for that
+     * derivation rather than repeating it. Waiting does not hold a monitor so does not pin a virtual thread
+     *
+     * @param algorithm Algorithm the key is for, e.g. AES
+     * @param password  Password the key is derived from
+     * @param salt      Salt the key is derived from
+     * @param derive    Key derivation function
+     * @return Secret key spec
+     */
+    SecretKeySpec get(final String algorithm, final String password, final byte[] salt, final Supplier<SecretKeySpec> derive) {
+        var probe = new CacheKey(algorithm, password, salt);
+        CacheKey cacheKey = null;
+        CompletableFuture<SecretKeySpec> pending;
+        lock.lock();
+        try {
+            var key = keys.get(probe);
+            if (null != key) {
+                hits.increment();
+                return key;
+            }
+            pending = deriving.get(probe);
+            if (null == pending) {
+                cacheKey = new CacheKey(algorithm, password, Arrays.copyOf(salt, salt.length));
+                pending = new CompletableFuture<>();
+                deriving.put(cacheKey, pending);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (null == cacheKey) {
+            hits.increment();
+            return await(pending);
+        }
+        misses.increment();
+        try {
+            var key = derive.get();
+            put(cacheKey, key);
+            pending.complete(key);
+            return key;
+        } catch (RuntimeException | Error e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            lock.lock();
+            try {
+                deriving.remove(cacheKey);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Change the maximum number of keys held, evicting the least recently used keys if required
+     *
+     * @param maxSize Maximum number of keys to hold, 0 to disable caching
+     */
+    void setMaxSize(final int maxSize) {
+        if (maxSize < 0)
+            throw new EncryptionException("Key cache size cannot be negative");
+        lock.lock();
+        try {
+            this.maxSize = maxSize;
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return keys.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    private void put(final CacheKey cacheKey, final SecretKeySpec key) {
+        lock.lock();
+        try {
+            keys.put(cacheKey, key);
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static SecretKeySpec await(final CompletableFuture<SecretKeySpec> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new EncryptionException(e.getCause());
+        }
+    }
+
+    private void evict() {
+        var it = keys.entrySet().iterator();
+        while ((keys.size() > maxSize) && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * Algorithm, password and salt identifying a derived key
+     */
+    private static final class CacheKey {
+        private final String algorithm;
+        private final String password;
+        private final byte[] salt;
+        private final int hash;
+
+        CacheKey(final String algorithm, final String password, final byte[] salt) {
+            this.algorithm = algorithm;
+            this.password = password;
+            this.salt = salt;
+            this.hash = 31 * (31 * algorithm.hashCode() + password.hashCode()) + Arrays.hashCode(salt);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other)
+                return true;
+            if (!(other instanceof CacheKey))
+                return false;
+            var key = (CacheKey) other;
+            return (hash == key.hash) && algorithm.equals(key.algorithm) && password.equals(key.password) && Arrays.equals(salt, key.salt);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
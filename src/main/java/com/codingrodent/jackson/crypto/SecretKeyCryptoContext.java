@@ -0,0 +1,493 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import com.codingrodent.jackson.crypto.CipherPool.PooledCipher;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.*;
+import java.util.*;
+
+import static javax.crypto.Cipher.DECRYPT_MODE;
+import static javax.crypto.Cipher.ENCRYPT_MODE;
+
+/**
+ * Crypto context for an existing secret key, e.g. one held in a keystore. The key is used as is, so there is no password
+ * based key derivation on start up or when decrypting
+ * <p>
+ * As the key outlives the context, a random iv or nonce is generated for every message. A random salt is still written
+ * so the encrypted JSON has the same form as for a {@link PasswordCryptoContext}, but it plays no part in encryption
+ * <p>
+ * The key is only used with the context's own cipher suite, and messages recording another suite, or none for an
+ * authenticated suite, are rejected. Data written with AES/CBC before changing to an authenticated suite can be read by
+ * enabling {@link #setLegacyCbcEnabled(boolean)}, which uses the same key with AES/CBC for as long as it is enabled
+ */
+public class SecretKeyCryptoContext implements ICryptoContext {
+
+    public static final String KEYSTORE_TYPE = "PKCS12";
+
+    private final CipherSuite suite;
+    private final byte[] salt;
+    private final SecureRandom random = new SecureRandom();
+    private volatile boolean legacyCbcEnabled;
+    private final Map<CipherSuite, SecretKey> keys = new EnumMap<>(CipherSuite.class);
+    private final Map<CipherSuite, CipherPool> pools = new EnumMap<>(CipherSuite.class);
+
+    /**
+     * Create a context using the default cipher suite, AES/CBC
+     *
+     * @param key Secret key
+     * @throws EncryptionException Thrown if unable to make context
+     */
+    public SecretKeyCryptoContext(final SecretKey key) throws EncryptionException {
+        this(key, CipherSuite.AES_CBC);
+    }
+
+    /**
+     * Create a context
+     *
+     * @param key   Secret key
+     * @param suite Cipher suite to encrypt with
+     * @throws EncryptionException Thrown if unable to make context
+     */
+    public SecretKeyCryptoContext(final SecretKey key, final CipherSuite suite) throws EncryptionException {
+        if (null == key)
+            throw new EncryptionException("Secret key cannot be null");
+        if (null == suite)
+            throw new EncryptionException("Cipher suite cannot be null");
+        this.suite = suite;
+        this.salt = new byte[16];
+        random.nextBytes(salt);
+        var suiteKey = keyFor(key, suite);
+        if (null == suiteKey)
+            throw new EncryptionException("Secret key of type " + key.getAlgorithm() + " cannot be used with cipher suite " + suite.getId());
+        keys.put(suite, suiteKey);
+        pools.put(suite, new CipherPool(suite, BaseCryptoContext.DEFAULT_CIPHER_POOL_SIZE));
+        // AES/CBC is only ever used to read data written before changing suite, and only once enabled
+        var legacyKey = suite.isAead() ? keyFor(key, CipherSuite.AES_CBC) : null;
+        if (null != legacyKey) {
+            keys.put(CipherSuite.AES_CBC, legacyKey);
+            pools.put(CipherSuite.AES_CBC, new CipherPool(CipherSuite.AES_CBC, BaseCryptoContext.DEFAULT_CIPHER_POOL_SIZE));
+        }
+        // Fail now rather than on first use if the key or suite is not supported
+        try {
+            var iv = new byte[suite.getIvLength()];
+            random.nextBytes(iv);
+            var pool = pools.get(suite);
+            pool.release(acquire(pool, ENCRYPT_MODE, keys.get(suite), iv));
+        } catch (Exception e) {
+            throw new EncryptionException(e);
+        }
+    }
+
+    /**
+     * Create a context using the default cipher suite, AES/CBC, with a key loaded from a PKCS12 keystore
+     *
+     * @param keyStore Path to keystore
+     * @param password Password for the keystore and key
+     * @param alias    Alias of the key in the keystore
+     * @throws EncryptionException Thrown if unable to load the key or make context
+     */
+    public SecretKeyCryptoContext(final Path keyStore, final char[] password, final String alias) throws EncryptionException {
+        this(keyStore, password, alias, CipherSuite.AES_CBC);
+    }
+
+    /**
+     * Create a context with a key loaded from a PKCS12 keystore
+     *
+     * @param keyStore Path to keystore
+     * @param password Password for the keystore and key
+     * @param alias    Alias of the key in the keystore
+     * @param suite    Cipher suite to encrypt with
+     * @throws EncryptionException Thrown if unable to load the key or make context
+     */
+    public SecretKeyCryptoContext(final Path keyStore, final char[] password, final String alias, final CipherSuite suite) throws EncryptionException {
+        this(loadKey(keyStore, password, alias), suite);
+    }
+
+    /**
+     * Decrypt an encrypted JSON object. Contains salt and iv as fields
+     *
+     * @param value JSON data
+     * @return Decrypted byte array
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public byte[] decrypt(final EncryptedJson value) throws EncryptionException {
+        return decrypt(Envelope.of(value));
+    }
+
+    /**
+     * Decrypt an envelope. Messages must use the context's own suite, or AES/CBC if reading it is enabled
+     *
+     * @param envelope Encrypted message
+     * @return Decrypted byte array
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public byte[] decrypt(final Envelope envelope) throws EncryptionException {
+        var cipherSuite = readSuite(envelope);
+        var pool = pools.get(cipherSuite);
+        try {
+            var cipher = acquire(pool, DECRYPT_MODE, keys.get(cipherSuite), envelope.iv());
+            var result = cipher.cipher().doFinal(envelope.value(), envelope.valueOffset(), envelope.valueLength());
+            pool.release(cipher);
+            return result;
+        } catch (Exception e) {
+            throw new EncryptionException(e);
+        }
+    }
+
+    /**
+     * Not supported as an iv is generated for every message and would not be returned
+     *
+     * @param source Byte array to be encrypted
+     * @return Never returns
+     * @throws EncryptionException Always thrown
+     */
+    @Override
+    public byte[] encrypt(final byte[] source) throws EncryptionException {
+        throw new EncryptionException("Secret key context uses an iv per message, encrypt to an envelope instead");
+    }
+
+    /**
+     * Not supported as an iv is generated for every message and would not be returned
+     *
+     * @param source Byte array holding data to be encrypted
+     * @param offset Offset of data in source
+     * @param length Length of data in source
+     * @return Never returns
+     * @throws EncryptionException Always thrown
+     */
+    @Override
+    public byte[] encrypt(final byte[] source, final int offset, final int length) throws EncryptionException {
+        return encrypt(source);
+    }
+
+    /**
+     * Encrypt part of a byte array into an envelope using a fresh iv or nonce
+     *
+     * @param source Byte array holding data to be encrypted
+     * @param offset Offset of data in source
+     * @param length Length of data in source
+     * @return Encrypted message
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public Envelope encryptEnvelope(final byte[] source, final int offset, final int length) throws EncryptionException {
+        var iv = new byte[suite.getIvLength()];
+        random.nextBytes(iv);
+        var pool = pools.get(suite);
+        try {
+            var cipher = acquire(pool, ENCRYPT_MODE, keys.get(suite), iv);
+            var result = cipher.cipher().doFinal(source, offset, length);
+            pool.release(cipher);
+            return new Envelope(suite.isAead() ? suite : null, salt, iv, result);
+        } catch (Exception e) {
+            throw new EncryptionException(e);
+        }
+    }
+
+    /**
+     * Encrypt part of a byte array into an envelope using a fresh iv or nonce, writing the cipher text to the start of the
+     * target array if it is large enough
+     *
+     * @param source Byte array holding data to be encrypted
+     * @param offset Offset of data in source
+     * @param length Length of data in source
+     * @param target Array to write the cipher text to
+     * @return Encrypted message, only valid until the target array is reused
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public Envelope encryptEnvelope(final byte[] source, final int offset, final int length, final byte[] target) throws EncryptionException {
+        var iv = new byte[suite.getIvLength()];
+        random.nextBytes(iv);
+        var pool = pools.get(suite);
+        try {
+            var cipher = acquire(pool, ENCRYPT_MODE, keys.get(suite), iv);
+            var value = target;
+            int valueLength;
+            if (cipher.cipher().getOutputSize(length) <= target.length) {
+                valueLength = cipher.cipher().doFinal(source, offset, length, target, 0);
+            } else {
+                value = cipher.cipher().doFinal(source, offset, length);
+                valueLength = value.length;
+            }
+            pool.release(cipher);
+            return new Envelope(suite.isAead() ? suite : null, salt, iv, value, 0, valueLength);
+        } catch (Exception e) {
+            throw new EncryptionException(e);
+        }
+    }
+
+    /**
+     * Start a new message with a fresh iv or nonce
+     *
+     * @return Envelope without cipher text
+     */
+    @Override
+    public Envelope newHeader() {
+        var iv = new byte[suite.getIvLength()];
+        random.nextBytes(iv);
+        return new Envelope(suite.isAead() ? suite : null, null, null, salt, iv, null, 0, 0);
+    }
+
+    /**
+     * Get the length of the compact header of a new message, without generating an iv or nonce
+     *
+     * @param keyId Identifier of the key in a key ring recorded in the header, null for none
+     * @return Header length in bytes
+     * @throws EncryptionException Thrown if the key id is too long to be recorded
+     */
+    @Override
+    public int compactHeaderLength(final String keyId) throws EncryptionException {
+        return Envelope.compactHeaderLength(keyId, salt.length, suite.getIvLength());
+    }
+
+    /**
+     * Encrypt the remaining bytes of a buffer into another without copying either to the heap
+     *
+     * @param header Message started by {@link #newHeader()}
+     * @param source Buffer holding the data to encrypt
+     * @param target Buffer to write the cipher text to
+     * @return Number of bytes written
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public int encrypt(final Envelope header, final ByteBuffer source, final ByteBuffer target) throws EncryptionException {
+        var pool = pools.get(suite);
+        try {
+            var cipher = acquire(pool, ENCRYPT_MODE, keys.get(suite), header.iv());
+            var written = cipher.cipher().doFinal(source, target);
+            pool.release(cipher);
+            return written;
+        } catch (Exception e) {
+            throw new EncryptionException(e);
+        }
+    }
+
+    /**
+     * Decrypt the remaining bytes of a buffer into another without copying either to the heap
+     *
+     * @param header Message header read from the buffer
+     * @param source Buffer holding the cipher text
+     * @param target Buffer to write the decrypted data to
+     * @return Number of bytes written
+     * @throws EncryptionException Something failed
+     */
+    @Override
+    public int decrypt(final Envelope header, final ByteBuffer source, final ByteBuffer target) throws EncryptionException {
+        var cipherSuite = readSuite(header);
+        var pool = pools.get(cipherSuite);
+        try {
+            var cipher = acquire(pool, DECRYPT_MODE, keys.get(cipherSuite), header.iv());
+            var written = cipher.cipher().doFinal(source, target);
+            pool.release(cipher);
+            return written;
+        } catch (Exception e) {
+            throw new EncryptionException(e);
+        }
+    }
+
+    /**
+     * Get the initialization vector. A fresh iv is used for every message, and this is a zero filled array of the iv
+     * length
+     *
+     * @return Vector as byte array
+     */
+    @Override
+    public byte[] getIv() {
+        return new byte[suite.getIvLength()];
+    }
+
+    /**
+     * Get the salt
+     *
+     * @return Salt as byte array
+     */
+    @Override
+    public byte[] getSalt() {
+        return Arrays.copyOf(salt, salt.length);
+    }
+
+    /**
+     * Get the block size that cipher text lengths are always a multiple of
+     *
+     * @return Block size in bytes, 0 if cipher text is not block aligned
+     */
+    @Override
+    public int getBlockSize() {
+        return suite.getBlockSize();
+    }
+
+    /**
+     * Get the cipher suite used to encrypt
+     *
+     * @return Cipher suite
+     */
+    @Override
+    public CipherSuite getCipherSuite() {
+        return suite;
+    }
+
+    /**
+     * Decide if a message is as this context would write it, i.e. it uses the context's cipher suite
+     *
+     * @param envelope Encrypted message read by this context
+     * @return True if the message is current
+     */
+    @Override
+    public boolean isCurrent(final Envelope envelope) {
+        return (null == envelope.keyId()) && (null == envelope.kdf()) && (envelope.suite() == (suite.isAead() ? suite : null));
+    }
+
+    /**
+     * Allow a context using an authenticated suite to read AES/CBC messages written with the same key, e.g. data written
+     * before changing suite. Off by default, as anyone able to change a message could then remove its suite and have it
+     * decrypted without authentication, and the key is then shared between two ciphers
+     *
+     * @param enabled True to read AES/CBC messages
+     */
+    public void setLegacyCbcEnabled(final boolean enabled) {
+        this.legacyCbcEnabled = enabled;
+    }
+
+    /**
+     * Check if AES/CBC messages are read
+     *
+     * @return True if AES/CBC messages are read
+     */
+    public boolean isLegacyCbcEnabled() {
+        return !suite.isAead() || (legacyCbcEnabled && keys.containsKey(CipherSuite.AES_CBC));
+    }
+
+    /**
+     * Set the maximum number of idle ciphers retained for reuse. Concurrent operations beyond this create additional
+     * ciphers which are discarded after use
+     *
+     * @param size Maximum number of idle ciphers, 0 to disable pooling
+     * @throws EncryptionException Thrown if size is negative
+     */
+    public void setCipherPoolSize(final int size) throws EncryptionException {
+        pools.values().forEach(pool -> pool.setMaxIdle(size));
+    }
+
+    /**
+     * Get the maximum number of idle ciphers retained for reuse
+     *
+     * @return Pool size
+     */
+    public int getCipherPoolSize() {
+        return pools.get(suite).getMaxIdle();
+    }
+
+    /**
+     * Get the number of cipher instances created since the context was made
+     *
+     * @return Ciphers created
+     */
+    public long getCiphersCreated() {
+        return pools.values().stream().mapToLong(CipherPool::getCreated).sum();
+    }
+
+    // Internal functionality
+
+    /**
+     * Get the suite to decrypt a message with. Messages that do not record a suite were written with AES/CBC
+     *
+     * @param envelope Encrypted message
+     * @return Cipher suite
+     * @throws EncryptionException Thrown if the message uses another suite, or AES/CBC when reading it is not enabled
+     */
+    private CipherSuite readSuite(final Envelope envelope) throws EncryptionException {
+        var cipherSuite = null == envelope.suite() ? CipherSuite.AES_CBC : envelope.suite();
+        if ((cipherSuite != suite) && ((CipherSuite.AES_CBC != cipherSuite) || !isLegacyCbcEnabled()))
+            throw new EncryptionException("Message uses cipher suite " + cipherSuite.getId() + " but the context reads " + suite.getId());
+        return cipherSuite;
+    }
+
+    /**
+     * Take a cipher from a pool and initialise it. Return it to the pool once used
+     *
+     * @param pool Pool for the cipher suite
+     * @param mode Cipher mode, e.g. {@link javax.crypto.Cipher#ENCRYPT_MODE}
+     * @param key  Key
+     * @param iv   Initialization vector or nonce
+     * @return Cipher ready to use
+     * @throws GeneralSecurityException Something failed
+     */
+    private static PooledCipher acquire(final CipherPool pool, final int mode, final Key key, final byte[] iv) throws GeneralSecurityException {
+        var cipher = pool.acquire();
+        cipher.init(mode, key, iv);
+        return cipher;
+    }
+
+    /**
+     * Get the key to use with a cipher suite. Keys of another type, e.g. as returned by some keystores, are converted if
+     * their encoded form is available
+     *
+     * @param key   Secret key
+     * @param suite Cipher suite
+     * @return Key for suite, null if the key cannot be used
+     */
+    private static SecretKey keyFor(final SecretKey key, final CipherSuite suite) {
+        if (suite.getKeyAlgorithm().equalsIgnoreCase(key.getAlgorithm()))
+            return key;
+        var encoded = key.getEncoded();
+        return null == encoded ? null : new SecretKeySpec(encoded, suite.getKeyAlgorithm());
+    }
+
+    /**
+     * Load a secret key from a PKCS12 keystore
+     *
+     * @param keyStore Path to keystore
+     * @param password Password for the keystore and key
+     * @param alias    Alias of the key in the keystore
+     * @return Secret key
+     * @throws EncryptionException Thrown if unable to load the key
+     */
+    private static SecretKey loadKey(final Path keyStore, final char[] password, final String alias) throws EncryptionException {
+        if ((null == keyStore) || (null == alias))
+            throw new EncryptionException("Keystore and alias cannot be null");
+        try (InputStream in = Files.newInputStream(keyStore)) {
+            var store = KeyStore.getInstance(KEYSTORE_TYPE);
+            store.load(in, password);
+            var key = store.getKey(alias, password);
+            if (!(key instanceof SecretKey))
+                throw new EncryptionException("Keystore entry " + alias + " is not a secret key");
+            return (SecretKey) key;
+        } catch (EncryptionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new EncryptionException(e);
+        }
+    }
+}
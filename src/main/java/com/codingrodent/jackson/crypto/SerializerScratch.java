@@ -0,0 +1,187 @@
+/*
+The MIT License
+
+Copyright (c) 2018,2019,2020
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.codingrodent.jackson.crypto;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.core.json.JsonWriteContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+
+/**
+ * Per thread scratch space used while writing an encrypted value. Holds the UTF-8 JSON of the value, the nested generator
+ * that writes it, the cipher text and the compact message, so in steady state encrypting a field allocates no new
+ * buffers. A value holding encrypted values of its own is written while the thread's scratch is in use, so it is given a
+ * fresh one. Arrays that grow beyond {@link #MAX_RETAINED} are not kept, and the scratch is softly referenced so it can be
+ * reclaimed under memory pressure. The copy of the JSON held here is cleared on release, but the kept generator has an
+ * output buffer of its own that may still hold the last value, so this is not a guarantee that no plain text remains in
+ * memory
+ */
+final class SerializerScratch extends OutputStream {
+
+    // Largest array kept for the next value
+    static final int MAX_RETAINED = 64 * 1024;
+    private static final int INITIAL_SIZE = 512;
+    private static final ThreadLocal<SoftReference<SerializerScratch>> SCRATCH = new ThreadLocal<>();
+
+    private byte[] plain = new byte[INITIAL_SIZE];
+    private int length;
+    private byte[] cipherText = new byte[0];
+    private byte[] compact = new byte[0];
+    private JsonFactory factory;
+    private JsonGenerator generator;
+    private boolean inUse;
+
+    /**
+     * Take the scratch for the current thread, or a fresh one if it is already in use further up the stack. Always hand
+     * it back with {@link #release(boolean)}
+     *
+     * @return Empty scratch
+     */
+    static SerializerScratch acquire() {
+        var reference = SCRATCH.get();
+        var scratch = null == reference ? null : reference.get();
+        if (null == scratch) {
+            scratch = new SerializerScratch();
+            SCRATCH.set(new SoftReference<>(scratch));
+        } else if (scratch.inUse) {
+            scratch = new SerializerScratch();
+        }
+        scratch.inUse = true;
+        scratch.length = 0;
+        return scratch;
+    }
+
+    /**
+     * Hand back the scratch. The generator is kept only if the value was written completely, as otherwise it may be left
+     * part way through a structure
+     *
+     * @param completed True if the value was written without error
+     */
+    void release(final boolean completed) {
+        Arrays.fill(plain, 0, length, (byte) 0);
+        length = 0;
+        if (!completed)
+            generator = null;
+        if (plain.length > MAX_RETAINED)
+            plain = new byte[INITIAL_SIZE];
+        if (cipherText.length > MAX_RETAINED)
+            cipherText = new byte[0];
+        if (compact.length > MAX_RETAINED)
+            compact = new byte[0];
+        inUse = false;
+    }
+
+    /**
+     * Get a generator writing UTF-8 JSON to the scratch, reusing the one from the last value if it came from the same
+     * factory
+     *
+     * @param factory Factory of the generator the encrypted value will be written to
+     * @return Generator at the root of a new document
+     * @throws IOException Thrown if the generator cannot be created
+     */
+    JsonGenerator generator(final JsonFactory factory) throws IOException {
+        if ((null == generator) || (factory != this.factory)) {
+            generator = factory.createGenerator(this, JsonEncoding.UTF8);
+            this.factory = factory;
+        }
+        return generator;
+    }
+
+    /**
+     * Finish the value written by the generator. A JSON generator back at its root is reset to start the next value
+     * without a root separator, any other is closed and created afresh next time
+     *
+     * @return Length of the JSON written
+     * @throws IOException Thrown on any error flushing the generator
+     */
+    int finish() throws IOException {
+        var context = generator.getOutputContext();
+        if ((context instanceof JsonWriteContext) && context.inRoot()) {
+            generator.flush();
+            ((JsonWriteContext) context).reset(JsonStreamContext.TYPE_ROOT);
+        } else {
+            generator.close();
+            generator = null;
+        }
+        return length;
+    }
+
+    /**
+     * Get the JSON written so far, in the first {@link #finish()} bytes
+     *
+     * @return Array holding the JSON
+     */
+    byte[] plain() {
+        return plain;
+    }
+
+    /**
+     * Get an array to write cipher text to
+     *
+     * @param capacity Bytes needed
+     * @return Array of at least the given length
+     */
+    byte[] cipherText(final int capacity) {
+        if (cipherText.length < capacity)
+            cipherText = new byte[capacity];
+        return cipherText;
+    }
+
+    /**
+     * Get an array to write a compact message to
+     *
+     * @param capacity Bytes needed
+     * @return Array of at least the given length
+     */
+    byte[] compact(final int capacity) {
+        if (compact.length < capacity)
+            compact = new byte[capacity];
+        return compact;
+    }
+
+    @Override
+    public void write(final int b) {
+        ensureCapacity(length + 1);
+        plain[length++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] source, final int offset, final int count) {
+        ensureCapacity(length + count);
+        System.arraycopy(source, offset, plain, length, count);
+        length += count;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > plain.length) {
+            var grown = Arrays.copyOf(plain, Math.max(capacity, plain.length * 2));
+            Arrays.fill(plain, 0, length, (byte) 0);
+            plain = grown;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.codingrodent.jackson.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import static javax.crypto.Cipher.DECRYPT_MODE;
+import static javax.crypto.Cipher.ENCRYPT_MODE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CipherPoolTest {
+
+    private static final SecretKeySpec KEY = new SecretKeySpec(new byte[16], "AES");
+    private static final byte[] IV = new byte[16];
+
+    @Test
+    public void reuse() throws Exception {
+        var pool = new CipherPool(PasswordCryptoContext.CIPHER_NAME, 2);
+        var first = pool.acquire();
+        first.init(ENCRYPT_MODE, KEY, IV);
+        var encrypted = first.cipher().doFinal(new byte[]{1, 2, 3});
+        pool.release(first);
+        assertEquals(1, pool.getIdle());
+        //
+        var second = pool.acquire();
+        assertSame(first, second);
+        second.init(DECRYPT_MODE, KEY, IV);
+        assertArrayEquals(new byte[]{1, 2, 3}, second.cipher().doFinal(encrypted));
+        assertEquals(1, pool.getCreated());
+    }
+
+    @Test
+    public void bounded() throws Exception {
+        var pool = new CipherPool(PasswordCryptoContext.CIPHER_NAME, 1);
+        var first = pool.acquire();
+        var second = pool.acquire();
+        assertNotSame(first, second);
+        pool.release(first);
+        pool.release(second);
+        assertEquals(1, pool.getIdle());
+        assertEquals(2, pool.getCreated());
+        pool.setMaxIdle(0);
+        assertEquals(0, pool.getIdle());
+        assertThrows(EncryptionException.class, () -> pool.setMaxIdle(-1));
+    }
+
+    @Test
+    public void contextReusesCiphers() {
+        var context = new PasswordCryptoContext("Password1");
+        for (int i = 0; i < 10; i++) {
+            var encrypted = new EncryptedJson();
+            encrypted.setSalt(context.getSalt());
+            encrypted.setIv(context.getIv());
+            encrypted.setValue(context.encrypt(new byte[]{(byte) i}));
+            assertArrayEquals(new byte[]{(byte) i}, context.decrypt(encrypted));
+        }
+        assertEquals(1, context.getCiphersCreated());
+        assertEquals(BaseCryptoContext.DEFAULT_CIPHER_POOL_SIZE, context.getCipherPoolSize());
+    }
+}
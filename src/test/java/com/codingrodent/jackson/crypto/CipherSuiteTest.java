@@ -0,0 +1,111 @@
+package com.codingrodent.jackson.crypto;
+
+import com.codingrodent.jackson.crypto.pojos.SecurePropertyPoJo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CipherSuiteTest {
+
+    private static ObjectMapper mapper(final ICryptoContext cryptoContext) {
+        var objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new CryptoModule().addEncryptionService(new EncryptionService(objectMapper, cryptoContext)));
+        return objectMapper;
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        for (var suite : CipherSuite.values()) {
+            var objectMapper = mapper(new PasswordCryptoContext("Password1", "Password1", suite));
+            var pojo = new SecurePropertyPoJo();
+            pojo.setCritical("Something very secure ...");
+
+            var json = objectMapper.writeValueAsString(pojo);
+            assertEquals(suite.isAead(), json.contains("\"suite\":\"" + suite.getId() + "\""), suite.getId());
+            assertEquals(pojo.getCritical(), objectMapper.readValue(json, SecurePropertyPoJo.class).getCritical(), suite.getId());
+        }
+    }
+
+    @Test
+    public void freshNoncePerMessage() {
+        var cryptoContext = new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM);
+        var service = new EncryptionService(new ObjectMapper(), cryptoContext);
+        var data = "Something very secure ...".getBytes(StandardCharsets.UTF_8);
+        var first = service.encrypt(data);
+        var second = service.encrypt(data);
+
+        assertEquals(CipherSuite.AES_GCM.getId(), first.getSuite());
+        assertEquals(12, first.getIv().length);
+        assertFalse(Arrays.equals(first.getIv(), second.getIv()));
+        assertFalse(Arrays.equals(first.getValue(), second.getValue()));
+        assertArrayEquals(data, service.decrypt(first));
+        assertArrayEquals(data, service.decrypt(second));
+        assertThrows(EncryptionException.class, () -> cryptoContext.encrypt(data));
+    }
+
+    @Test
+    public void mixedSuites() throws Exception {
+        var pojo = new SecurePropertyPoJo();
+        pojo.setCritical("Something very secure ...");
+        var cbc = mapper(new PasswordCryptoContext("Password1"));
+        var gcmContext = new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM);
+        var gcm = mapper(gcmContext);
+        var chacha = mapper(new PasswordCryptoContext("Password1", "Password1", CipherSuite.CHACHA20_POLY1305));
+
+        // Data written before a change of suite is only readable once enabled, and the other way round always
+        var json = cbc.writeValueAsString(pojo);
+        assertThrows(Exception.class, () -> gcm.readValue(json, SecurePropertyPoJo.class));
+        gcmContext.setLegacyCbcEnabled(true);
+        assertEquals(pojo.getCritical(), gcm.readValue(json, SecurePropertyPoJo.class).getCritical());
+        assertEquals(pojo.getCritical(), cbc.readValue(gcm.writeValueAsString(pojo), SecurePropertyPoJo.class).getCritical());
+        assertEquals(pojo.getCritical(), gcm.readValue(chacha.writeValueAsString(pojo), SecurePropertyPoJo.class).getCritical());
+    }
+
+    @Test
+    public void suiteRemoved() {
+        var cryptoContext = new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM);
+        var service = new EncryptionService(new ObjectMapper(), cryptoContext);
+        var encrypted = service.encrypt("Something very secure ...".getBytes(StandardCharsets.UTF_8));
+        encrypted.setSuite(null);
+        assertFalse(cryptoContext.isLegacyCbcEnabled());
+        assertThrows(EncryptionException.class, () -> service.decrypt(encrypted));
+        // nor can the message claim to be AES/CBC
+        encrypted.setSuite(CipherSuite.AES_CBC.getId());
+        assertThrows(EncryptionException.class, () -> service.decrypt(encrypted));
+        assertTrue(new PasswordCryptoContext("Password1").isLegacyCbcEnabled());
+    }
+
+    @Test
+    public void readTwice() {
+        for (var suite : CipherSuite.values()) {
+            var service = new EncryptionService(new ObjectMapper(), new PasswordCryptoContext("Password1", "Password1", suite));
+            var data = "Something very secure ...".getBytes(StandardCharsets.UTF_8);
+            var encrypted = service.encrypt(data);
+            assertArrayEquals(data, service.decrypt(encrypted), suite.getId());
+            assertArrayEquals(data, service.decrypt(encrypted), suite.getId());
+        }
+    }
+
+    @Test
+    public void tampered() {
+        var service = new EncryptionService(new ObjectMapper(), new PasswordCryptoContext("Password1", "Password1", CipherSuite.CHACHA20_POLY1305));
+        var encrypted = service.encrypt("Something very secure ...".getBytes(StandardCharsets.UTF_8));
+        var value = encrypted.getValue();
+        value[0] ^= 1;
+        encrypted.setValue(value);
+        assertThrows(EncryptionException.class, () -> service.decrypt(encrypted));
+    }
+
+    @Test
+    public void lookup() {
+        assertSame(CipherSuite.AES_GCM, CipherSuite.fromId("AES-GCM"));
+        assertThrows(EncryptionException.class, () -> CipherSuite.fromId("ROT-13"));
+        assertSame(CipherSuite.AES_CBC, CipherSuite.forCipherName(PasswordCryptoContext.CIPHER_NAME));
+        assertSame(CipherSuite.CHACHA20_POLY1305, CipherSuite.forCipherName("chacha20-poly1305"));
+        assertNull(CipherSuite.forCipherName("DES/CBC/PKCS5Padding"));
+    }
+}
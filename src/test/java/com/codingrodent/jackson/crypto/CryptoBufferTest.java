@@ -0,0 +1,118 @@
+package com.codingrodent.jackson.crypto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CryptoBufferTest {
+
+    private static final byte[] DATA = "Something very secure ...".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void roundTrip() {
+        var keyRing = new KeyRingCryptoContext("k1", new PasswordCryptoContext("Password1"));
+        keyRing.addKey("k2", new SecretKeyCryptoContext(new SecretKeySpec(new byte[32], "AES"), CipherSuite.CHACHA20_POLY1305));
+        for (var context : List.<ICryptoContext>of(new PasswordCryptoContext("Password1"), new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM),
+                new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM, new byte[16]), new SecretKeyCryptoContext(new SecretKeySpec(new byte[16], "AES")),
+                keyRing)) {
+            var encryptionService = new EncryptionService(new ObjectMapper(), context);
+            var pool = encryptionService.getBufferPool();
+            var source = pool.acquire().put(DATA).flip();
+            var encrypted = pool.acquire();
+            var written = encryptionService.encrypt(source, encrypted);
+            assertFalse(source.hasRemaining());
+            assertEquals(written, encrypted.position());
+            assertTrue(written <= encryptionService.getMaxEncryptedLength(DATA.length));
+            encrypted.flip();
+
+            // the same message as the compact form holds
+            var compact = new byte[written];
+            encrypted.duplicate().get(compact);
+            assertArrayEquals(DATA, encryptionService.decrypt(Envelope.ofCompact(compact), null));
+
+            var decrypted = pool.acquire();
+            assertEquals(DATA.length, encryptionService.decrypt(encrypted, decrypted));
+            var clear = new byte[DATA.length];
+            decrypted.flip().get(clear);
+            assertArrayEquals(DATA, clear);
+            for (var buffer : List.of(source, encrypted, decrypted))
+                pool.release(buffer);
+            assertEquals(3, pool.getIdle());
+
+            // the key ring now writes with a key that does not derive keys
+            if (context == keyRing)
+                keyRing.setActiveKey("k2");
+        }
+        var encryptionService = new EncryptionService(new ObjectMapper(), keyRing);
+        var encrypted = ByteBuffer.allocate(encryptionService.getMaxEncryptedLength(DATA.length));
+        encryptionService.encrypt(ByteBuffer.wrap(DATA), encrypted);
+        var compact = Envelope.ofCompact(Arrays.copyOf(encrypted.array(), encrypted.position()));
+        assertEquals("k2", compact.keyId());
+        assertEquals(CipherSuite.CHACHA20_POLY1305, compact.suite());
+    }
+
+    @Test
+    public void maxEncryptedLength() {
+        var keyRing = new KeyRingCryptoContext("key", new SecretKeyCryptoContext(new SecretKeySpec(new byte[32], "AES"), CipherSuite.CHACHA20_POLY1305));
+        for (var context : List.<ICryptoContext>of(new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM),
+                new SecretKeyCryptoContext(new SecretKeySpec(new byte[16], "AES"), CipherSuite.AES_GCM), keyRing)) {
+            var encryptionService = new EncryptionService(new ObjectMapper(), context);
+            var length = encryptionService.getMaxEncryptedLength(DATA.length);
+            assertEquals(length, encryptionService.getMaxEncryptedLength(DATA.length));
+            var encrypted = ByteBuffer.allocate(length);
+            // an AEAD message with a 16 byte tag uses all the space
+            assertEquals(length, encryptionService.encrypt(ByteBuffer.wrap(DATA), encrypted));
+        }
+
+        // measuring does not use up a nonce, so the first message has the first one
+        var context = new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM);
+        var encryptionService = new EncryptionService(new ObjectMapper(), context);
+        var encrypted = ByteBuffer.allocate(encryptionService.getMaxEncryptedLength(DATA.length));
+        encryptionService.encrypt(ByteBuffer.wrap(DATA), encrypted);
+        var iv = Envelope.ofCompact(Arrays.copyOf(encrypted.array(), encrypted.position())).iv();
+        assertArrayEquals(new byte[Long.BYTES], Arrays.copyOfRange(iv, iv.length - Long.BYTES, iv.length));
+    }
+
+    @Test
+    public void heapBuffers() {
+        var encryptionService = new EncryptionService(new ObjectMapper(), new PasswordCryptoContext("Password1"));
+        var encrypted = ByteBuffer.allocate(encryptionService.getMaxEncryptedLength(DATA.length));
+        encryptionService.encrypt(ByteBuffer.wrap(DATA), encrypted);
+        // room is needed for the padding before it is removed
+        var decrypted = ByteBuffer.allocate(encrypted.position());
+        assertEquals(DATA.length, encryptionService.decrypt(encrypted.flip(), decrypted));
+        assertArrayEquals(DATA, Arrays.copyOf(decrypted.array(), DATA.length));
+    }
+
+    @Test
+    public void invalid() {
+        var encryptionService = new EncryptionService(new ObjectMapper(), new PasswordCryptoContext("Password1"));
+        var metrics = new CryptoMetrics();
+        encryptionService.setCryptoListener(metrics);
+        // too small, nothing written
+        var small = ByteBuffer.allocateDirect(DATA.length);
+        var source = ByteBuffer.wrap(DATA);
+        assertThrows(EncryptionException.class, () -> encryptionService.encrypt(source, small));
+        assertEquals(0, small.position());
+        assertEquals(DATA.length, source.remaining());
+
+        var encrypted = ByteBuffer.allocateDirect(encryptionService.getMaxEncryptedLength(DATA.length));
+        encryptionService.encrypt(source, encrypted);
+        encrypted.flip();
+        // truncated cipher text
+        var truncated = encrypted.duplicate().limit(encrypted.limit() - 1);
+        assertThrows(EncryptionException.class, () -> encryptionService.decrypt(truncated, ByteBuffer.allocateDirect(64)));
+        assertEquals(1, metrics.getValidationFailures());
+        assertThrows(EncryptionException.class, () -> encryptionService.decrypt(ByteBuffer.allocate(0), ByteBuffer.allocate(64)));
+        assertThrows(EncryptionException.class, () -> encryptionService.decrypt(ByteBuffer.wrap(new byte[]{9, 0, 0, 0, 0}), ByteBuffer.allocate(64)));
+        assertEquals(1, metrics.getEncryptCount());
+        assertEquals(0, metrics.getDecryptCount());
+    }
+}
@@ -0,0 +1,85 @@
+package com.codingrodent.jackson.crypto;
+
+import com.codingrodent.jackson.crypto.pojos.InsecurePojo;
+import com.codingrodent.jackson.crypto.pojos.SecureCollectionPoJo;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CryptoCollectionTest {
+
+    @Test
+    public void encryptCollection() throws Exception {
+        var objectMapper = new ObjectMapper();
+        var encryptionService = new EncryptionService(objectMapper, new PasswordCryptoContext("Password1"));
+        objectMapper.registerModule(new CryptoModule().addEncryptionService(encryptionService));
+
+        var pojo = new SecureCollectionPoJo();
+        pojo.setItems(List.of(new InsecurePojo("one"), new InsecurePojo("two")));
+
+        var json = objectMapper.writeValueAsString(pojo);
+        var pojos = objectMapper.readValue("[" + json + "," + json + "]", SecureCollectionPoJo[].class);
+        assertEquals(2, pojos.length);
+        for (var pojo2 : pojos) {
+            assertEquals(2, pojo2.getItems().size());
+            assertEquals("one", pojo2.getItems().get(0).getCritical());
+            assertEquals("two", pojo2.getItems().get(1).getCritical());
+        }
+    }
+
+    @Test
+    public void delegateContextualisedOnce() throws Exception {
+        var objectMapper = new ObjectMapper();
+        var encryptionService = new EncryptionService(objectMapper, new PasswordCryptoContext("Password1"));
+        objectMapper.registerModule(new CryptoModule().addEncryptionService(encryptionService));
+
+        var pojo = new CountedPoJo();
+        pojo.critical = "Something very secure ...";
+        var json = objectMapper.writeValueAsString(pojo);
+
+        assertEquals(pojo.critical, objectMapper.readValue(json, CountedPoJo.class).critical);
+        var contextualised = CountingDeserializer.contextualised.get();
+        // No further contextualisation however many values are read
+        var pojos = objectMapper.readValue("[" + json + "," + json + "," + json + "]", CountedPoJo[].class);
+        assertEquals(3, pojos.length);
+        for (var pojo2 : pojos)
+            assertEquals(pojo.critical, pojo2.critical);
+        assertEquals(contextualised, CountingDeserializer.contextualised.get());
+    }
+
+    public static class CountedPoJo {
+        @JsonProperty
+        @Encrypt
+        @JsonDeserialize(using = CountingDeserializer.class)
+        private String critical;
+    }
+
+    public static class CountingDeserializer extends StdDeserializer<String> implements ContextualDeserializer {
+        static final AtomicInteger contextualised = new AtomicInteger();
+
+        public CountingDeserializer() {
+            super(String.class);
+        }
+
+        @Override
+        public String deserialize(final JsonParser parser, final DeserializationContext context) throws IOException {
+            return parser.getValueAsString();
+        }
+
+        @Override
+        public JsonDeserializer<?> createContextual(final DeserializationContext context, final BeanProperty property) {
+            contextualised.incrementAndGet();
+            return this;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.codingrodent.jackson.crypto;
+
+import com.codingrodent.jackson.crypto.pojos.SecurePropertyPoJo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CryptoEventsTest {
+
+    @Test
+    public void events() throws Exception {
+        var objectMapper = new ObjectMapper();
+        var writer = new EncryptionService(objectMapper, new PasswordCryptoContext("Password1"));
+        objectMapper.registerModule(new CryptoModule().addEncryptionService(writer));
+        var pojo = new SecurePropertyPoJo();
+        pojo.setCritical("Something very secure ...");
+        var json = objectMapper.writeValueAsString(pojo);
+        var reader = EncryptionService.getInstance("Password1");
+
+        List<RecordedEvent> events;
+        var file = Files.createTempFile("crypto", ".jfr");
+        try (var recording = new Recording()) {
+            for (var name : List.of("Encrypt", "Decrypt", "Validate", "KeyDerivation"))
+                recording.enable(CryptoEvents.PREFIX + name);
+            recording.start();
+            objectMapper.writeValueAsString(pojo);
+            // a new context has to derive the key for the salt in the message
+            assertEquals(pojo.getCritical(), reader.readValue(json, SecurePropertyPoJo.class).getCritical());
+            recording.stop();
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+        var byName = events.stream().collect(Collectors.groupingBy(event -> event.getEventType().getName().substring(CryptoEvents.PREFIX.length())));
+
+        for (var name : List.of("Encrypt", "Decrypt", "Validate")) {
+            var event = byName.get(name).get(0);
+            assertEquals(SecurePropertyPoJo.class.getName(), event.getClass("beanClass").getName(), name);
+            assertEquals("critical", event.getString("property"), name);
+            assertEquals(1, event.getInt("messages"));
+            assertTrue(event.getLong("size") > 0);
+        }
+        assertTrue(byName.get("Validate").get(0).getBoolean("valid"));
+        var keyDerivation = byName.get("KeyDerivation").get(0);
+        assertEquals(KeyDerivation.PBKDF2.getId(), keyDerivation.getString("kdf"));
+        assertEquals("AES", keyDerivation.getString("algorithm"));
+    }
+
+    @Test
+    public void disabledByDefault() throws Exception {
+        var encryptionService = new EncryptionService(new ObjectMapper(), new PasswordCryptoContext("Password1"));
+        var file = Files.createTempFile("crypto", ".jfr");
+        try (var recording = new Recording()) {
+            recording.start();
+            encryptionService.decrypt(encryptionService.encrypt(new byte[]{1, 2, 3}));
+            recording.stop();
+            recording.dump(file);
+            assertTrue(RecordingFile.readAllEvents(file).stream().noneMatch(event -> event.getEventType().getName().startsWith(CryptoEvents.PREFIX)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.codingrodent.jackson.crypto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CryptoMetricsTest {
+
+    private static final byte[] DATA = "Something very secure ...".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void encryptAndDecrypt() {
+        var encryptionService = new EncryptionService(new ObjectMapper(), new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM));
+        var metrics = new CryptoMetrics();
+        encryptionService.setCryptoListener(metrics);
+        assertSame(metrics, encryptionService.getCryptoListener());
+
+        var encrypted = encryptionService.encrypt(DATA);
+        assertEquals(1, metrics.getEncryptCount());
+        assertEquals(DATA.length, metrics.getPlainBytesEncrypted());
+        assertEquals(encrypted.getValue().length, metrics.getCipherBytesEncrypted());
+        assertArrayEquals(DATA, encryptionService.decrypt(encrypted));
+        assertEquals(1, metrics.getDecryptCount());
+        assertEquals(encrypted.getValue().length, metrics.getCipherBytesDecrypted());
+        assertEquals(DATA.length, metrics.getPlainBytesDecrypted());
+        assertTrue(metrics.getEncryptTotalNanos() > 0);
+        assertTrue(metrics.getDecryptMaxNanos() > 0);
+        assertTrue(metrics.getDecrypt99thPercentileNanos() <= metrics.getDecryptMaxNanos());
+
+        // every message in a batch is counted
+        var batch = encryptionService.encryptAll(List.of(DATA, DATA, DATA));
+        assertEquals(4, metrics.getEncryptCount());
+        assertEquals(4L * DATA.length, metrics.getPlainBytesEncrypted());
+        encryptionService.decryptAll(batch);
+        assertEquals(4, metrics.getDecryptCount());
+        assertEquals(4L * DATA.length, metrics.getPlainBytesDecrypted());
+
+        metrics.reset();
+        assertEquals(0, metrics.getEncryptCount());
+        assertEquals(0, metrics.getPlainBytesEncrypted());
+        assertEquals(0, metrics.getEncryptMaxNanos());
+    }
+
+    @Test
+    public void keyDerivation() {
+        var other = new EncryptionService(new ObjectMapper(), new PasswordCryptoContext("Password1"));
+        var encrypted = other.encrypt(DATA);
+        var encryptionService = new EncryptionService(new ObjectMapper(), new PasswordCryptoContext("Password1"));
+        var metrics = new CryptoMetrics();
+        encryptionService.setCryptoListener(metrics);
+        // a new salt is a key cache miss, after that the key is cached
+        encryptionService.decrypt(encrypted);
+        encryptionService.decrypt(encrypted);
+        assertEquals(1, metrics.getKeyDerivationCount());
+        assertTrue(metrics.getKeyDerivationMeanNanos() > 0);
+        assertEquals(metrics.getKeyDerivationMaxNanos(), metrics.getKeyDerivationTotalNanos());
+    }
+
+    @Test
+    public void validationFailures() {
+        var encryptionService = new EncryptionService(new ObjectMapper(), new PasswordCryptoContext("Password1"));
+        var metrics = new CryptoMetrics();
+        encryptionService.setCryptoListener(metrics);
+        var encrypted = encryptionService.encrypt(DATA);
+        encrypted.setIv(new byte[4]);
+        assertThrows(EncryptionException.class, () -> encryptionService.decrypt(encrypted));
+        assertEquals(1, metrics.getValidationFailures());
+        assertEquals(0, metrics.getDecryptCount());
+    }
+
+    @Test
+    public void noListener() {
+        var encryptionService = new EncryptionService(new ObjectMapper(), new PasswordCryptoContext("Password1"));
+        var calls = new AtomicInteger();
+        encryptionService.setCryptoListener(new CryptoListener() {
+            @Override
+            public void encrypted(final int messages, final long plainBytes, final long cipherBytes, final long nanos) {
+                calls.incrementAndGet();
+            }
+        });
+        encryptionService.decrypt(encryptionService.encrypt(DATA));
+        assertEquals(1, calls.get());
+        encryptionService.setCryptoListener(null);
+        assertNull(encryptionService.getCryptoListener());
+        encryptionService.decrypt(encryptionService.encrypt(DATA));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void keyRing() {
+        var keyRing = new KeyRingCryptoContext("k1", new PasswordCryptoContext("Password1"));
+        var encryptionService = new EncryptionService(new ObjectMapper(), keyRing);
+        var metrics = new CryptoMetrics();
+        encryptionService.setCryptoListener(metrics);
+        // members added later are also told
+        keyRing.addKey("k2", new PasswordCryptoContext("Password2"));
+        var encrypted = new EncryptionService(new ObjectMapper(), new KeyRingCryptoContext("k2", new PasswordCryptoContext("Password2"))).encrypt(DATA);
+        assertArrayEquals(DATA, encryptionService.decrypt(encrypted));
+        assertEquals(1, metrics.getKeyDerivationCount());
+    }
+
+    @Test
+    public void histogram() {
+        var histogram = new Log2Histogram();
+        for (long i = 1; i <= 100; i++)
+            histogram.record(i * 1000);
+        assertEquals(100, histogram.getCount());
+        assertEquals(5_050_000, histogram.getTotal());
+        assertEquals(50_500, histogram.getMean());
+        assertEquals(100_000, histogram.getMax());
+        // percentiles are the upper bound of their power of two bucket, capped at the maximum
+        assertEquals(65_535, histogram.getPercentile(50));
+        assertEquals(100_000, histogram.getPercentile(99));
+        assertEquals(0, new Log2Histogram().getPercentile(99));
+        histogram.record(0);
+        assertEquals(101, histogram.getCount());
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void jmx() throws Exception {
+        var metrics = new CryptoMetrics();
+        var name = metrics.register(new ObjectName(CryptoMetrics.DEFAULT_OBJECT_NAME + ",name=test"));
+        try {
+            metrics.encrypted(2, 10, 40, 1000);
+            var server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(2L, server.getAttribute(name, "EncryptCount"));
+            assertEquals(40L, server.getAttribute(name, "CipherBytesEncrypted"));
+            assertThrows(EncryptionException.class, () -> metrics.register(name));
+        } finally {
+            CryptoMetrics.unregister(name);
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+}
@@ -25,11 +25,14 @@ package com.codingrodent.jackson.crypto;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.Deserializers;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.Serializers;
 import org.easymock.EasyMock;
 import org.junit.jupiter.api.Test;
 
+import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.isA;
 import static org.junit.jupiter.api.Assertions.*;
@@ -69,13 +72,20 @@ public class CryptoModuleTest {
     public void setupModule() {
         var cryptoModule = new CryptoModule();
         SimpleModule.SetupContext context = EasyMock.createMock(SimpleModule.SetupContext.class);
+        expect(context.getOwner()).andReturn(new ObjectMapper());
         context.addBeanDeserializerModifier(isA(BeanDeserializerModifier.class));
         expectLastCall().times(1);
         context.addBeanSerializerModifier(isA(BeanSerializerModifier.class));
         expectLastCall().times(1);
+        context.addSerializers(isA(Serializers.class));
+        expectLastCall().times(1);
+        context.addDeserializers(isA(Deserializers.class));
+        expectLastCall().times(1);
+        EasyMock.replay(context);
         //
         var encryptionService = new EncryptionService(new ObjectMapper(), new PasswordCryptoContext("password"));
         cryptoModule.addEncryptionService(encryptionService);
         cryptoModule.setupModule(context);
+        EasyMock.verify(context);
     }
 }
\ No newline at end of file
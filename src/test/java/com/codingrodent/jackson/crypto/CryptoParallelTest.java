@@ -0,0 +1,219 @@
+package com.codingrodent.jackson.crypto;
+
+import com.codingrodent.jackson.crypto.pojos.SecurePropertyPoJo;
+import com.codingrodent.jackson.crypto.pojos.WideSecurePoJo;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CryptoParallelTest {
+
+    private static ThreadPoolExecutor executor;
+
+    @BeforeAll
+    public static void start() {
+        executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    public static void stop() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void sameAsSequential() throws Exception {
+        var cryptoContext = new PasswordCryptoContext("Password1");
+        var sequential = mapper(cryptoContext, null);
+        var parallel = mapper(cryptoContext, new CryptoModule().enableParallelEncryption(executor, 4));
+        var pojo = pojo("parent");
+        pojo.setChild(pojo("child"));
+        //
+        var tasks = executor.getTaskCount();
+        var json = parallel.writeValueAsString(pojo);
+        assertTrue(executor.getTaskCount() > tasks);
+        assertEquals(sequential.writeValueAsString(pojo), json);
+        assertFalse(json.contains("parent-first"));
+        //
+        tasks = executor.getTaskCount();
+        var read = parallel.readValue(json, WideSecurePoJo.class);
+        assertTrue(executor.getTaskCount() > tasks);
+        assertPojo(pojo, read);
+        assertPojo(pojo.getChild(), read.getChild());
+        assertPojo(pojo, sequential.readValue(json, WideSecurePoJo.class));
+    }
+
+    @Test
+    public void aead() throws Exception {
+        var parallel = mapper(new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM), new CryptoModule().enableParallelEncryption(executor, 1));
+        var pojo = pojo("parent");
+        var read = parallel.readValue(parallel.writeValueAsString(pojo), WideSecurePoJo.class);
+        assertPojo(pojo, read);
+        // Below the threshold, e.g. SecurePropertyPoJo, fields are handled as before
+        var inner = parallel.readValue(parallel.writeValueAsString(pojo.getInner()), SecurePropertyPoJo.class);
+        assertEquals(pojo.getInner().getCritical(), inner.getCritical());
+    }
+
+    @Test
+    public void updateValue() throws Exception {
+        var parallel = mapper(new PasswordCryptoContext("Password1"), new CryptoModule().enableParallelEncryption(executor, 4));
+        var pojo = pojo("parent");
+        var target = new WideSecurePoJo();
+        parallel.readerForUpdating(target).readValue(parallel.writeValueAsString(pojo));
+        assertPojo(pojo, target);
+    }
+
+    @Test
+    public void tampered() throws Exception {
+        var parallel = mapper(new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM), new CryptoModule().enableParallelEncryption(executor, 4));
+        var tree = parallel.readTree(parallel.writeValueAsString(pojo("parent")));
+        var second = (ObjectNode) tree.get("second");
+        second.put("iv", "AAAAAAAAAAAAAAAA");
+        assertThrows(EncryptionException.class, () -> parallel.treeToValue(tree, WideSecurePoJo.class));
+    }
+
+    @Test
+    public void fieldsReadOnce() throws Exception {
+        var parallel = mapper(new PasswordCryptoContext("Password1"), new CryptoModule().enableParallelEncryption(executor, 2));
+        var pojo = new ViewPoJo();
+        var json = parallel.writeValueAsString(pojo);
+        assertEquals(List.of("open", "hidden", "shared"), pojo.read);
+        var read = parallel.readValue(json, ViewPoJo.class);
+        assertEquals("hidden-value", read.hiddenValue);
+    }
+
+    @Test
+    public void onlyWrittenFields() throws Exception {
+        var cryptoContext = new PasswordCryptoContext("Password1");
+        var parallel = mapper(cryptoContext, new CryptoModule().enableParallelEncryption(executor, 2));
+        // fields outside the active view are not read
+        var pojo = new ViewPoJo();
+        var json = parallel.writerWithView(Public.class).writeValueAsString(pojo);
+        assertEquals(List.of("open", "shared"), pojo.read);
+        var read = mapper(cryptoContext, null).readValue(json, ViewPoJo.class);
+        assertEquals("open-value", read.openValue);
+        assertEquals("shared-value", read.sharedValue);
+        assertEquals("hidden-value", read.hiddenValue);
+        assertFalse(json.contains("\"hidden\""));
+        pojo.read.clear();
+        parallel.writerWithView(Internal.class).writeValueAsString(pojo);
+        assertEquals(List.of("hidden", "shared"), pojo.read);
+        // or when views are only included if named
+        var strict = mapper(cryptoContext, new CryptoModule().enableParallelEncryption(executor, 1));
+        strict.disable(MapperFeature.DEFAULT_VIEW_INCLUSION);
+        pojo.read.clear();
+        strict.writerWithView(Public.class).writeValueAsString(pojo);
+        assertEquals(List.of("open"), pojo.read);
+
+        // nor are fields a property filter drops
+        var filtered = new FilteredPoJo();
+        var filters = new SimpleFilterProvider().addFilter("secure", SimpleBeanPropertyFilter.serializeAllExcept("hidden"));
+        json = parallel.writer(filters).writeValueAsString(filtered);
+        assertEquals(List.of("open", "shared"), filtered.read);
+        assertFalse(json.contains("\"hidden\""));
+        assertEquals("shared-value", mapper(cryptoContext, null).readValue(json, ViewPoJo.class).sharedValue);
+    }
+
+    @Test
+    public void invalidSettings() {
+        var module = new CryptoModule();
+        assertThrows(EncryptionException.class, () -> module.enableParallelEncryption(null));
+        assertThrows(EncryptionException.class, () -> module.enableParallelEncryption(executor, 0));
+        assertSame(module, module.enableParallelEncryption(executor));
+    }
+
+    private static ObjectMapper mapper(final ICryptoContext cryptoContext, final CryptoModule module) {
+        var objectMapper = new ObjectMapper();
+        var encryptionService = new EncryptionService(objectMapper, cryptoContext);
+        objectMapper.registerModule((null == module ? new CryptoModule() : module).addEncryptionService(encryptionService));
+        return objectMapper;
+    }
+
+    private static WideSecurePoJo pojo(final String name) {
+        var pojo = new WideSecurePoJo();
+        pojo.setName(name);
+        pojo.setFirst(name + "-first");
+        pojo.setSecond(name + "-second");
+        // third left null
+        pojo.setNumber(name.length());
+        pojo.setItems(List.of(name, "a", "b"));
+        var inner = new SecurePropertyPoJo();
+        inner.setCritical(name + "-inner");
+        pojo.setInner(inner);
+        return pojo;
+    }
+
+    private static void assertPojo(final WideSecurePoJo expected, final WideSecurePoJo actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getFirst(), actual.getFirst());
+        assertEquals(expected.getSecond(), actual.getSecond());
+        assertNull(actual.getThird());
+        assertEquals(expected.getNumber(), actual.getNumber());
+        assertEquals(expected.getItems(), actual.getItems());
+        assertEquals(expected.getInner().getCritical(), actual.getInner().getCritical());
+    }
+
+    public interface Public {
+    }
+
+    public interface Internal {
+    }
+
+    @JsonPropertyOrder({"open", "hidden", "shared"})
+    public static class ViewPoJo {
+        final List<String> read = new ArrayList<>();
+        String openValue = "open-value";
+        String hiddenValue = "hidden-value";
+        String sharedValue = "shared-value";
+
+        @Encrypt
+        @JsonView(Public.class)
+        public String getOpen() {
+            read.add("open");
+            return openValue;
+        }
+
+        public void setOpen(final String open) {
+            this.openValue = open;
+        }
+
+        @Encrypt
+        @JsonView(Internal.class)
+        public String getHidden() {
+            read.add("hidden");
+            return hiddenValue;
+        }
+
+        public void setHidden(final String hidden) {
+            this.hiddenValue = hidden;
+        }
+
+        @Encrypt
+        public String getShared() {
+            read.add("shared");
+            return sharedValue;
+        }
+
+        public void setShared(final String shared) {
+            this.sharedValue = shared;
+        }
+    }
+
+    @JsonFilter("secure")
+    public static class FilteredPoJo extends ViewPoJo {
+    }
+}
@@ -0,0 +1,185 @@
+package com.codingrodent.jackson.crypto;
+
+import com.codingrodent.jackson.crypto.pojos.SecurePropertyPoJo;
+import com.codingrodent.jackson.crypto.pojos.WideSecurePoJo;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CryptoPassThroughTest {
+
+    @Test
+    public void unchangedFieldsPassThrough() throws Exception {
+        var encryptionService = service(new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM), new CryptoModule());
+        var objectMapper = encryptionService.getObjectMapper();
+        var json = objectMapper.readTree(objectMapper.writeValueAsString(pojo()));
+        // off by default, every field is encrypted again
+        assertFalse(encryptionService.isPassThrough());
+        var rewritten = rewrite(objectMapper, json);
+        assertNotEquals(json.get("first"), rewritten.get("first"));
+        // on, only changed fields are encrypted again
+        encryptionService.setPassThrough(true);
+        assertTrue(encryptionService.isPassThrough());
+        var read = objectMapper.treeToValue(json, WideSecurePoJo.class);
+        read.setSecond("changed");
+        read.getItems().add("more");
+        rewritten = objectMapper.readTree(objectMapper.writeValueAsString(read));
+        assertEquals(json.get("first"), rewritten.get("first"));
+        assertEquals(json.get("inner"), rewritten.get("inner"));
+        assertNotEquals(json.get("second"), rewritten.get("second"));
+        assertNotEquals(json.get("items"), rewritten.get("items"));
+        // primitives are always encrypted again
+        assertNotEquals(json.get("number"), rewritten.get("number"));
+        var again = objectMapper.treeToValue(rewritten, WideSecurePoJo.class);
+        assertEquals("parent-first", again.getFirst());
+        assertEquals("changed", again.getSecond());
+        assertEquals(List.of("parent", "a", "b", "more"), again.getItems());
+        assertEquals("parent-inner", again.getInner().getCritical());
+        // a replaced value is encrypted again even if equal
+        read.setFirst(new String(read.getFirst().toCharArray()));
+        assertNotEquals(json.get("first"), objectMapper.readTree(objectMapper.writeValueAsString(read)).get("first"));
+        encryptionService.setPassThrough(false);
+        assertNull(encryptionService.getEnvelopeTable());
+    }
+
+    @Test
+    public void parallelFields() throws Exception {
+        var encryptionService = service(new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM),
+                new CryptoModule().enableParallelEncryption(ForkJoinPool.commonPool(), 2));
+        encryptionService.setPassThrough(true);
+        var objectMapper = encryptionService.getObjectMapper();
+        var json = objectMapper.readTree(objectMapper.writeValueAsString(pojo()));
+        var read = objectMapper.treeToValue(json, WideSecurePoJo.class);
+        read.setFirst("changed");
+        var rewritten = objectMapper.readTree(objectMapper.writeValueAsString(read));
+        assertEquals(json.get("second"), rewritten.get("second"));
+        assertEquals(json.get("items"), rewritten.get("items"));
+        assertNotEquals(json.get("first"), rewritten.get("first"));
+        assertEquals("changed", objectMapper.treeToValue(rewritten, WideSecurePoJo.class).getFirst());
+    }
+
+    @Test
+    public void onlyCurrentMessagesPassThrough() throws Exception {
+        var keyRing = new KeyRingCryptoContext("k1", new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM));
+        var encryptionService = service(keyRing, new CryptoModule());
+        encryptionService.setPassThrough(true);
+        var objectMapper = encryptionService.getObjectMapper();
+        var pojo = new SecurePropertyPoJo();
+        pojo.setCritical("secret");
+        var json = objectMapper.writeValueAsString(pojo);
+        var read = objectMapper.readValue(json, SecurePropertyPoJo.class);
+        assertEquals(json, objectMapper.writeValueAsString(read));
+        // after rotation the field is written under the new key
+        keyRing.addKey("k2", new PasswordCryptoContext("Password2", "Password2", CipherSuite.AES_GCM));
+        keyRing.setActiveKey("k2");
+        assertTrue(objectMapper.writeValueAsString(read).contains("\"kid\":\"k2\""));
+
+        // or when the context writes with another suite or password
+        var message = new PasswordCryptoContext("Password1").encryptEnvelope(new byte[]{1}, 0, 1);
+        assertTrue(new PasswordCryptoContext("Password1").isCurrent(message));
+        assertFalse(new PasswordCryptoContext("Password1", "Password2").isCurrent(message));
+        assertFalse(new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM).isCurrent(message));
+        assertFalse(new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_CBC, new byte[16]).isCurrent(message));
+        assertFalse(keyRing.isCurrent(message));
+    }
+
+    @Test
+    public void table() {
+        var table = new EnvelopeTable();
+        var envelope = new PasswordCryptoContext("Password1").encryptEnvelope(new byte[]{1}, 0, 1);
+        var value = new String("value".toCharArray());
+        var plain = "\"value\"".getBytes(StandardCharsets.UTF_8);
+        var owner = new Object();
+        table.put(value, owner, "first", envelope, plain);
+        table.put(42, owner, "second", envelope, "42".getBytes(StandardCharsets.UTF_8));
+        assertEquals(1, table.size());
+        assertSame(envelope, table.get(value, owner, "first", plain, 0, plain.length));
+        assertNull(table.get("value", owner, "first", plain, 0, plain.length));
+        assertNull(table.get(value, owner, "first", "\"other\"".getBytes(StandardCharsets.UTF_8), 0, 7));
+        assertNull(table.get(null, owner, "first", plain, 0, plain.length));
+        // only for the field it was read from
+        assertNull(table.get(value, owner, "second", plain, 0, plain.length));
+        assertNull(table.get(value, new Object(), "first", plain, 0, plain.length));
+        assertNull(table.get(value, null, "first", plain, 0, plain.length));
+        // values not read from a bean field are not remembered
+        var element = new String("element".toCharArray());
+        table.put(element, null, null, envelope, plain);
+        assertEquals(1, table.size());
+        // the parser hands out one empty string for all empty values
+        var empty = "\"\"".getBytes(StandardCharsets.UTF_8);
+        table.put("", owner, "first", envelope, empty);
+        assertNull(table.get("", owner, "first", empty, 0, empty.length));
+        // an instance read from two messages is shared
+        var other = new PasswordCryptoContext("Password1").encryptEnvelope(new byte[]{1}, 0, 1);
+        table.put(value, owner, "second", other, plain);
+        assertNull(table.get(value, owner, "first", plain, 0, plain.length));
+        assertNull(table.get(value, owner, "second", plain, 0, plain.length));
+        table.put(value, owner, "first", envelope, plain);
+        assertNull(table.get(value, owner, "first", plain, 0, plain.length));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void copiedToAnotherField() throws Exception {
+        var encryptionService = service(new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM), new CryptoModule());
+        encryptionService.setPassThrough(true);
+        var objectMapper = encryptionService.getObjectMapper();
+        var json = objectMapper.readTree(objectMapper.writeValueAsString(pojo()));
+        var read = objectMapper.treeToValue(json, WideSecurePoJo.class);
+        read.setSecond(read.getFirst());
+        var written = objectMapper.readTree(objectMapper.writeValueAsString(read));
+        // the field the value was read from is written as is, the copy is encrypted afresh
+        assertEquals(json.get("first"), written.get("first"));
+        assertNotEquals(written.get("first"), written.get("second"));
+        assertEquals(read.getFirst(), objectMapper.treeToValue(written, WideSecurePoJo.class).getSecond());
+    }
+
+    @Test
+    public void sharedValuesEncryptedAgain() throws Exception {
+        var encryptionService = service(new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM), new CryptoModule());
+        encryptionService.setPassThrough(true);
+        var objectMapper = encryptionService.getObjectMapper();
+        var pojo = pojo();
+        pojo.setFirst("");
+        pojo.setSecond("");
+        var json = objectMapper.readTree(objectMapper.writeValueAsString(pojo));
+        var read = objectMapper.treeToValue(json, WideSecurePoJo.class);
+        assertSame(read.getFirst(), read.getSecond());
+        var rewritten = objectMapper.readTree(objectMapper.writeValueAsString(read));
+        // neither field reuses a message, so equal fields still give different messages
+        assertNotEquals(json.get("first"), rewritten.get("first"));
+        assertNotEquals(json.get("second"), rewritten.get("second"));
+        assertNotEquals(rewritten.get("first"), rewritten.get("second"));
+        assertEquals(json.get("inner"), rewritten.get("inner"));
+    }
+
+    private static JsonNode rewrite(final ObjectMapper objectMapper, final JsonNode json) throws Exception {
+        return objectMapper.readTree(objectMapper.writeValueAsString(objectMapper.treeToValue(json, WideSecurePoJo.class)));
+    }
+
+    private static EncryptionService service(final ICryptoContext cryptoContext, final CryptoModule module) {
+        var objectMapper = new ObjectMapper();
+        var encryptionService = new EncryptionService(objectMapper, cryptoContext);
+        objectMapper.registerModule(module.addEncryptionService(encryptionService));
+        return encryptionService;
+    }
+
+    private static WideSecurePoJo pojo() {
+        var pojo = new WideSecurePoJo();
+        pojo.setName("parent");
+        pojo.setFirst("parent-first");
+        pojo.setSecond("parent-second");
+        pojo.setNumber(6);
+        pojo.setItems(List.of("parent", "a", "b"));
+        var inner = new SecurePropertyPoJo();
+        inner.setCritical("parent-inner");
+        pojo.setInner(inner);
+        return pojo;
+    }
+}
@@ -29,7 +29,7 @@ import org.junit.jupiter.api.Test;
 
 import javax.validation.Validation;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 
 public class CryptoPropertyTest {
@@ -59,4 +59,25 @@ public class CryptoPropertyTest {
         SecurePropertyPoJo pojo2 = objectMapper.readValue(json, SecurePropertyPoJo.class);
         assertEquals(pojo.getCritical(), pojo2.getCritical());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void compactFormat() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        EncryptionService encryptionService = new EncryptionService(objectMapper, new PasswordCryptoContext("Password1"));
+        objectMapper.registerModule(new CryptoModule().addEncryptionService(encryptionService));
+
+        SecurePropertyPoJo pojo = new SecurePropertyPoJo();
+        pojo.setCritical("Something very secure ...");
+
+        String json = objectMapper.writeValueAsString(pojo);
+        assertEquals(EnvelopeFormat.OBJECT, encryptionService.getEnvelopeFormat());
+        encryptionService.setEnvelopeFormat(EnvelopeFormat.COMPACT);
+        String compact = objectMapper.writeValueAsString(pojo);
+        assertTrue(compact.startsWith("{\"critical\":\""));
+        assertTrue(compact.length() < json.length());
+        // both forms are always read
+        assertEquals(pojo.getCritical(), objectMapper.readValue(compact, SecurePropertyPoJo.class).getCritical());
+        assertEquals(pojo.getCritical(), objectMapper.readValue(json, SecurePropertyPoJo.class).getCritical());
+        assertThrows(EncryptionException.class, () -> encryptionService.setEnvelopeFormat(null));
+    }
+}
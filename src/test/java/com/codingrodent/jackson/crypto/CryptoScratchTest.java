@@ -0,0 +1,93 @@
+package com.codingrodent.jackson.crypto;
+
+import com.codingrodent.jackson.crypto.pojos.SecurePropertyPoJo;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CryptoScratchTest {
+
+    @Test
+    public void reuse() throws Exception {
+        var factory = new ObjectMapper().getFactory();
+        var scratch = SerializerScratch.acquire();
+        var generator = scratch.generator(factory);
+        generator.writeString("first");
+        assertEquals("\"first\"", new String(scratch.plain(), 0, scratch.finish(), StandardCharsets.UTF_8));
+        scratch.release(true);
+        // the scratch copy is cleared once used
+        assertEquals(0, scratch.plain()[0]);
+
+        // same scratch and generator, with no root separator before the next value
+        assertSame(scratch, SerializerScratch.acquire());
+        assertSame(generator, scratch.generator(factory));
+        generator.writeString("second");
+        assertEquals("\"second\"", new String(scratch.plain(), 0, scratch.finish(), StandardCharsets.UTF_8));
+
+        // in use further up the stack
+        var nested = SerializerScratch.acquire();
+        assertNotSame(scratch, nested);
+        nested.release(true);
+        scratch.release(true);
+
+        // a generator left part way through a value is not reused
+        scratch = SerializerScratch.acquire();
+        generator = scratch.generator(factory);
+        generator.writeStartObject();
+        scratch.release(false);
+        scratch = SerializerScratch.acquire();
+        assertNotSame(generator, scratch.generator(factory));
+        scratch.generator(factory).writeString("third");
+        assertEquals("\"third\"", new String(scratch.plain(), 0, scratch.finish(), StandardCharsets.UTF_8));
+        scratch.release(true);
+    }
+
+    @Test
+    public void large() throws Exception {
+        var scratch = SerializerScratch.acquire();
+        scratch.generator(new ObjectMapper().getFactory()).writeBinary(new byte[SerializerScratch.MAX_RETAINED]);
+        assertTrue(scratch.finish() > SerializerScratch.MAX_RETAINED);
+        scratch.cipherText(SerializerScratch.MAX_RETAINED + 1);
+        scratch.release(true);
+        assertTrue(scratch.plain().length <= SerializerScratch.MAX_RETAINED);
+        assertTrue(scratch.cipherText(0).length <= SerializerScratch.MAX_RETAINED);
+    }
+
+    @Test
+    public void nested() throws Exception {
+        for (var format : EnvelopeFormat.values()) {
+            var objectMapper = new ObjectMapper();
+            var encryptionService = new EncryptionService(objectMapper, new PasswordCryptoContext("Password1"));
+            encryptionService.setEnvelopeFormat(format);
+            objectMapper.registerModule(new CryptoModule().addEncryptionService(encryptionService));
+            var inner = new SecurePropertyPoJo();
+            inner.setCritical("Inner secret");
+            var outer = new Outer();
+            outer.name = "Outer secret";
+            outer.inner = inner;
+
+            // the same value twice over, as bytes and as text
+            for (int i = 0; i < 2; i++) {
+                var read = objectMapper.readValue(objectMapper.writeValueAsBytes(outer), Outer.class);
+                assertEquals("Outer secret", read.name);
+                assertEquals("Inner secret", read.inner.getCritical());
+                read = objectMapper.readValue(objectMapper.writeValueAsString(outer), Outer.class);
+                assertEquals("Inner secret", read.inner.getCritical());
+            }
+        }
+    }
+
+    public static class Outer {
+        @JsonProperty
+        @Encrypt
+        public String name;
+
+        @JsonProperty
+        @Encrypt
+        public SecurePropertyPoJo inner;
+    }
+}
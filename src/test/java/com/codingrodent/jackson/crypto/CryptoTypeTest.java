@@ -0,0 +1,150 @@
+package com.codingrodent.jackson.crypto;
+
+import com.codingrodent.jackson.crypto.pojos.InsecurePojo;
+import com.codingrodent.jackson.crypto.pojos.SecureTypeHolderPoJo;
+import com.codingrodent.jackson.crypto.pojos.SecureTypePoJo;
+import com.fasterxml.jackson.annotation.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CryptoTypeTest {
+
+    private ObjectMapper objectMapper;
+    private EncryptionService encryptionService;
+
+    @BeforeEach
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        encryptionService = new EncryptionService(objectMapper, new PasswordCryptoContext("Password1"));
+        objectMapper.registerModule(new CryptoModule().addEncryptionService(encryptionService));
+    }
+
+    @Test
+    public void root() throws Exception {
+        var pojo = pojo("secret");
+        var json = objectMapper.writeValueAsString(pojo);
+        assertFalse(json.contains("secret"));
+        // one message for the whole bean
+        var tree = objectMapper.readTree(json);
+        assertEquals(3, tree.size());
+        assertTrue(tree.has("value"));
+        assertPojo(pojo, objectMapper.readValue(json, SecureTypePoJo.class));
+    }
+
+    @Test
+    public void nested() throws Exception {
+        var holder = new SecureTypeHolderPoJo();
+        holder.setLabel("visible");
+        holder.setSecure(pojo("secret"));
+        holder.setList(List.of(pojo("first"), pojo("second")));
+        var json = objectMapper.writeValueAsString(holder);
+        assertTrue(json.contains("visible"));
+        assertFalse(json.contains("secret"));
+        assertFalse(json.contains("first"));
+        var read = objectMapper.readValue(json, SecureTypeHolderPoJo.class);
+        assertEquals("visible", read.getLabel());
+        assertPojo(holder.getSecure(), read.getSecure());
+        assertPojo(holder.getList().get(1), read.getList().get(1));
+    }
+
+    @Test
+    public void compactAndUpdate() throws Exception {
+        encryptionService.setEnvelopeFormat(EnvelopeFormat.COMPACT);
+        var pojo = pojo("secret");
+        var json = objectMapper.writeValueAsString(pojo);
+        assertTrue(json.startsWith("\""));
+        var target = new SecureTypePoJo();
+        assertSame(target, objectMapper.readerForUpdating(target).readValue(json));
+        assertPojo(pojo, target);
+    }
+
+    @Test
+    public void polymorphic() throws Exception {
+        for (var format : EnvelopeFormat.values()) {
+            encryptionService.setEnvelopeFormat(format);
+            var holder = new PolymorphicHolder();
+            holder.shape = new SecureCircle();
+            holder.shape.secret = "secret";
+            holder.shapes = List.of(new SecureCircle(), new SecureCircle());
+            holder.shapes.get(1).secret = "second";
+            var json = objectMapper.writeValueAsString(holder);
+            assertTrue(json.contains("circle"));
+            assertFalse(json.contains("secret"));
+            assertFalse(json.contains("second"));
+            var read = objectMapper.readValue(json, PolymorphicHolder.class);
+            assertEquals(SecureCircle.class, read.shape.getClass());
+            assertEquals("secret", read.shape.secret);
+            assertEquals("second", read.shapes.get(1).secret);
+        }
+        // default typing
+        var typedMapper = new ObjectMapper();
+        var typedService = new EncryptionService(typedMapper, new PasswordCryptoContext("Password1"));
+        typedMapper.registerModule(new CryptoModule().addEncryptionService(typedService));
+        typedMapper.activateDefaultTyping(typedMapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL);
+        var holder = new ObjectHolder();
+        var pojo = pojo("secret");
+        // lists are typed too, so must be constructible
+        pojo.setItems(new ArrayList<>(pojo.getItems()));
+        holder.value = pojo;
+        var json = typedMapper.writeValueAsString(holder);
+        assertFalse(json.contains("secret"));
+        assertPojo(pojo("secret"), (SecureTypePoJo) typedMapper.readValue(json, ObjectHolder.class).value);
+    }
+
+    @Test
+    public void unwrapped() {
+        var holder = new UnwrappedHolder();
+        holder.secure = pojo("secret");
+        var e = assertThrows(Exception.class, () -> objectMapper.writeValueAsString(holder));
+        assertTrue(e.getMessage().contains("cannot be unwrapped"));
+    }
+
+    private static SecureTypePoJo pojo(final String name) {
+        var pojo = new SecureTypePoJo();
+        pojo.setName(name);
+        pojo.setNumber(42);
+        pojo.setItems(List.of(new InsecurePojo(name + "-item")));
+        return pojo;
+    }
+
+    private static void assertPojo(final SecureTypePoJo expected, final SecureTypePoJo actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getNumber(), actual.getNumber());
+        assertEquals(expected.getItems().get(0).getCritical(), actual.getItems().get(0).getCritical());
+    }
+
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NAME)
+    @JsonSubTypes(@JsonSubTypes.Type(value = SecureCircle.class, name = "circle"))
+    public abstract static class Shape {
+        @JsonProperty
+        public String secret;
+    }
+
+    @Encrypt
+    public static class SecureCircle extends Shape {
+    }
+
+    public static class PolymorphicHolder {
+        @JsonProperty
+        public Shape shape;
+
+        @JsonProperty
+        public List<Shape> shapes;
+    }
+
+    public static class ObjectHolder {
+        @JsonProperty
+        public Object value;
+    }
+
+    public static class UnwrappedHolder {
+        @JsonUnwrapped
+        public SecureTypePoJo secure;
+    }
+}
@@ -0,0 +1,79 @@
+package com.codingrodent.jackson.crypto;
+
+import com.codingrodent.jackson.crypto.pojos.SecurePropertyPoJo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CryptoWarmUpTest {
+
+    @Test
+    public void warmUp() throws Exception {
+        var writer = new PasswordCryptoContext("Password1");
+        var json = write(writer);
+
+        var context = new PasswordCryptoContext("Password1");
+        var objectMapper = new ObjectMapper();
+        var encryptionService = new EncryptionService(objectMapper, context);
+        objectMapper.registerModule(new CryptoModule().addEncryptionService(encryptionService));
+        var metrics = new CryptoMetrics();
+        encryptionService.setCryptoListener(metrics);
+        var misses = context.getKeyCacheMisses();
+        encryptionService.warmUp(List.of(SecurePropertyPoJo.class), List.of(writer.getSalt()));
+        assertEquals(misses + 1, context.getKeyCacheMisses());
+        assertTrue(((DefaultSerializerProvider) objectMapper.getSerializerProvider()).cachedSerializersCount() > 0);
+        // the cipher rounds are not reported
+        assertEquals(0, metrics.getEncryptCount());
+
+        assertEquals(1, metrics.getKeyDerivationCount());
+
+        // the first read no longer derives a key
+        assertEquals("Something very secure ...", objectMapper.readValue(json, SecurePropertyPoJo.class).getCritical());
+        assertEquals(misses + 1, context.getKeyCacheMisses());
+        assertEquals(1, metrics.getKeyDerivationCount());
+    }
+
+    @Test
+    public void moduleWarmUpAsync() throws Exception {
+        var first = new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM);
+        var second = new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM);
+        var context = new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM);
+        var module = new CryptoModule().addEncryptionService(new EncryptionService(new ObjectMapper(), context));
+        assertThrows(EncryptionException.class, () -> module.warmUp(List.of(SecurePropertyPoJo.class), List.of()));
+
+        // serializers are built on the mapper the module is registered with, not the one given to the service
+        var objectMapper = new ObjectMapper().registerModule(module);
+        var misses = context.getKeyCacheMisses();
+        module.warmUpAsync(List.of(SecurePropertyPoJo.class), List.of(first.getSalt(), second.getSalt())).get(30, TimeUnit.SECONDS);
+        assertEquals(misses + 2, context.getKeyCacheMisses());
+        assertTrue(((DefaultSerializerProvider) objectMapper.getSerializerProvider()).cachedSerializersCount() > 0);
+        for (var writer : List.of(first, second))
+            assertEquals("Something very secure ...", objectMapper.readValue(write(writer), SecurePropertyPoJo.class).getCritical());
+        assertEquals(misses + 2, context.getKeyCacheMisses());
+    }
+
+    @Test
+    public void keyRing() {
+        var writer = new PasswordCryptoContext("Password2");
+        var member = new PasswordCryptoContext("Password2");
+        var keyRing = new KeyRingCryptoContext("k1", new SecretKeyCryptoContext(new SecretKeySpec(new byte[16], "AES"), CipherSuite.AES_GCM));
+        keyRing.addKey("k2", member);
+        var misses = member.getKeyCacheMisses();
+        new EncryptionService(new ObjectMapper(), keyRing).warmUp(List.of(), List.of(writer.getSalt()));
+        assertEquals(misses + 1, member.getKeyCacheMisses());
+    }
+
+    private static String write(final ICryptoContext context) throws Exception {
+        var objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new CryptoModule().addEncryptionService(new EncryptionService(objectMapper, context)));
+        var pojo = new SecurePropertyPoJo();
+        pojo.setCritical("Something very secure ...");
+        return objectMapper.writeValueAsString(pojo);
+    }
+}
@@ -0,0 +1,62 @@
+package com.codingrodent.jackson.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DirectBufferPoolTest {
+
+    @Test
+    public void reuse() {
+        var pool = new DirectBufferPool(64, 2);
+        var first = pool.acquire();
+        assertTrue(first.isDirect());
+        assertEquals(64, first.capacity());
+        first.put(new byte[]{1, 2, 3}).flip();
+        pool.release(first);
+        assertEquals(1, pool.getIdle());
+        //
+        var second = pool.acquire();
+        assertSame(first, second);
+        // cleared and zeroed
+        assertEquals(0, second.position());
+        assertEquals(64, second.limit());
+        assertEquals(0, second.get(0));
+        assertEquals(0, second.get(2));
+        assertEquals(1, pool.getCreated());
+        // zeroed beyond the limit it was returned with
+        second.put(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10}).position(2).limit(4);
+        pool.release(second);
+        var third = pool.acquire();
+        assertSame(second, third);
+        assertEquals(64, third.limit());
+        while (third.hasRemaining())
+            assertEquals(0, third.get());
+    }
+
+    @Test
+    public void bounded() {
+        var pool = new DirectBufferPool(64, 1);
+        var first = pool.acquire();
+        var second = pool.acquire();
+        assertNotSame(first, second);
+        pool.release(first);
+        pool.release(second);
+        assertEquals(1, pool.getIdle());
+        assertEquals(2, pool.getCreated());
+        // larger buffers and heap buffers are not retained, but are still zeroed
+        var large = pool.acquire(100);
+        assertTrue(large.capacity() >= 100);
+        var heap = ByteBuffer.wrap(new byte[]{1, 2, 3});
+        pool.release(large);
+        pool.release(heap);
+        assertEquals(1, pool.getIdle());
+        assertArrayEquals(new byte[3], heap.array());
+        pool.setMaxIdle(0);
+        assertEquals(0, pool.getIdle());
+        assertThrows(EncryptionException.class, () -> pool.setMaxIdle(-1));
+        assertThrows(EncryptionException.class, () -> new DirectBufferPool(0, 1));
+    }
+}
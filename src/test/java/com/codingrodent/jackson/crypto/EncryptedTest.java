@@ -0,0 +1,142 @@
+package com.codingrodent.jackson.crypto;
+
+import com.codingrodent.jackson.crypto.pojos.InsecurePojo;
+import com.codingrodent.jackson.crypto.pojos.LazySecurePoJo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EncryptedTest {
+
+    private ObjectMapper objectMapper;
+    private EncryptionService encryptionService;
+
+    @BeforeEach
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        encryptionService = new EncryptionService(objectMapper, new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM));
+        objectMapper.registerModule(new CryptoModule().addEncryptionService(encryptionService));
+    }
+
+    @Test
+    public void lazy() throws Exception {
+        var json = objectMapper.writeValueAsString(pojo());
+        assertTrue(json.contains("visible"));
+        assertFalse(json.contains("secret"));
+        // holders are encrypted once, even when marked
+        var tree = objectMapper.readTree(json);
+        assertTrue(tree.get("critical").has("value"));
+        assertTrue(tree.get("marked").has("value"));
+        assertEquals(2, tree.get("numbers").size());
+
+        var read = objectMapper.readValue(json, LazySecurePoJo.class);
+        assertEquals("visible", read.getLabel());
+        assertFalse(read.getCritical().isDecrypted());
+        assertEquals("Encrypted[encrypted]", read.getCritical().toString());
+        assertEquals("secret", read.getCritical().get());
+        assertTrue(read.getCritical().isDecrypted());
+        assertEquals("inner", read.getMarked().get().getCritical());
+        assertEquals(42, read.getNumbers().get(1).get());
+        assertFalse(read.getNumbers().get(0).isDecrypted());
+    }
+
+    @Test
+    public void unreadWrittenUnchanged() throws Exception {
+        var json = objectMapper.writeValueAsString(pojo());
+        var read = objectMapper.readValue(json, LazySecurePoJo.class);
+        assertEquals(json, objectMapper.writeValueAsString(read));
+        // once read, the value is encrypted afresh
+        read.getCritical().get();
+        var rewritten = objectMapper.writeValueAsString(read);
+        assertNotEquals(json, rewritten);
+        assertEquals("secret", objectMapper.readValue(rewritten, LazySecurePoJo.class).getCritical().get());
+        // the original message can be written in the other format
+        encryptionService.setEnvelopeFormat(EnvelopeFormat.COMPACT);
+        var compact = objectMapper.writeValueAsString(objectMapper.readValue(json, LazySecurePoJo.class));
+        assertTrue(compact.contains("\"critical\":\""));
+        assertEquals("secret", objectMapper.readValue(compact, LazySecurePoJo.class).getCritical().get());
+    }
+
+    @Test
+    public void otherService() throws Exception {
+        var json = objectMapper.writeValueAsString(pojo());
+        var read = objectMapper.readValue(json, LazySecurePoJo.class);
+        // written by a mapper with another key, the value is encrypted again
+        var other = new ObjectMapper();
+        other.registerModule(new CryptoModule().addEncryptionService(new EncryptionService(other, new PasswordCryptoContext("Password2", "Password2", CipherSuite.AES_GCM))));
+        var rewritten = other.writeValueAsString(read);
+        assertNotEquals(json, rewritten);
+        assertEquals("secret", other.readValue(rewritten, LazySecurePoJo.class).getCritical().get());
+        assertThrows(EncryptionException.class, () -> objectMapper.readValue(rewritten, LazySecurePoJo.class).getCritical().get());
+
+        // likewise once the service has rotated to a new key
+        var keyRing = new KeyRingCryptoContext("old", new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM));
+        var ringMapper = new ObjectMapper();
+        ringMapper.registerModule(new CryptoModule().addEncryptionService(new EncryptionService(ringMapper, keyRing)));
+        read = ringMapper.readValue(ringMapper.writeValueAsString(pojo()), LazySecurePoJo.class);
+        keyRing.addKey("new", new SecretKeyCryptoContext(new SecretKeySpec(new byte[32], "AES"), CipherSuite.AES_GCM));
+        keyRing.setActiveKey("new");
+        var rotated = ringMapper.writeValueAsString(read);
+        // readable with the new key alone
+        keyRing.removeKey("old");
+        assertEquals("secret", ringMapper.readValue(rotated, LazySecurePoJo.class).getCritical().get());
+    }
+
+    @Test
+    public void concurrentGet() throws Exception {
+        var read = objectMapper.readValue(objectMapper.writeValueAsString(pojo()), LazySecurePoJo.class);
+        var pool = Executors.newFixedThreadPool(4);
+        try {
+            var start = new CountDownLatch(1);
+            var futures = new ArrayList<Future<String>>();
+            for (int i = 0; i < 8; i++)
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return read.getCritical().get();
+                }));
+            start.countDown();
+            var first = futures.get(0).get();
+            for (var future : futures)
+                assertSame(first, future.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void wrongPassword() throws Exception {
+        var json = objectMapper.writeValueAsString(pojo());
+        var other = new ObjectMapper();
+        other.registerModule(new CryptoModule().addEncryptionService(new EncryptionService(other, new PasswordCryptoContext("Password2"))));
+        // nothing is decrypted until asked for
+        var read = other.readValue(json, LazySecurePoJo.class);
+        assertThrows(EncryptionException.class, () -> read.getCritical().get());
+        assertFalse(read.getCritical().isDecrypted());
+        assertThrows(Exception.class, () -> other.readValue("{\"critical\":{\"salt\":1}}", LazySecurePoJo.class));
+    }
+
+    @Test
+    public void nullValues() throws Exception {
+        var pojo = new LazySecurePoJo();
+        pojo.setCritical(Encrypted.of(null));
+        var read = objectMapper.readValue(objectMapper.writeValueAsString(pojo), LazySecurePoJo.class);
+        assertNull(read.getCritical().get());
+        assertNull(read.getMarked());
+    }
+
+    private static LazySecurePoJo pojo() {
+        var pojo = new LazySecurePoJo();
+        pojo.setLabel("visible");
+        pojo.setCritical(Encrypted.of("secret"));
+        pojo.setMarked(Encrypted.of(new InsecurePojo("inner")));
+        pojo.setNumbers(List.of(Encrypted.of(7), Encrypted.of(42)));
+        return pojo;
+    }
+}
@@ -5,8 +5,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -76,4 +81,99 @@ public class EncryptionServiceTest {
         assertEquals(pojo.getCritical(), pojo2.getCritical());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void batch() {
+        var data = new ArrayList<byte[]>();
+        for (int i = 0; i < 500; i++)
+            data.add(("Value " + i).getBytes(StandardCharsets.UTF_8));
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            for (var cryptoContext : List.of(context, new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM))) {
+                var service = new EncryptionService(objectMapper, cryptoContext);
+                var serial = service.encryptAll(data);
+                var parallel = service.encryptAll(data, executor);
+                assertEquals(data.size(), serial.size());
+                assertEquals(data.size(), parallel.size());
+                var decrypted = service.decryptAll(serial, executor);
+                var decrypted2 = service.decryptAll(parallel);
+                for (int i = 0; i < data.size(); i++) {
+                    assertArrayEquals(data.get(i), decrypted.get(i));
+                    assertArrayEquals(data.get(i), decrypted2.get(i));
+                    assertArrayEquals(data.get(i), service.decrypt(serial.get(i)));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void batchMixedSalts() {
+        var service = new EncryptionService(objectMapper, context);
+        var other = new EncryptionService(objectMapper, new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM));
+        var data = "A clear string to encrypt".getBytes(StandardCharsets.UTF_8);
+        var values = List.of(service.encrypt(data), other.encrypt(data), other.encrypt(data), service.encrypt(data));
+        service.decryptAll(values).forEach(decrypted -> assertArrayEquals(data, decrypted));
+        assertTrue(service.encryptAll(List.of()).isEmpty());
+        assertTrue(service.decryptAll(List.of()).isEmpty());
+    }
+
+    @Test
+    public void batchFailure() {
+        var service = new EncryptionService(objectMapper, new PasswordCryptoContext("Password1", "Password1", CipherSuite.AES_GCM));
+        var values = new ArrayList<>(service.encryptAll(Collections.nCopies(300, new byte[16])));
+        var bad = values.get(200);
+        var value = bad.getValue();
+        value[value.length - 1] ^= 1;
+        bad.setValue(value);
+        var executor = Executors.newFixedThreadPool(2);
+        try {
+            assertThrows(EncryptionException.class, () -> service.decryptAll(values, executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void async() {
+        var service = new EncryptionService(objectMapper, context);
+        var data = "A clear string to encrypt".getBytes(StandardCharsets.UTF_8);
+        var decrypted = service.encryptAsync(data).thenCompose(service::decryptAsync).join();
+        assertArrayEquals(data, decrypted);
+        // failures complete the future
+        var encrypted = service.encrypt(data);
+        encrypted.setIv(new byte[4]);
+        var e = assertThrows(CompletionException.class, () -> service.decryptAsync(encrypted).join());
+        assertTrue(e.getCause() instanceof EncryptionException);
+    }
+
+    @Test
+    public void asyncObjects() {
+        var mapper = EncryptionService.getInstance("Password1");
+        var service = new EncryptionService(mapper, context);
+        var pojo = new SecurePropertyPoJo();
+        pojo.setCritical("Something very secure ...");
+        var json = service.writeValueAsStringAsync(pojo).join();
+        assertFalse(json.contains("secure"));
+        assertEquals(pojo.getCritical(), service.readValueAsync(json, SecurePropertyPoJo.class).join().getCritical());
+        var bytes = service.writeValueAsBytesAsync(pojo).join();
+        assertEquals(pojo.getCritical(), service.readValueAsync(bytes, SecurePropertyPoJo.class).join().getCritical());
+        var e = assertThrows(CompletionException.class, () -> service.readValueAsync("{", SecurePropertyPoJo.class).join());
+        assertTrue(e.getCause() instanceof IOException);
+    }
+
+    @Test
+    public void asyncExecutor() {
+        var service = new EncryptionService(objectMapper, context);
+        assertNotNull(service.getExecutor());
+        assertThrows(EncryptionException.class, () -> service.setExecutor(null));
+        var count = new AtomicInteger();
+        service.setExecutor(task -> {
+            count.incrementAndGet();
+            task.run();
+        });
+        var data = "A clear string to encrypt".getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(data, service.decryptAsync(service.encryptAsync(data).join()).join());
+        assertEquals(2, count.get());
+    }
+}
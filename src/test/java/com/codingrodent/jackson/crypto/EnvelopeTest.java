@@ -0,0 +1,83 @@
+package com.codingrodent.jackson.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EnvelopeTest {
+
+    @Test
+    public void noCopy() {
+        var salt = new byte[16];
+        var iv = new byte[16];
+        var value = new byte[32];
+        var encrypted = new Envelope(salt, iv, value).toEncryptedJson();
+        assertSame(value, encrypted.value());
+        assertSame(salt, Envelope.of(encrypted).salt());
+    }
+
+    @Test
+    public void sliceRoundTrip() {
+        var context = new PasswordCryptoContext("Password1");
+        var clear = new byte[]{1, 2, 3, 4, 5};
+        var encrypted = context.encryptEnvelope(clear, 1, 3);
+        // embed the cipher text in a larger buffer
+        var buffer = new byte[encrypted.valueLength() + 10];
+        System.arraycopy(encrypted.value(), 0, buffer, 5, encrypted.valueLength());
+        var slice = new Envelope(encrypted.salt(), encrypted.iv(), buffer, 5, encrypted.valueLength());
+        assertArrayEquals(new byte[]{2, 3, 4}, context.decrypt(slice));
+        assertArrayEquals(encrypted.value(), slice.toEncryptedJson().getValue());
+        assertFalse(Arrays.equals(buffer, slice.toEncryptedJson().getValue()));
+    }
+
+    @Test
+    public void compactRoundTrip() {
+        for (var context : new ICryptoContext[]{new PasswordCryptoContext("Password1"),
+                new PasswordCryptoContext("Password1", "Password1", CipherSuite.CHACHA20_POLY1305, new byte[16])}) {
+            var clear = new byte[]{1, 2, 3, 4, 5};
+            var envelope = context.encryptEnvelope(clear, 0, clear.length);
+            var compact = envelope.toCompact();
+            assertEquals(Envelope.COMPACT_VERSION, compact[0]);
+            assertEquals(5 + envelope.salt().length + envelope.iv().length + envelope.valueLength(), compact.length);
+            var read = Envelope.ofCompact(compact);
+            assertEquals(envelope.suite(), read.suite());
+            assertEquals(envelope.kdf(), read.kdf());
+            assertArrayEquals(envelope.salt(), read.salt());
+            assertArrayEquals(envelope.iv(), read.iv());
+            // cipher text is read in place
+            assertSame(compact, read.value());
+            assertArrayEquals(clear, context.decrypt(read));
+        }
+    }
+
+    @Test
+    public void compactInvalid() {
+        var compact = new Envelope(new byte[16], new byte[16], new byte[32]).toCompact();
+        assertThrows(EncryptionException.class, () -> Envelope.ofCompact(new byte[0]));
+        assertThrows(EncryptionException.class, () -> Envelope.ofCompact(Arrays.copyOf(compact, 4)));
+        assertThrows(EncryptionException.class, () -> Envelope.ofCompact(Arrays.copyOf(compact, 20)));
+        var version = compact.clone();
+        version[0] = 3;
+        assertThrows(EncryptionException.class, () -> Envelope.ofCompact(version));
+        var suite = compact.clone();
+        suite[1] = 9;
+        assertThrows(EncryptionException.class, () -> Envelope.ofCompact(suite));
+        assertThrows(EncryptionException.class, () -> new Envelope(new byte[256], new byte[16], new byte[32]).toCompact());
+    }
+
+    @Test
+    public void compactKeyId() {
+        var context = new PasswordCryptoContext("Password1");
+        var clear = new byte[]{1, 2, 3, 4, 5};
+        var envelope = context.encryptEnvelope(clear, 0, clear.length).withKeyId("key-\u00e9");
+        var compact = envelope.toCompact();
+        assertEquals(Envelope.COMPACT_VERSION_KEY_ID, compact[0]);
+        var read = Envelope.ofCompact(compact);
+        assertEquals("key-\u00e9", read.keyId());
+        assertEquals("key-\u00e9", read.toEncryptedJson().getKid());
+        assertArrayEquals(clear, context.decrypt(read));
+        assertThrows(EncryptionException.class, () -> Envelope.ofCompact(Arrays.copyOf(compact, 8)));
+    }
+}
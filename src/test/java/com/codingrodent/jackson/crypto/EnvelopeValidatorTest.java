@@ -0,0 +1,47 @@
+package com.codingrodent.jackson.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EnvelopeValidatorTest {
+
+    private final EnvelopeValidator validator = new EnvelopeValidator(16, 16);
+
+    @Test
+    public void valid() {
+        assertDoesNotThrow(() -> validator.validate(new byte[16], new byte[16], 32));
+        assertDoesNotThrow(() -> new EnvelopeValidator(12, 0).validate(new byte[20], new byte[12], 17));
+    }
+
+    @Test
+    public void nulls() {
+        var e = assertThrows(EncryptionException.class, () -> validator.validate(new Envelope(null, null, null)));
+        assertTrue(e.getMessage().contains("salt must not be null"));
+        assertTrue(e.getMessage().contains("iv must not be null"));
+        assertTrue(e.getMessage().contains("value must not be null"));
+    }
+
+    @Test
+    public void lengths() {
+        assertThrows(EncryptionException.class, () -> validator.validate(new byte[4], new byte[16], 16));
+        assertThrows(EncryptionException.class, () -> validator.validate(new byte[16], new byte[8], 16));
+        assertThrows(EncryptionException.class, () -> validator.validate(new byte[16], new byte[16], 17));
+        assertThrows(EncryptionException.class, () -> validator.validate(new byte[16], new byte[16], 0));
+    }
+
+    @Test
+    public void cipherSuite() {
+        assertDoesNotThrow(() -> validator.validate(new Envelope(CipherSuite.AES_GCM, new byte[16], new byte[12], new byte[17])));
+        // too short for the authentication tag, and wrong nonce length
+        assertThrows(EncryptionException.class, () -> validator.validate(new Envelope(CipherSuite.AES_GCM, new byte[16], new byte[12], new byte[15])));
+        assertThrows(EncryptionException.class, () -> validator.validate(new Envelope(CipherSuite.CHACHA20_POLY1305, new byte[16], new byte[16], new byte[32])));
+    }
+
+    @Test
+    public void forContext() {
+        var validator = EnvelopeValidator.forContext(new PasswordCryptoContext("Password", "Password", "DES/CBC/PKCS5Padding", "PBKDF2WithHmacSHA256", 10000, 64, "DES"));
+        assertDoesNotThrow(() -> validator.validate(new byte[16], new byte[8], 8));
+        assertThrows(EncryptionException.class, () -> validator.validate(new byte[16], new byte[16], 8));
+    }
+}
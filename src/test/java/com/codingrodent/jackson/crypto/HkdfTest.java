@@ -0,0 +1,40 @@
+package com.codingrodent.jackson.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HkdfTest {
+
+    private static byte[] hex(final String value) {
+        var bytes = new BigInteger("01" + value, 16).toByteArray();
+        return Arrays.copyOfRange(bytes, 1, bytes.length);
+    }
+
+    // RFC 5869 appendix A test case 1
+    @Test
+    public void basic() throws Exception {
+        var ikm = new byte[22];
+        Arrays.fill(ikm, (byte) 0x0b);
+        var okm = Hkdf.derive(ikm, hex("000102030405060708090a0b0c"), hex("f0f1f2f3f4f5f6f7f8f9"), 42);
+        assertArrayEquals(hex("3cb25f25faacd57a90434f64d0362f2a2d2d0a90cf1a5a4c5db02d56ecc4c5bf34007208d5b887185865"), okm);
+    }
+
+    // RFC 5869 appendix A test case 3
+    @Test
+    public void emptySaltAndInfo() throws Exception {
+        var ikm = new byte[22];
+        Arrays.fill(ikm, (byte) 0x0b);
+        var okm = Hkdf.derive(ikm, new byte[0], new byte[0], 42);
+        assertArrayEquals(hex("8da4e775a563c18f715f802a063c5a31b8a11f5c5ee1879ec3454e5f3c738d2d9d201395faa4b61a96c8"), okm);
+    }
+
+    @Test
+    public void badLength() {
+        assertThrows(EncryptionException.class, () -> Hkdf.derive(new byte[32], new byte[16], new byte[0], 0));
+        assertThrows(EncryptionException.class, () -> Hkdf.derive(new byte[32], new byte[16], new byte[0], 255 * 32 + 1));
+    }
+}
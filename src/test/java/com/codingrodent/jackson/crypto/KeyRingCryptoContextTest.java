@@ -0,0 +1,178 @@
+package com.codingrodent.jackson.crypto;
+
+import com.codingrodent.jackson.crypto.pojos.SecurePropertyPoJo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.KeyGenerator;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeyRingCryptoContextTest {
+
+    @Test
+    public void rotation() throws Exception {
+        var first = new CountingContext(new PasswordCryptoContext("Password1"));
+        var second = new CountingContext(new PasswordCryptoContext("Password2", "Password2", CipherSuite.AES_GCM, new byte[16]));
+        var keyRing = new KeyRingCryptoContext("k1", first);
+        var objectMapper = new ObjectMapper();
+        var encryptionService = new EncryptionService(objectMapper, keyRing);
+        objectMapper.registerModule(new CryptoModule().addEncryptionService(encryptionService));
+        var pojo = new SecurePropertyPoJo();
+        pojo.setCritical("Something very secure ...");
+
+        var old = objectMapper.writeValueAsString(pojo);
+        assertTrue(old.contains("\"kid\":\"k1\""));
+        keyRing.addKey("k2", second);
+        assertEquals("k1", keyRing.getActiveKeyId());
+        keyRing.setActiveKey("k2");
+        var current = objectMapper.writeValueAsString(pojo);
+        assertTrue(current.contains("\"kid\":\"k2\""));
+        encryptionService.setEnvelopeFormat(EnvelopeFormat.COMPACT);
+        var compact = objectMapper.writeValueAsString(pojo);
+        // any mix of old and new data is read, each with only its own key
+        for (var json : List.of(old, current, compact, old))
+            assertEquals(pojo.getCritical(), objectMapper.readValue(json, SecurePropertyPoJo.class).getCritical());
+        assertEquals(2, first.decrypts.get());
+        assertEquals(2, second.decrypts.get());
+        assertEquals(Set.of("k1", "k2"), keyRing.getKeyIds());
+        // once the old key is removed its data can no longer be read
+        keyRing.removeKey("k1");
+        assertThrows(Exception.class, () -> objectMapper.readValue(old, SecurePropertyPoJo.class));
+        assertEquals(pojo.getCritical(), objectMapper.readValue(current, SecurePropertyPoJo.class).getCritical());
+    }
+
+    @Test
+    public void noKeyIdUsesDefaultKey() {
+        // written before a key ring was used
+        var oldContext = new PasswordCryptoContext("Password1");
+        var data = "Something very secure ...".getBytes(StandardCharsets.UTF_8);
+        var encrypted = new EncryptionService(new ObjectMapper(), oldContext).encrypt(data);
+        assertNull(encrypted.getKid());
+        var keyRing = new KeyRingCryptoContext("k1", oldContext);
+        assertEquals("k1", keyRing.getDefaultKeyId());
+        assertArrayEquals(data, keyRing.decrypt(encrypted));
+
+        // still read with the old key once rotated to a new one
+        keyRing.addKey("k2", new PasswordCryptoContext("Password2"));
+        keyRing.setActiveKey("k2");
+        assertEquals("k1", keyRing.getDefaultKeyId());
+        assertArrayEquals(data, keyRing.decrypt(encrypted));
+        var current = new EncryptionService(new ObjectMapper(), keyRing).encrypt(data);
+        assertArrayEquals(data, keyRing.decrypt(current));
+
+        keyRing.removeKey("k1");
+        assertThrows(EncryptionException.class, () -> keyRing.decrypt(encrypted));
+        encrypted.setKid("unknown");
+        assertThrows(EncryptionException.class, () -> keyRing.decrypt(encrypted));
+    }
+
+    @Test
+    public void validatedByReadingKey() {
+        // keys with different iv and block sizes, neither recording a suite
+        var keyRing = new KeyRingCryptoContext("des", new PasswordCryptoContext("Password1", "Password1", "DES/CBC/PKCS5Padding", "PBKDF2WithHmacSHA256", 10000, 64, "DES"));
+        var service = new EncryptionService(new ObjectMapper(), keyRing);
+        var data = "Something very secure ...".getBytes(StandardCharsets.UTF_8);
+        var des = service.encrypt(data);
+        assertEquals(8, des.getIv().length);
+        keyRing.addKey("aes", new PasswordCryptoContext("Password2"));
+        keyRing.setActiveKey("aes");
+        var aes = service.encrypt(data);
+        assertEquals(16, aes.getIv().length);
+        assertArrayEquals(data, service.decrypt(aes));
+        assertArrayEquals(data, service.decrypt(des));
+        // checked against the key that reads the message, not the active key
+        des.setIv(new byte[16]);
+        assertThrows(EncryptionException.class, () -> service.decrypt(des));
+        // without a key id, against the default key
+        des.setIv(aes.getIv());
+        des.setKid(null);
+        assertThrows(EncryptionException.class, () -> service.decrypt(des));
+    }
+
+    @Test
+    public void batch() throws Exception {
+        var generator = KeyGenerator.getInstance("AES");
+        var keyRing = new KeyRingCryptoContext("k1", new SecretKeyCryptoContext(generator.generateKey(), CipherSuite.AES_GCM));
+        var service = new EncryptionService(new ObjectMapper(), keyRing);
+        var data = new ArrayList<byte[]>();
+        for (int i = 0; i < 10; i++)
+            data.add(("Value " + i).getBytes(StandardCharsets.UTF_8));
+        var encrypted = new ArrayList<>(service.encryptAll(data));
+        keyRing.addKey("k2", new PasswordCryptoContext("Password2"));
+        keyRing.setActiveKey("k2");
+        encrypted.addAll(service.encryptAll(data));
+        encrypted.add(3, encrypted.remove(15));
+        var decrypted = service.decryptAll(encrypted);
+        assertEquals("k2", encrypted.get(3).getKid());
+        assertArrayEquals(data.get(5), decrypted.get(3));
+        assertArrayEquals(data.get(9), decrypted.get(19));
+    }
+
+    @Test
+    public void invalid() {
+        var context = new PasswordCryptoContext("Password1");
+        assertThrows(EncryptionException.class, () -> new KeyRingCryptoContext(null, context));
+        assertThrows(EncryptionException.class, () -> new KeyRingCryptoContext("", context));
+        assertThrows(EncryptionException.class, () -> new KeyRingCryptoContext("k".repeat(256), context));
+        assertThrows(EncryptionException.class, () -> new KeyRingCryptoContext("k1", null));
+        var keyRing = new KeyRingCryptoContext("k1", context);
+        assertThrows(EncryptionException.class, () -> keyRing.addKey("k2", keyRing));
+        assertThrows(EncryptionException.class, () -> keyRing.setActiveKey("k2"));
+        assertThrows(EncryptionException.class, () -> keyRing.removeKey("k2"));
+        assertThrows(EncryptionException.class, () -> keyRing.removeKey("k1"));
+    }
+
+    private static final class CountingContext implements ICryptoContext {
+        private final ICryptoContext delegate;
+        private final AtomicInteger decrypts = new AtomicInteger();
+
+        private CountingContext(final ICryptoContext delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public byte[] decrypt(final EncryptedJson value) {
+            return decrypt(Envelope.of(value));
+        }
+
+        @Override
+        public byte[] decrypt(final Envelope envelope) {
+            decrypts.incrementAndGet();
+            return delegate.decrypt(envelope);
+        }
+
+        @Override
+        public byte[] encrypt(final byte[] source) {
+            return delegate.encrypt(source);
+        }
+
+        @Override
+        public Envelope encryptEnvelope(final byte[] source, final int offset, final int length) {
+            return delegate.encryptEnvelope(source, offset, length);
+        }
+
+        @Override
+        public byte[] getIv() {
+            return delegate.getIv();
+        }
+
+        @Override
+        public byte[] getSalt() {
+            return delegate.getSalt();
+        }
+
+        @Override
+        public int getBlockSize() {
+            return delegate.getBlockSize();
+        }
+
+        @Override
+        public CipherSuite getCipherSuite() {
+            return delegate.getCipherSuite();
+        }
+    }
+}
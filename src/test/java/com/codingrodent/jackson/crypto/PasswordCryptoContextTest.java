@@ -1,9 +1,10 @@
 package com.codingrodent.jackson.crypto;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class PasswordCryptoContextTest {
 
@@ -78,4 +79,43 @@ public class PasswordCryptoContextTest {
     public void testConstructor3() {
         assertThrows(EncryptionException.class, () -> new PasswordCryptoContext("password1", null));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testKeyCache() {
+        var context = new PasswordCryptoContext("password1");
+        var service = new EncryptionService(new ObjectMapper(), context);
+        var encrypted = service.encrypt(new byte[]{1, 2, 3});
+        service.decrypt(encrypted);
+        service.decrypt(encrypted);
+        assertEquals(2, context.getKeyCacheHits());
+        assertEquals(1, context.getKeyCacheMisses());
+        context.setKeyCacheSize(0);
+        assertEquals(0, context.getKeyCacheSize());
+        service.decrypt(encrypted);
+        assertEquals(2, context.getKeyCacheMisses());
+        assertThrows(EncryptionException.class, () -> context.setKeyCacheSize(-1));
+    }
+
+    @Test
+    public void testHkdf() {
+        var masterSalt = new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+        var writer = new PasswordCryptoContext("password1", "password1", CipherSuite.AES_GCM, masterSalt);
+        var reader = new PasswordCryptoContext("password1", "password1", CipherSuite.AES_CBC, masterSalt);
+        assertEquals(KeyDerivation.HKDF_SHA256, writer.getKeyDerivation());
+
+        var data = new byte[]{1, 2, 3};
+        var encrypted = new EncryptionService(new ObjectMapper(), writer).encrypt(data);
+        assertEquals(KeyDerivation.HKDF_SHA256.getId(), encrypted.getKdf());
+        var service = new EncryptionService(new ObjectMapper(), reader);
+        assertArrayEquals(data, service.decrypt(encrypted));
+        // Password derived keys are still read, and need the master salt to read HKDF derived keys
+        var plain = new EncryptionService(new ObjectMapper(), new PasswordCryptoContext("password1"));
+        assertArrayEquals(data, service.decrypt(plain.encrypt(data)));
+        assertNull(plain.encrypt(data).getKdf());
+        assertThrows(EncryptionException.class, () -> plain.decrypt(encrypted));
+        // A different master salt gives different keys
+        var other = new EncryptionService(new ObjectMapper(), new PasswordCryptoContext("password1", "password1", CipherSuite.AES_GCM, new byte[16]));
+        assertThrows(EncryptionException.class, () -> other.decrypt(encrypted));
+        assertThrows(EncryptionException.class, () -> new PasswordCryptoContext("password1", "password1", CipherSuite.AES_GCM, new byte[4]));
+    }
+}
@@ -0,0 +1,196 @@
+package com.codingrodent.jackson.crypto;
+
+import com.codingrodent.jackson.crypto.pojos.SecureTypeHolderPoJo;
+import com.codingrodent.jackson.crypto.pojos.SecureTypePoJo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReEncryptorTest {
+
+    private ObjectMapper oldMapper;
+    private ObjectMapper newMapper;
+    private EncryptionService oldService;
+    private EncryptionService newService;
+
+    @BeforeEach
+    public void setup() {
+        oldMapper = new ObjectMapper();
+        oldService = new EncryptionService(oldMapper, new PasswordCryptoContext("Password1"));
+        oldMapper.registerModule(new CryptoModule().addEncryptionService(oldService));
+        newMapper = new ObjectMapper();
+        newService = new EncryptionService(newMapper, new PasswordCryptoContext("Password2", "Password2", CipherSuite.AES_GCM));
+        newMapper.registerModule(new CryptoModule().addEncryptionService(newService));
+    }
+
+    @Test
+    public void ndjson() throws Exception {
+        var input = new StringBuilder();
+        for (int i = 0; i < 50; i++)
+            input.append(oldMapper.writeValueAsString(holder(i))).append('\n');
+        var reEncryptor = new ReEncryptor(oldService, newService);
+        var pool = Executors.newFixedThreadPool(3);
+        reEncryptor.setExecutor(pool);
+        var out = new ByteArrayOutputStream();
+        try {
+            assertEquals(50, reEncryptor.reEncrypt(stream(input.toString()), out));
+        } finally {
+            pool.shutdown();
+        }
+        var lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(50, lines.length);
+        for (int i = 0; i < 50; i++) {
+            assertTrue(lines[i].contains("AES-GCM"));
+            assertHolder(holder(i), newMapper.readValue(lines[i], SecureTypeHolderPoJo.class));
+        }
+        // the old password no longer works
+        assertThrows(Exception.class, () -> oldMapper.readValue(lines[0], SecureTypeHolderPoJo.class));
+    }
+
+    @Test
+    public void array() throws Exception {
+        var input = oldMapper.writeValueAsString(List.of(holder(1), holder(2), holder(3)));
+        var out = new ByteArrayOutputStream();
+        assertEquals(3, new ReEncryptor(oldService, newService).reEncrypt(stream(input), out));
+        var read = newMapper.readValue(out.toByteArray(), SecureTypeHolderPoJo[].class);
+        assertEquals(3, read.length);
+        assertHolder(holder(3), read[2]);
+    }
+
+    @Test
+    public void plainTokensUnchanged() throws Exception {
+        var input = "{\"salt\":\"abc\",\"iv\":{\"value\":\"x\",\"n\":1.10},\"big\":12345678901234567890,\"list\":[true,null,\"s\"],\"e\":{}}\n[]\n\"text\"\n";
+        var out = new ByteArrayOutputStream();
+        assertEquals(3, new ReEncryptor(oldService, newService).reEncrypt(stream(input), out));
+        assertEquals(input, out.toString(StandardCharsets.UTF_8));
+        out.reset();
+        assertEquals(0, new ReEncryptor(oldService, newService).reEncrypt(stream("[]"), out));
+        assertEquals("[]", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void envelopeShapedPlainObjects() throws Exception {
+        // the fields of a message, but not one the old service could decrypt
+        var input = "{\"salt\":\"c2FsdA==\",\"iv\":\"aXY=\",\"value\":\"dmFsdWU=\"}\n{\"salt\":\"not base 64!\",\"iv\":\"x\",\"value\":\"y\"}\n";
+        var out = new ByteArrayOutputStream();
+        assertEquals(2, new ReEncryptor(oldService, newService).reEncrypt(stream(input), out));
+        assertEquals(input, out.toString(StandardCharsets.UTF_8));
+        // next to a real message
+        out.reset();
+        var record = "{\"plain\":{\"salt\":\"c2FsdA==\",\"iv\":\"aXY=\",\"value\":\"dmFsdWU=\"},\"holder\":" + oldMapper.writeValueAsString(holder(1)) + "}";
+        assertEquals(1, new ReEncryptor(oldService, newService).reEncrypt(stream(record), out));
+        var tree = newMapper.readTree(out.toByteArray());
+        assertEquals("c2FsdA==", tree.get("plain").get("salt").asText());
+        assertHolder(holder(1), newMapper.treeToValue(tree.get("holder"), SecureTypeHolderPoJo.class));
+    }
+
+    @Test
+    public void compact() throws Exception {
+        oldService.setEnvelopeFormat(EnvelopeFormat.COMPACT);
+        newService.setEnvelopeFormat(EnvelopeFormat.COMPACT);
+        var input = oldMapper.writeValueAsString(holder(1));
+        var reEncryptor = new ReEncryptor(oldService, newService);
+        var out = new ByteArrayOutputStream();
+        reEncryptor.reEncrypt(stream(input), out);
+        // compact envelopes are only recognised when asked for
+        assertEquals(input + "\n", out.toString(StandardCharsets.UTF_8));
+        reEncryptor.setReadCompact(true);
+        out.reset();
+        reEncryptor.reEncrypt(stream(input + "\"not an envelope\""), out);
+        var lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertHolder(holder(1), newMapper.readValue(lines[0], SecureTypeHolderPoJo.class));
+        assertEquals("\"not an envelope\"", lines[1]);
+    }
+
+    @Test
+    public void wrongPassword() throws Exception {
+        var input = oldMapper.writeValueAsString(holder(1)) + "\n" + oldMapper.writeValueAsString(holder(2));
+        var reEncryptor = new ReEncryptor(new EncryptionService(oldMapper, new PasswordCryptoContext("Password3")), newService);
+        var e = assertThrows(EncryptionException.class, () -> reEncryptor.reEncrypt(stream(input), new ByteArrayOutputStream()));
+        assertEquals("Unable to re-encrypt record 0", e.getMessage());
+    }
+
+    @Test
+    public void commandLine() throws Exception {
+        var in = Files.createTempFile("reencrypt", ".json");
+        var out = Files.createTempFile("reencrypt", ".json");
+        try {
+            Files.writeString(in, oldMapper.writeValueAsString(holder(1)) + "\n" + oldMapper.writeValueAsString(holder(2)));
+            var env = Map.of(ReEncryptor.OLD_PASSWORD, "Password1", ReEncryptor.NEW_PASSWORD, "Password2");
+            var err = new ByteArrayOutputStream();
+            var args = new String[]{"--suite", "AES-GCM", "--threads", "2", in.toString(), out.toString()};
+            assertEquals(0, ReEncryptor.run(args, env, System.in, System.out, new PrintStream(err, true, StandardCharsets.UTF_8)));
+            assertTrue(err.toString(StandardCharsets.UTF_8).startsWith("Re-encrypted 2 records"));
+            var lines = Files.readAllLines(out);
+            assertHolder(holder(2), newMapper.readValue(lines.get(1), SecureTypeHolderPoJo.class));
+            // standard input and output
+            var closed = new AtomicInteger();
+            var stdout = new ByteArrayOutputStream() {
+                @Override
+                public void close() {
+                    closed.incrementAndGet();
+                }
+            };
+            var file = Files.newInputStream(in);
+            var stdin = new FilterInputStream(file) {
+                @Override
+                public void close() throws IOException {
+                    closed.incrementAndGet();
+                    super.close();
+                }
+            };
+            args = new String[]{"--suite", "AES-GCM", "--compact", "-", "-"};
+            assertEquals(0, ReEncryptor.run(args, env, stdin, stdout, new PrintStream(err)));
+            assertHolder(holder(1), newMapper.readValue(stdout.toString(StandardCharsets.UTF_8).split("\n")[0], SecureTypeHolderPoJo.class));
+            // neither is closed
+            assertEquals(0, closed.get());
+            file.close();
+            // usage errors
+            assertEquals(2, ReEncryptor.run(new String[]{in.toString()}, env, System.in, System.out, new PrintStream(err)));
+            assertEquals(2, ReEncryptor.run(new String[]{"--suite"}, env, System.in, System.out, new PrintStream(err)));
+            assertEquals(2, ReEncryptor.run(new String[]{in.toString(), out.toString()}, Map.of(), System.in, System.out, new PrintStream(err)));
+            assertEquals(2, ReEncryptor.run(new String[]{out.toString(), out.toString()}, env, System.in, System.out, new PrintStream(err)));
+            assertEquals(1, ReEncryptor.run(new String[]{in.toString(), out.toString()}, Map.of(ReEncryptor.OLD_PASSWORD, "Password3", ReEncryptor.NEW_PASSWORD,
+                    "Password2"), System.in, System.out, new PrintStream(err)));
+        } finally {
+            Files.deleteIfExists(in);
+            Files.deleteIfExists(out);
+        }
+    }
+
+    private static InputStream stream(final String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SecureTypeHolderPoJo holder(final int index) {
+        var holder = new SecureTypeHolderPoJo();
+        holder.setLabel("label " + index);
+        holder.setSecure(pojo("secret " + index, index));
+        holder.setList(List.of(pojo("first", 1), pojo("second", 2)));
+        return holder;
+    }
+
+    private static SecureTypePoJo pojo(final String name, final int number) {
+        var pojo = new SecureTypePoJo();
+        pojo.setName(name);
+        pojo.setNumber(number);
+        return pojo;
+    }
+
+    private static void assertHolder(final SecureTypeHolderPoJo expected, final SecureTypeHolderPoJo actual) {
+        assertEquals(expected.getLabel(), actual.getLabel());
+        assertEquals(expected.getSecure().getName(), actual.getSecure().getName());
+        assertEquals(expected.getSecure().getNumber(), actual.getSecure().getNumber());
+        assertEquals(expected.getList().get(1).getName(), actual.getList().get(1).getName());
+    }
+}
@@ -0,0 +1,118 @@
+package com.codingrodent.jackson.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.util.ArrayList;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SecretKeyCacheTest {
+
+    private static final byte[] SALT_1 = {1, 2, 3, 4};
+    private static final byte[] SALT_2 = {5, 6, 7, 8};
+    private static final byte[] SALT_3 = {9, 10, 11, 12};
+
+    private static SecretKeySpec key(final int value) {
+        return new SecretKeySpec(new byte[]{(byte) value}, "AES");
+    }
+
+    @Test
+    public void hitsAndMisses() {
+        var cache = new SecretKeyCache(4);
+        var first = cache.get("AES", "password", SALT_1, () -> key(1));
+        var second = cache.get("AES", "password", SALT_1.clone(), () -> key(2));
+        assertSame(first, second);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        // different password, same salt is a different key
+        assertNotSame(first, cache.get("AES", "password2", SALT_1, () -> key(3)));
+        assertEquals(2, cache.getMisses());
+        // different algorithm, same password and salt is a different key
+        assertNotSame(first, cache.get("ChaCha20", "password", SALT_1, () -> key(4)));
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    public void leastRecentlyUsedEviction() {
+        var cache = new SecretKeyCache(2);
+        var first = cache.get("AES", "password", SALT_1, () -> key(1));
+        cache.get("AES", "password", SALT_2, () -> key(2));
+        // touch first so second becomes eldest
+        cache.get("AES", "password", SALT_1, () -> key(1));
+        cache.get("AES", "password", SALT_3, () -> key(3));
+        assertEquals(2, cache.size());
+        assertSame(first, cache.get("AES", "password", SALT_1, () -> key(4)));
+        assertEquals(2, cache.getHits());
+        cache.get("AES", "password", SALT_2, () -> key(5));
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    public void resizeAndDisable() {
+        var cache = new SecretKeyCache(4);
+        cache.get("AES", "password", SALT_1, () -> key(1));
+        cache.get("AES", "password", SALT_2, () -> key(2));
+        cache.setMaxSize(1);
+        assertEquals(1, cache.size());
+        cache.setMaxSize(0);
+        assertEquals(0, cache.size());
+        cache.get("AES", "password", SALT_1, () -> key(1));
+        assertEquals(0, cache.size());
+        assertThrows(EncryptionException.class, () -> cache.setMaxSize(-1));
+    }
+
+    @Test
+    public void concurrentMissDerivesOnce() throws Exception {
+        var cache = new SecretKeyCache(4);
+        var derivations = new AtomicInteger();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var owner = executor.submit(() -> cache.get("AES", "password", SALT_1, () -> {
+                derivations.incrementAndGet();
+                started.countDown();
+                await(release);
+                return key(1);
+            }));
+            started.await();
+            var waiters = new ArrayList<Future<SecretKeySpec>>();
+            for (int i = 0; i < 3; i++)
+                waiters.add(executor.submit(() -> cache.get("AES", "password", SALT_1.clone(), () -> {
+                    derivations.incrementAndGet();
+                    return key(2);
+                })));
+            // give the waiters time to find the derivation in progress
+            Thread.sleep(100);
+            release.countDown();
+            var key = owner.get();
+            for (var waiter : waiters)
+                assertSame(key, waiter.get());
+            assertEquals(1, derivations.get());
+            assertEquals(1, cache.getMisses());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void failedDerivationNotCached() {
+        var cache = new SecretKeyCache(4);
+        assertThrows(EncryptionException.class, () -> cache.get("AES", "password", SALT_1, () -> {
+            throw new EncryptionException("failed");
+        }));
+        assertEquals(0, cache.size());
+        assertNotNull(cache.get("AES", "password", SALT_1, () -> key(1)));
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new EncryptionException(e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.codingrodent.jackson.crypto;
+
+import com.codingrodent.jackson.crypto.pojos.SecurePropertyPoJo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SecretKeyCryptoContextTest {
+
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    private static SecretKey aesKey() throws Exception {
+        var generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        return generator.generateKey();
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        var key = aesKey();
+        for (var suite : CipherSuite.values()) {
+            var objectMapper = new ObjectMapper();
+            objectMapper.registerModule(new CryptoModule().addEncryptionService(new EncryptionService(objectMapper, new SecretKeyCryptoContext(key, suite))));
+            var pojo = new SecurePropertyPoJo();
+            pojo.setCritical("Something very secure ...");
+
+            var json = objectMapper.writeValueAsString(pojo);
+            assertEquals(pojo.getCritical(), objectMapper.readValue(json, SecurePropertyPoJo.class).getCritical(), suite.getId());
+            // A new context with the same key and suite reads the data
+            var other = new ObjectMapper();
+            other.registerModule(new CryptoModule().addEncryptionService(new EncryptionService(other, new SecretKeyCryptoContext(key, suite))));
+            assertEquals(pojo.getCritical(), other.readValue(json, SecurePropertyPoJo.class).getCritical(), suite.getId());
+        }
+    }
+
+    @Test
+    public void boundToSuite() throws Exception {
+        var key = aesKey();
+        var data = "Something very secure ...".getBytes(StandardCharsets.UTF_8);
+        var cbc = new EncryptionService(new ObjectMapper(), new SecretKeyCryptoContext(key)).encrypt(data);
+        var gcmContext = new SecretKeyCryptoContext(key, CipherSuite.AES_GCM);
+        var gcm = new EncryptionService(new ObjectMapper(), gcmContext);
+        var chacha = new EncryptionService(new ObjectMapper(), new SecretKeyCryptoContext(key, CipherSuite.CHACHA20_POLY1305));
+
+        // the key is not used with any other suite
+        assertThrows(EncryptionException.class, () -> gcm.decrypt(chacha.encrypt(data)));
+        assertThrows(EncryptionException.class, () -> new EncryptionService(new ObjectMapper(), new SecretKeyCryptoContext(key)).decrypt(gcm.encrypt(data)));
+        // nor can the suite be removed from a message
+        var stripped = gcm.encrypt(data);
+        stripped.setSuite(null);
+        assertThrows(EncryptionException.class, () -> gcm.decrypt(stripped));
+
+        // AES/CBC data is read only once enabled
+        assertThrows(EncryptionException.class, () -> gcm.decrypt(cbc));
+        assertFalse(gcmContext.isLegacyCbcEnabled());
+        gcmContext.setLegacyCbcEnabled(true);
+        assertArrayEquals(data, gcm.decrypt(cbc));
+    }
+
+    @Test
+    public void freshIvPerMessage() throws Exception {
+        var cryptoContext = new SecretKeyCryptoContext(aesKey());
+        var service = new EncryptionService(new ObjectMapper(), cryptoContext);
+        var data = "Something very secure ...".getBytes(StandardCharsets.UTF_8);
+        var first = service.encrypt(data);
+        var second = service.encrypt(data);
+
+        assertNull(first.getSuite());
+        assertEquals(16, first.getSalt().length);
+        assertFalse(Arrays.equals(first.getIv(), second.getIv()));
+        assertArrayEquals(data, service.decrypt(first));
+        assertArrayEquals(data, service.decrypt(second));
+        assertThrows(EncryptionException.class, () -> cryptoContext.encrypt(data));
+    }
+
+    @Test
+    public void keyStore(@TempDir final Path directory) throws Exception {
+        var key = aesKey();
+        var store = KeyStore.getInstance(SecretKeyCryptoContext.KEYSTORE_TYPE);
+        store.load(null, PASSWORD);
+        store.setEntry("json", new KeyStore.SecretKeyEntry(key), new KeyStore.PasswordProtection(PASSWORD));
+        var path = directory.resolve("keys.p12");
+        try (var out = Files.newOutputStream(path)) {
+            store.store(out, PASSWORD);
+        }
+
+        var data = "Something very secure ...".getBytes(StandardCharsets.UTF_8);
+        var encrypted = new EncryptionService(new ObjectMapper(), new SecretKeyCryptoContext(key, CipherSuite.AES_GCM)).encrypt(data);
+        var service = new EncryptionService(new ObjectMapper(), new SecretKeyCryptoContext(path, PASSWORD, "json", CipherSuite.AES_GCM));
+        assertArrayEquals(data, service.decrypt(encrypted));
+
+        assertThrows(EncryptionException.class, () -> new SecretKeyCryptoContext(path, PASSWORD, "missing"));
+        assertThrows(EncryptionException.class, () -> new SecretKeyCryptoContext(path, "wrong".toCharArray(), "json"));
+        assertThrows(EncryptionException.class, () -> new SecretKeyCryptoContext(directory.resolve("missing.p12"), PASSWORD, "json"));
+    }
+
+    @Test
+    public void badArguments() throws Exception {
+        assertThrows(EncryptionException.class, () -> new SecretKeyCryptoContext((SecretKey) null));
+        assertThrows(EncryptionException.class, () -> new SecretKeyCryptoContext(aesKey(), null));
+        var desKey = KeyGenerator.getInstance("DES").generateKey();
+        assertThrows(EncryptionException.class, () -> new SecretKeyCryptoContext(desKey, CipherSuite.AES_GCM));
+    }
+}
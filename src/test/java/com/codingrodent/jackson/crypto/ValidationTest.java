@@ -39,6 +39,10 @@ public class ValidationTest {
             "\"value\":\"pXWsFPzCnmPieitbGfkvofeQE3fj0Kb4mSP7e28+Jc0=\"}}";
     private final static String TEST_JSON_NULL_VALUE = "{\"critical\":{\"salt\":\"IRqsz99no75sx9SCGrzOSEdoMVw=\",\"iv\":\"bfKvxBhq7X5su9VtvDdOGQ==\"," + "\"value\":null}}";
     private final static String TEST_JSON_MULTIPLE_NULLS = "{\"critical\":{\"salt\":null,\"iv\":null," + "\"value\":null}}";
+    private final static String TEST_JSON_UNKNOWN_FIELD = "{\"critical\":{\"salt\":\"IRqsz99no75sx9SCGrzOSEdoMVw=\",\"iv\":\"bfKvxBhq7X5su9VtvDdOGQ==\"," +
+            "\"value\":\"pXWsFPzCnmPieitbGfkvofeQE3fj0Kb4mSP7e28+Jc0=\",\"other\":\"AA==\"}}";
+    private final static String TEST_JSON_NUMBER_VALUE = "{\"critical\":{\"salt\":\"IRqsz99no75sx9SCGrzOSEdoMVw=\",\"iv\":\"bfKvxBhq7X5su9VtvDdOGQ==\"," + "\"value\":1}}";
+    private final static String TEST_JSON_NOT_OBJECT = "{\"critical\":\"pXWsFPzCnmPieitbGfkvofeQE3fj0Kb4mSP7e28+Jc0=\"}";
 
     @Test
     public void nullSaltValidatorTest() {
@@ -67,4 +71,17 @@ public class ValidationTest {
         new EncryptionService(objectMapper, new PasswordCryptoContext("Password1"));
         assertThrows(JsonMappingException.class, () -> objectMapper.readValue(TEST_JSON_MULTIPLE_NULLS, SecurePropertyPoJo.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void unknownFieldTest() {
+        ObjectMapper objectMapper = EncryptionService.getInstance("Password1");
+        assertThrows(JsonMappingException.class, () -> objectMapper.readValue(TEST_JSON_UNKNOWN_FIELD, SecurePropertyPoJo.class));
+    }
+
+    @Test
+    public void wrongTypeTest() {
+        ObjectMapper objectMapper = EncryptionService.getInstance("Password1");
+        assertThrows(JsonMappingException.class, () -> objectMapper.readValue(TEST_JSON_NUMBER_VALUE, SecurePropertyPoJo.class));
+        assertThrows(JsonMappingException.class, () -> objectMapper.readValue(TEST_JSON_NOT_OBJECT, SecurePropertyPoJo.class));
+    }
+}
@@ -0,0 +1,55 @@
+package com.codingrodent.jackson.crypto.pojos;
+
+import com.codingrodent.jackson.crypto.Encrypt;
+import com.codingrodent.jackson.crypto.Encrypted;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class LazySecurePoJo {
+
+    @JsonProperty
+    private String label;
+
+    @JsonProperty
+    private Encrypted<String> critical;
+
+    @JsonProperty
+    @Encrypt
+    private Encrypted<InsecurePojo> marked;
+
+    @JsonProperty
+    private List<Encrypted<Integer>> numbers;
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    public Encrypted<String> getCritical() {
+        return critical;
+    }
+
+    public void setCritical(Encrypted<String> critical) {
+        this.critical = critical;
+    }
+
+    public Encrypted<InsecurePojo> getMarked() {
+        return marked;
+    }
+
+    public void setMarked(Encrypted<InsecurePojo> marked) {
+        this.marked = marked;
+    }
+
+    public List<Encrypted<Integer>> getNumbers() {
+        return numbers;
+    }
+
+    public void setNumbers(List<Encrypted<Integer>> numbers) {
+        this.numbers = numbers;
+    }
+}
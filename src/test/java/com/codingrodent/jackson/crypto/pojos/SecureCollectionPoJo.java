@@ -0,0 +1,21 @@
+package com.codingrodent.jackson.crypto.pojos;
+
+import com.codingrodent.jackson.crypto.Encrypt;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class SecureCollectionPoJo {
+
+    @JsonProperty
+    @Encrypt
+    private List<InsecurePojo> items;
+
+    public List<InsecurePojo> getItems() {
+        return this.items;
+    }
+
+    public void setItems(List<InsecurePojo> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,41 @@
+package com.codingrodent.jackson.crypto.pojos;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class SecureTypeHolderPoJo {
+
+    @JsonProperty
+    private String label;
+
+    @JsonProperty
+    private SecureTypePoJo secure;
+
+    @JsonProperty
+    private List<SecureTypePoJo> list;
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    public SecureTypePoJo getSecure() {
+        return secure;
+    }
+
+    public void setSecure(SecureTypePoJo secure) {
+        this.secure = secure;
+    }
+
+    public List<SecureTypePoJo> getList() {
+        return list;
+    }
+
+    public void setList(List<SecureTypePoJo> list) {
+        this.list = list;
+    }
+}
@@ -0,0 +1,43 @@
+package com.codingrodent.jackson.crypto.pojos;
+
+import com.codingrodent.jackson.crypto.Encrypt;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@Encrypt
+public class SecureTypePoJo {
+
+    @JsonProperty
+    private String name;
+
+    @JsonProperty
+    private int number;
+
+    @JsonProperty
+    private List<InsecurePojo> items;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public void setNumber(int number) {
+        this.number = number;
+    }
+
+    public List<InsecurePojo> getItems() {
+        return items;
+    }
+
+    public void setItems(List<InsecurePojo> items) {
+        this.items = items;
+    }
+}
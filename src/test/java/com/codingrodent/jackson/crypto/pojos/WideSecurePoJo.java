@@ -0,0 +1,103 @@
+package com.codingrodent.jackson.crypto.pojos;
+
+import com.codingrodent.jackson.crypto.Encrypt;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class WideSecurePoJo {
+
+    @JsonProperty
+    private String name;
+
+    @JsonProperty
+    @Encrypt
+    private String first;
+
+    @JsonProperty
+    @Encrypt
+    private String second;
+
+    @JsonProperty
+    @Encrypt
+    private String third;
+
+    @JsonProperty
+    @Encrypt
+    private int number;
+
+    @JsonProperty
+    @Encrypt
+    private List<String> items;
+
+    @JsonProperty
+    @Encrypt
+    private SecurePropertyPoJo inner;
+
+    @JsonProperty
+    private WideSecurePoJo child;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getFirst() {
+        return first;
+    }
+
+    public void setFirst(String first) {
+        this.first = first;
+    }
+
+    public String getSecond() {
+        return second;
+    }
+
+    public void setSecond(String second) {
+        this.second = second;
+    }
+
+    public String getThird() {
+        return third;
+    }
+
+    public void setThird(String third) {
+        this.third = third;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public void setNumber(int number) {
+        this.number = number;
+    }
+
+    public List<String> getItems() {
+        return items;
+    }
+
+    public void setItems(List<String> items) {
+        this.items = items;
+    }
+
+    public SecurePropertyPoJo getInner() {
+        return inner;
+    }
+
+    public void setInner(SecurePropertyPoJo inner) {
+        this.inner = inner;
+    }
+
+    public WideSecurePoJo getChild() {
+        return child;
+    }
+
+    public void setChild(WideSecurePoJo child) {
+        this.child = child;
+    }
+}